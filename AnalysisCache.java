@@ -0,0 +1,412 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AnalysisCache Class
+ * Remembers the results of G-code and STL analysis by the content of the file,
+ * so a file that is submitted again only costs one hash pass instead of a full
+ * analysis. Files are keyed by their size and a 64-bit XXH64 hash of their bytes,
+ * so a renamed or copied file is still found and an edited one is analyzed again.
+ *
+ * At most maxEntries results are kept; the least recently used one is dropped
+ * when the cache is full. The cache is kept in an append-only index file using
+ * the write-ahead log format: one record for each new result and one for each
+ * hit, so replaying the file at startup gives back the same entries in the same
+ * order. When the file holds twice as many records as there are entries it is
+ * rewritten with just the entries.
+ *
+ * Analysis runs outside the cache lock, so the cache can be shared by threads.
+ */
+public class AnalysisCache {
+    // Index file used when none is given
+    public static final String DEFAULT_INDEX_FILE = "analysis.cache";
+
+    // Entries kept when no limit is given
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // Index record types
+    private static final String PUT = "A+";      // New result: key|result fields
+    private static final String TOUCH = "A~";    // Hit: key
+
+    // Key prefixes by kind of analysis
+    private static final String GCODE = "G";
+    private static final String STL = "S";
+
+    // The index is not rewritten while it holds fewer records than this
+    private static final int MIN_COMPACT_RECORDS = 64;
+
+    // Bytes hashed per mapped segment (a multiple of the 32 byte stripe)
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    // XXH64 primes
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    // Attributes
+    private final Map<String, String> entries;    // Result records by key, least recently used first
+    private final int maxEntries;                 // Most entries kept
+    private final WriteAheadLog index;            // Index file
+    private int indexRecords;                     // Records in the index file
+    private long hits;                            // Lookups answered from the cache
+    private long misses;                          // Lookups that needed an analysis
+    private long evictions;                       // Entries dropped to make room
+
+    /**
+     * Constructor - Opens a cache with the default size
+     * @param indexFile Path to the index file (created on first use)
+     */
+    public AnalysisCache(String indexFile) {
+        this(indexFile, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor - Opens a cache and reads the entries already in its index file
+     * @param indexFile Path to the index file (created on first use)
+     * @param maxEntries Most results kept
+     */
+    public AnalysisCache(String indexFile, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least 1 entry");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > AnalysisCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.index = new WriteAheadLog(indexFile);
+        try {
+            this.indexRecords = index.recover((type, payload) -> {
+                int separator = payload.indexOf('|');
+                if (type.equals(PUT) && separator > 0) {
+                    entries.put(payload.substring(0, separator), payload.substring(separator + 1));
+                } else if (type.equals(TOUCH)) {
+                    entries.get(payload);
+                } else {
+                    throw new IllegalArgumentException("Unknown cache record: " + type);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error repairing cache index: " + e.getMessage());
+        }
+        this.evictions = 0;
+        if (indexRecords > compactThreshold()) {
+            compact();
+        }
+    }
+
+    /**
+     * Analyzes a G-code file, or returns the result of an earlier analysis of the same content
+     * @param gcodeFile Path to the G-code file
+     * @param analyzer Analyzer used when the file is not in the cache
+     * @return Print time and filament used
+     * @throws IOException if the file cannot be read
+     */
+    public GcodeAnalyzer.Result analyzeGcode(String gcodeFile, GcodeAnalyzer analyzer) throws IOException {
+        String key = GCODE + fileKey(gcodeFile);
+        String record = lookup(key);
+        if (record != null) {
+            try {
+                return GcodeAnalyzer.Result.fromRecord(new RecordCodec().reset(record), analyzer.getFilamentDiameter());
+            } catch (IllegalArgumentException e) {
+                // A damaged entry is replaced by a fresh analysis
+            }
+        }
+        GcodeAnalyzer.Result result = analyzer.analyze(gcodeFile);
+        store(key, result.toRecordString());
+        return result;
+    }
+
+    /**
+     * Analyzes an STL file, or returns the result of an earlier analysis of the same content
+     * @param stlFile Path to the STL file
+     * @param analyzer Analyzer used when the file is not in the cache
+     * @return Volume, surface area and bounding box
+     * @throws IOException if the file cannot be read
+     */
+    public StlAnalyzer.Result analyzeStl(String stlFile, StlAnalyzer analyzer) throws IOException {
+        String key = STL + fileKey(stlFile);
+        String record = lookup(key);
+        if (record != null) {
+            try {
+                return StlAnalyzer.Result.fromRecord(new RecordCodec().reset(record), analyzer.getUnitScale());
+            } catch (IllegalArgumentException e) {
+                // A damaged entry is replaced by a fresh analysis
+            }
+        }
+        StlAnalyzer.Result result = analyzer.analyze(stlFile);
+        store(key, result.toRecordString());
+        return result;
+    }
+
+    /**
+     * Builds the part of a cache key that identifies a file's content
+     * @param file Path to the file
+     * @return Size and content hash of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static String fileKey(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            return channel.size() + ":" + Long.toHexString(hash(channel));
+        }
+    }
+
+    /**
+     * Looks up a result and marks it as recently used
+     * @param key Cache key
+     * @return Result record, or null if it is not cached
+     */
+    private synchronized String lookup(String key) {
+        String record = entries.get(key);
+        if (record == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        appendIndex(TOUCH, key);
+        return record;
+    }
+
+    /**
+     * Adds a result, dropping the least recently used one if the cache is full
+     * @param key Cache key
+     * @param record Result record
+     */
+    private synchronized void store(String key, String record) {
+        entries.put(key, record);
+        appendIndex(PUT, key + "|" + record);
+    }
+
+    /**
+     * Appends a record to the index file, rewriting the file when it has grown too long
+     * The cache still works in memory if the index cannot be written.
+     * @param type Record type
+     * @param payload Record payload
+     */
+    private void appendIndex(String type, String payload) {
+        try {
+            index.append(type, payload);
+            indexRecords++;
+        } catch (IOException e) {
+            System.err.println("Error writing analysis cache: " + e.getMessage());
+        }
+        if (indexRecords > compactThreshold()) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the number of index records above which the index is rewritten
+     * @return Record count
+     */
+    private int compactThreshold() {
+        return Math.max(MIN_COMPACT_RECORDS, entries.size() * 2);
+    }
+
+    /**
+     * Rewrites the index file with one record per entry, least recently used first
+     */
+    public synchronized void compact() {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            lines.add(PUT + "|" + entry.getKey() + "|" + entry.getValue());
+        }
+        index.close();
+        try {
+            AtomicFileWriter.writeLines(index.getLogFile(), false, lines);
+            indexRecords = lines.size();
+        } catch (IOException e) {
+            System.err.println("Error compacting analysis cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes every entry and empties the index file
+     */
+    public synchronized void clear() {
+        entries.clear();
+        try {
+            index.truncate();
+            indexRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Error clearing analysis cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the index file
+     */
+    public synchronized void close() {
+        index.close();
+    }
+
+    /**
+     * Gets the number of cached results
+     * @return Number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the most results the cache keeps
+     * @return Maximum number of entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache since it was opened
+     * @return Number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that needed an analysis since the cache was opened
+     * @return Number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries dropped to make room since the cache was opened
+     * @return Number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // ==================== CONTENT HASH ====================
+
+    /**
+     * Hashes the whole content of a file with XXH64 (seed 0)
+     * @param file Path to the file
+     * @return 64-bit hash
+     * @throws IOException if the file cannot be read
+     */
+    public static long hashFile(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            return hash(channel);
+        }
+    }
+
+    /**
+     * Hashes the whole content of an open file with XXH64 (seed 0)
+     * The 32 byte stripes are read from the file mapped a segment at a time;
+     * the last few bytes are read on their own.
+     * @param channel Open file
+     * @return 64-bit hash
+     * @throws IOException if the file cannot be read
+     */
+    private static long hash(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long striped = size & ~31L;
+        long v1 = PRIME1 + PRIME2;
+        long v2 = PRIME2;
+        long v3 = 0;
+        long v4 = -PRIME1;
+        for (long offset = 0; offset < striped; offset += SEGMENT_BYTES) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                                            Math.min(SEGMENT_BYTES, striped - offset)).order(ByteOrder.LITTLE_ENDIAN);
+            int limit = buffer.limit();
+            for (int position = 0; position < limit; position += 32) {
+                v1 = round(v1, buffer.getLong(position));
+                v2 = round(v2, buffer.getLong(position + 8));
+                v3 = round(v3, buffer.getLong(position + 16));
+                v4 = round(v4, buffer.getLong(position + 24));
+            }
+        }
+
+        long h;
+        if (size >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = PRIME5;
+        }
+        h += size;
+
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - striped)).order(ByteOrder.LITTLE_ENDIAN);
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, striped + tail.position()) < 0) {
+                throw new IOException("File changed while it was being hashed");
+            }
+        }
+        int position = 0;
+        for (; position + 8 <= tail.limit(); position += 8) {
+            h ^= round(0, tail.getLong(position));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (position + 4 <= tail.limit()) {
+            h ^= (tail.getInt(position) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            position += 4;
+        }
+        for (; position < tail.limit(); position++) {
+            h ^= (tail.get(position) & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Mixes 8 bytes of input into a lane
+     * @param lane Lane value
+     * @param input Input bytes as a little-endian long
+     * @return New lane value
+     */
+    private static long round(long lane, long input) {
+        return Long.rotateLeft(lane + input * PRIME2, 31) * PRIME1;
+    }
+
+    /**
+     * Mixes a lane into the folded hash
+     * @param h Hash so far
+     * @param lane Lane value
+     * @return New hash value
+     */
+    private static long mergeRound(long h, long lane) {
+        return (h ^ round(0, lane)) * PRIME1 + PRIME4;
+    }
+
+    /**
+     * String representation for display purposes
+     * @return Cache size and hit counts
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("Analysis cache: %d/%d entries | %d hits, %d misses, %d evictions",
+                             entries.size(), maxEntries, hits, misses, evictions);
+    }
+}
\ No newline at end of file
@@ -1,3 +1,8 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -6,10 +11,17 @@ import java.util.Scanner;
  */
 public class App {
     private static ProjectDB database;
+    private static AnalysisCache analysisCache;
     private static Scanner scanner;
     
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+        
         database = new ProjectDB();
+        analysisCache = new AnalysisCache(AnalysisCache.DEFAULT_INDEX_FILE);
         scanner = new Scanner(System.in);
         
         System.out.println("======================================");
@@ -56,6 +68,464 @@ public class App {
         }
         
         scanner.close();
+        analysisCache.close();
+    }
+    
+    /**
+     * Runs a command given on the command line instead of the menu
+     * @param args Command line arguments (command name first)
+     */
+    private static void runCommand(String[] args) {
+        switch (args[0]) {
+            case "server":
+                runServer(args);
+                break;
+            case "batch":
+                runBatch(args);
+                break;
+            case "quote":
+                runQuote(args);
+                break;
+            case "project":
+                runShowProject(args);
+                break;
+            case "material":
+                runShowMaterial(args);
+                break;
+            case "sweep":
+                runSweep(args);
+                break;
+            case "risk":
+                runRisk(args);
+                break;
+            case "schedule":
+                runSchedule(args);
+                break;
+            case "simulate":
+                runSimulate(args);
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.err.println("Usage: java App [server [port] | batch [file] | quote OPTIONS"
+                                   + " | project NAME | material NAME | sweep OPTIONS | risk [NAME]"
+                                   + " | schedule OPTIONS | simulate OPTIONS]");
+                System.exit(2);
+        }
+    }
+    
+    /**
+     * Prints a quote without loading the projects file
+     * Usage: java App quote --material NAME (--grams G | --stl FILE) --print-hours H
+     *                       [--design-hours H] [--hourly-rate R] [--print-rate R]
+     * With --stl the grams are estimated from the model and the material's density,
+     * infill density and shell thickness.
+     * @param args Command line arguments
+     */
+    private static void runQuote(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        
+        try {
+            String materialName = options.get("material");
+            if (materialName == null) {
+                throw new IllegalArgumentException("--material is required");
+            }
+            Material material = new DatabaseLookup().findMaterial(materialName);
+            if (material == null) {
+                System.err.println("✗ Material not found: " + materialName);
+                System.exit(1);
+            }
+            double grams;
+            String stlFile = options.get("stl");
+            if (stlFile == null) {
+                grams = optionValue(options, "grams", null);
+            } else {
+                AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_INDEX_FILE);
+                StlAnalyzer.Result model;
+                try {
+                    model = cache.analyzeStl(stlFile, new StlAnalyzer());
+                } finally {
+                    cache.close();
+                }
+                System.out.println(model);
+                grams = model.estimateGrams(material);
+                System.out.printf("Estimated material: %.2fg%n", grams);
+            }
+            Project quote = new Project("quote",
+                                        optionValue(options, "design-hours", 0.0),
+                                        optionValue(options, "print-hours", null),
+                                        grams,
+                                        material,
+                                        optionValue(options, "hourly-rate", 0.0),
+                                        optionValue(options, "print-rate", 0.0));
+            System.out.println(quote);
+            System.out.println("QUOTED PRICE: $" + Money.format(loadCostPipeline().price(quote), 2));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error reading STL file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Reads the --option value pairs that follow a command name
+     * Exits with status 2 if an argument is not part of a pair.
+     * @param args Command line arguments (the first one is the command)
+     * @return Options by name (without the leading --)
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("Error: expected --option value, found " + args[i]);
+                System.exit(2);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+    
+    /**
+     * Gets a non-negative number option
+     * @param options Options by name (without the leading --)
+     * @param name Option name
+     * @param defaultValue Value when the option is absent, or null if it is required
+     * @return Option value
+     */
+    private static double optionValue(Map<String, String> options, String name, Double defaultValue) {
+        String text = options.get(name);
+        if (text == null) {
+            if (defaultValue == null) {
+                throw new IllegalArgumentException("--" + name + " is required");
+            }
+            return defaultValue;
+        }
+        try {
+            double value = Double.parseDouble(text);
+            if (value < 0) {
+                throw new IllegalArgumentException("--" + name + " must be a positive number");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number");
+        }
+    }
+    
+    /**
+     * Prints total revenue over all projects for a grid of candidate rates
+     * Usage: java App sweep --hourly FROM:TO:STEP --print FROM:TO:STEP
+     * @param args Command line arguments
+     */
+    private static void runSweep(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        
+        try {
+            double[] hourlyRates = rateRange(options, "hourly");
+            double[] printRates = rateRange(options, "print");
+            ProjectDB db = new ProjectDB("projects.db", "materials.db",
+                    new DatabaseOptions().setParallelLoad(true));
+            try {
+                System.out.print(db.sweepRates(hourlyRates, printRates));
+            } finally {
+                db.close();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Prints simulated costs with reprints after failed prints
+     * Failure rates come from cost.properties (failure.rate, failure.hourlyRate).
+     * Usage: java App risk [NAME]   (all projects if no name is given)
+     * @param args Command line arguments
+     */
+    private static void runRisk(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Usage: java App risk [NAME]");
+            System.exit(2);
+        }
+        try {
+            FailureRiskSimulator simulator = new FailureRiskSimulator(loadCostParameters());
+            if (args.length == 2) {
+                Project project = new DatabaseLookup().findProject(args[1]);
+                if (project == null) {
+                    System.err.println("✗ Project not found: " + args[1]);
+                    System.exit(1);
+                }
+                System.out.println(simulator.estimate(project));
+                return;
+            }
+            
+            ProjectDB db = new ProjectDB("projects.db", "materials.db",
+                    new DatabaseOptions().setParallelLoad(true));
+            try {
+                double base = 0, expected = 0;
+                for (FailureRiskSimulator.Estimate estimate : simulator.estimateAll(db.getAllProjects().values())) {
+                    System.out.println(estimate);
+                    base += estimate.getBaseCost();
+                    expected += estimate.getExpectedCost();
+                }
+                System.out.printf("TOTAL: base $%.2f, expected $%.2f%n", base, expected);
+            } finally {
+                db.close();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Prints a plan for printing every project on a printer farm
+     * Usage: java App schedule --printers N|SPEC,SPEC... [--policy lpt|edf|material]
+     *                          [--change-hours H]
+     * A printer SPEC is name[:loadedMaterial[:material+material...]]; a count N
+     * creates that many printers named P1, P2, ... that print any material.
+     * @param args Command line arguments
+     */
+    private static void runSchedule(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        
+        try {
+            FleetScheduler scheduler = new FleetScheduler(printersOption(options),
+                    StandardAssignmentPolicies.byName(options.getOrDefault("policy", "lpt")),
+                    optionValue(options, "change-hours", FleetScheduler.DEFAULT_MATERIAL_CHANGE_HOURS));
+            
+            ProjectDB db = new ProjectDB("projects.db", "materials.db",
+                    new DatabaseOptions().setParallelLoad(true));
+            try {
+                scheduler.addJobs(db.getAllProjects().values());
+            } finally {
+                db.close();
+            }
+            System.out.print(scheduler);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Simulates a year (or more) of random orders for every project on a printer farm
+     * Usage: java App simulate --printers N|SPEC,SPEC... --orders-per-day R [--days D]
+     *                          [--shift START-END] [--work-days N] [--change-hours H] [--seed S]
+     * Printers are given as for schedule. Failure rates and prices come from cost.properties.
+     * @param args Command line arguments
+     */
+    private static void runSimulate(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        
+        try {
+            FarmSimulator simulator = new FarmSimulator(printersOption(options), loadCostPipeline(),
+                                                        loadCostParameters());
+            simulator.setMaterialChangeHours(optionValue(options, "change-hours",
+                                                         FleetScheduler.DEFAULT_MATERIAL_CHANGE_HOURS));
+            String shift = options.getOrDefault("shift", FarmSimulator.DEFAULT_SHIFT_START + "-"
+                                                         + FarmSimulator.DEFAULT_SHIFT_END);
+            String[] hours = shift.split("-", -1);
+            if (hours.length != 2) {
+                throw new IllegalArgumentException("--shift must be START-END, for example 8-18");
+            }
+            try {
+                simulator.setShift(Double.parseDouble(hours[0]), Double.parseDouble(hours[1]),
+                                   Integer.parseInt(options.getOrDefault("work-days",
+                                           String.valueOf(FarmSimulator.DEFAULT_WORK_DAYS))));
+                if (options.containsKey("seed")) {
+                    simulator.setSeed(Long.parseLong(options.get("seed")));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--shift must be START-END, --work-days and --seed whole numbers");
+            }
+            
+            ProjectDB db = new ProjectDB("projects.db", "materials.db",
+                    new DatabaseOptions().setParallelLoad(true));
+            try {
+                System.out.print(simulator.simulate(db.getAllProjects().values(),
+                                                    optionValue(options, "orders-per-day", null),
+                                                    optionValue(options, "days", 365.0)));
+            } finally {
+                db.close();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Gets the printers given as --printers N (N printers for any material) or a list of printer specs
+     * @param options Options by name (without the leading --)
+     * @return Printers
+     */
+    private static List<Printer> printersOption(Map<String, String> options) {
+        String fleet = options.get("printers");
+        if (fleet == null) {
+            throw new IllegalArgumentException("--printers is required");
+        }
+        List<Printer> printers = new ArrayList<>();
+        if (fleet.matches("\\d+")) {
+            for (int i = 1; i <= Integer.parseInt(fleet); i++) {
+                printers.add(new Printer("P" + i, null));
+            }
+        } else {
+            for (String spec : fleet.split(",")) {
+                printers.add(Printer.parse(spec));
+            }
+        }
+        return printers;
+    }
+    
+    /**
+     * Gets a range of rates given as FROM:TO:STEP, or a single rate
+     * @param options Options by name (without the leading --)
+     * @param name Option name
+     * @return Candidate rates
+     */
+    private static double[] rateRange(Map<String, String> options, String name) {
+        String text = options.get(name);
+        if (text == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        String[] parts = text.split(":");
+        try {
+            if (parts.length == 1) {
+                return new double[] { Double.parseDouble(parts[0]) };
+            }
+            if (parts.length == 3) {
+                return RateSweep.range(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                                       Double.parseDouble(parts[2]));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("--" + name + " must be RATE or FROM:TO:STEP");
+    }
+    
+    /**
+     * Prints one project, reading the files only as far as needed
+     * Usage: java App project NAME
+     * @param args Command line arguments
+     */
+    private static void runShowProject(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java App project NAME");
+            System.exit(2);
+        }
+        Project project = new DatabaseLookup().findProject(args[1]);
+        if (project == null) {
+            System.err.println("✗ Project not found: " + args[1]);
+            System.exit(1);
+        }
+        System.out.println(project);
+    }
+    
+    /**
+     * Prints one material, reading only the materials file and the log
+     * Usage: java App material NAME
+     * @param args Command line arguments
+     */
+    private static void runShowMaterial(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java App material NAME");
+            System.exit(2);
+        }
+        Material material = new DatabaseLookup().findMaterial(args[1]);
+        if (material == null) {
+            System.err.println("✗ Material not found: " + args[1]);
+            System.exit(1);
+        }
+        System.out.println(material);
+    }
+    
+    /**
+     * Creates the cost pipeline used for quotes
+     * Reads cost parameters from cost.properties if that file exists.
+     * @return Cost pipeline
+     */
+    private static CostPipeline loadCostPipeline() {
+        return CostPipeline.load(loadCostParameters());
+    }
+    
+    /**
+     * Loads cost parameters from cost.properties in the working directory, if it exists
+     * @return Cost parameters (empty if there is no file)
+     */
+    private static CostParameters loadCostParameters() {
+        CostParameters parameters = new CostParameters();
+        if (new File("cost.properties").exists()) {
+            try {
+                parameters = CostParameters.load("cost.properties");
+            } catch (IOException e) {
+                System.err.println("Error loading cost parameters: " + e.getMessage());
+            }
+        }
+        return parameters;
+    }
+    
+    /**
+     * Runs the HTTP quoting service until the process is stopped
+     * Usage: java App server [port]
+     * Filament stock is tracked in inventory.db; low stock is reported on the console.
+     * @param args Command line arguments
+     */
+    private static void runServer(String[] args) {
+        int port = 8080;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.err.println("Error: invalid port " + args[1]);
+                return;
+            }
+        }
+        
+        try {
+            ConcurrentProjectDB database = new ConcurrentProjectDB();
+            FilamentInventory inventory = new FilamentInventory(FilamentInventory.DEFAULT_INVENTORY_FILE);
+            inventory.addLowStockListener((material, available, threshold) ->
+                    System.out.printf("⚠ Low stock: %s has %.2fg available (threshold %.2fg)%n",
+                                      material, available, threshold));
+            database.setInventory(inventory);
+            QuoteServer server = new QuoteServer(database, loadCostPipeline(), port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.println("Quote server listening on port " + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Runs commands from a script file, or from standard input if no file is given
+     * Usage: java App batch [file]
+     * Changes go to the write-ahead log and the database files are written once at the end.
+     * @param args Command line arguments
+     */
+    private static void runBatch(String[] args) {
+        ProjectDB batchDatabase = new ProjectDB("projects.db", "materials.db",
+                new DatabaseOptions().setWriteAheadLog(true).setCheckpointInterval(Integer.MAX_VALUE));
+        AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_INDEX_FILE);
+        int errors;
+        try (BufferedReader in = args.length > 1 && !args[1].equals("-")
+                     ? new BufferedReader(new FileReader(args[1]))
+                     : new BufferedReader(new InputStreamReader(System.in))) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+            BatchRunner runner = new BatchRunner(batchDatabase, out, loadCostPipeline());
+            runner.setAnalysisCache(cache);
+            errors = runner.run(in);
+        } catch (IOException e) {
+            System.err.println("Error running batch: " + e.getMessage());
+            errors = 1;
+        } finally {
+            batchDatabase.close();
+            cache.close();
+        }
+        if (errors > 0) {
+            System.exit(1);
+        }
     }
     
     /**
@@ -88,14 +558,40 @@ public class App {
         String name = getStringInput("Material name (e.g., PLA, ABS, PETG): ");
         double totalCost = getDoubleInput("Total cost paid for material: $");
         double totalVolume = getDoubleInput("Total weight/volume in grams: ");
+        double density = getDoubleInput("Density in g/cm³ (0 if unknown): ");
+        // The menu asks for a percentage; the material (and the batch and server inputs) use a 0-1 fraction
+        double infill = getDoubleInputOptional("Infill percentage, 0-100 (stored as a 0-1 fraction) [" 
+                                               + Material.DEFAULT_INFILL_DENSITY * 100 + "]: ", 
+                                               Material.DEFAULT_INFILL_DENSITY * 100);
+        double shell = getDoubleInputOptional("Shell thickness in mm [" 
+                                              + Material.DEFAULT_SHELL_THICKNESS + "]: ", 
+                                              Material.DEFAULT_SHELL_THICKNESS);
+        
+        if (!(infill >= 0 && infill <= 100)) {
+            System.out.println("\n✗ Infill percentage must be between 0 and 100");
+            return;
+        }
         
-        Material material = new Material(name, totalCost, totalVolume);
+        Material material;
+        try {
+            material = new Material(name, totalCost, totalVolume);
+            material.setDensity(density);
+            material.setInfillDensity(infill / 100);
+            material.setShellThickness(shell);
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ " + e.getMessage());
+            return;
+        }
         
-        if (database.addMaterial(material)) {
-            System.out.println("\n✓ Material added successfully!");
-            System.out.println(material);
-        } else {
-            System.out.println("\n✗ Material with this name already exists.");
+        try {
+            if (database.addMaterial(material)) {
+                System.out.println("\n✓ Material added successfully!");
+                System.out.println(material);
+            } else {
+                System.out.println("\n✗ Material with this name already exists.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ " + e.getMessage());
         }
     }
     
@@ -128,11 +624,15 @@ public class App {
         double newTotalCost = getDoubleInput("\nNew total cost paid: $");
         double newTotalVolume = getDoubleInput("New total weight/volume in grams: ");
         
-        if (database.updateMaterial(name, newTotalCost, newTotalVolume)) {
-            System.out.println("\n✓ Material updated successfully!");
-            System.out.println(database.getMaterial(name));
-        } else {
-            System.out.println("\n✗ Error updating material.");
+        try {
+            if (database.updateMaterial(name, newTotalCost, newTotalVolume)) {
+                System.out.println("\n✓ Material updated successfully!");
+                System.out.println(database.getMaterial(name));
+            } else {
+                System.out.println("\n✗ Error updating material.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ " + e.getMessage());
         }
     }
     
@@ -152,8 +652,24 @@ public class App {
         
         String projectName = getStringInput("\nProject name: ");
         double designTime = getDoubleInput("Design time (hours): ");
-        double printTime = getDoubleInput("Print time (hours): ");
-        double materialUsed = getDoubleInput("Material used (grams): ");
+        String gcodeFile = getStringInput("G-code file (leave blank to enter print time and grams): ");
+        
+        GcodeAnalyzer.Result gcode = null;
+        double printTime;
+        double materialUsed = 0;
+        if (gcodeFile.isEmpty()) {
+            printTime = getDoubleInput("Print time (hours): ");
+            materialUsed = getDoubleInput("Material used (grams): ");
+        } else {
+            try {
+                gcode = analysisCache.analyzeGcode(gcodeFile, new GcodeAnalyzer());
+            } catch (IOException e) {
+                System.out.println("✗ Cannot read G-code file: " + e.getMessage());
+                return;
+            }
+            System.out.println(gcode);
+            printTime = gcode.getPrintHours();
+        }
         
         String materialName = getStringInput("Material type: ");
         Material material = database.getMaterial(materialName);
@@ -162,18 +678,31 @@ public class App {
             System.out.println("✗ Material not found. Please select a valid material.");
             return;
         }
+        if (gcode != null) {
+            if (material.getDensity() > 0) {
+                materialUsed = gcode.getGrams(material);
+            } else {
+                // Only used for this project; the material keeps no density
+                double density = getDoubleInput("Density of " + material.getName() + " in g/cm³: ");
+                materialUsed = gcode.getFilamentVolume() * density;
+            }
+            System.out.printf("Material used: %.2fg%n", materialUsed);
+        }
         
         double hourlyRate = getDoubleInput("Your hourly design rate: $");
         double printRate = getDoubleInput("Printer operation cost per hour: $");
         
-        Project project = new Project(projectName, designTime, printTime, 
-                                     materialUsed, material, hourlyRate, printRate);
-        
-        if (database.addProject(project)) {
-            System.out.println("\n✓ Project added successfully!");
-            System.out.println("\n" + project);
-        } else {
-            System.out.println("\n✗ Project with this name already exists.");
+        try {
+            Project project = new Project(projectName, designTime, printTime, 
+                                         materialUsed, material, hourlyRate, printRate);
+            if (database.addProject(project)) {
+                System.out.println("\n✓ Project added successfully!");
+                System.out.println("\n" + project);
+            } else {
+                System.out.println("\n✗ Project with this name already exists.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ " + e.getMessage());
         }
     }
     
@@ -230,16 +759,19 @@ public class App {
         double materialUsed = getDoubleInputOptional("Material used [" + oldProject.getMaterialUsed() + "]: ", 
                                                      oldProject.getMaterialUsed());
         
-        Project updatedProject = new Project(newName, designTime, printTime, materialUsed,
-                                           oldProject.getMaterialType(), 
-                                           oldProject.getHourlyRate(), 
-                                           oldProject.getPrintRate());
-        
-        if (database.updateProject(projectName, updatedProject)) {
-            System.out.println("\n✓ Project updated successfully!");
-            System.out.println("\n" + updatedProject);
-        } else {
-            System.out.println("\n✗ Error updating project.");
+        try {
+            Project updatedProject = new Project(newName, designTime, printTime, materialUsed,
+                                               oldProject.getMaterialType(), 
+                                               oldProject.getHourlyRate(), 
+                                               oldProject.getPrintRate());
+            if (database.updateProject(projectName, updatedProject)) {
+                System.out.println("\n✓ Project updated successfully!");
+                System.out.println("\n" + updatedProject);
+            } else {
+                System.out.println("\n✗ Error updating project.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n✗ " + e.getMessage());
         }
     }
     
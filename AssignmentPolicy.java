@@ -0,0 +1,28 @@
+import java.util.Comparator;
+
+/**
+ * AssignmentPolicy Interface
+ * Decides how a FleetScheduler hands queued jobs to printers.
+ * The scheduler takes jobs in the order given by compare and puts each one on
+ * the printer where it would finish first. A material change costs its real
+ * time plus the policy's change penalty when printers are compared, so a
+ * policy can trade finish time for fewer spool swaps.
+ *
+ * Jobs that compare as equal are taken in the order they were added.
+ * The standard policies are in StandardAssignmentPolicies.
+ */
+public interface AssignmentPolicy extends Comparator<FleetScheduler.Job> {
+    /**
+     * Gets the policy name, used in listings
+     * @return Policy name
+     */
+    String getName();
+
+    /**
+     * Gets the extra hours a material change counts as when choosing a printer
+     * The time added to the schedule is only the real change time.
+     * @param materialChangeHours Real time to change material
+     * @return Penalty in hours (0 to pick purely by finish time)
+     */
+    double getChangePenalty(double materialChangeHours);
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AtomicFileWriter Class
+ * Replaces a file so that a crash never leaves it half written.
+ * The new contents go to a temporary file next to the target, which can be
+ * forced to disk, and is then renamed over the target in one step. Each write
+ * uses its own temporary file, so two writers of the same file never share one.
+ */
+public class AtomicFileWriter {
+    /**
+     * Writes the new contents of a file
+     */
+    public interface Body {
+        /**
+         * Writes the file contents
+         * @param out Stream to write to
+         * @throws IOException if writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Private constructor - this class only has static methods
+     */
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Replaces a file with new contents
+     * @param file Path to the file
+     * @param force true to force the data and the rename to disk before returning
+     * @param body Writes the new contents
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(String file, boolean force, Body body) throws IOException {
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temp = createTempFile(target);
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+                BufferedOutputStream out = new BufferedOutputStream(stream, 1 << 16);
+                body.writeTo(out);
+                out.flush();
+                if (force) {
+                    stream.getChannel().force(true);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (force) {
+            forceDirectory(target.getParent());
+        }
+    }
+
+    /**
+     * Replaces a text file with new contents, encoded as UTF-8
+     * @param file Path to the file
+     * @param force true to force the data and the rename to disk before returning
+     * @param lines Lines to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeLines(String file, boolean force, Iterable<String> lines) throws IOException {
+        write(file, force, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Creates a new, empty temporary file next to the target.
+     * Files.createTempFile would make the file readable by its owner only, and
+     * the renamed file would keep that, so the file is created with the
+     * default permissions under a random name instead.
+     * @param target File that will be replaced
+     * @return Path of the temporary file
+     * @throws IOException if the file cannot be created
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling(target.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // Name taken by another writer; pick another
+            }
+        }
+    }
+
+    /**
+     * Forces a directory entry change (such as a rename) to disk
+     * @param directory Directory to force
+     * @throws IOException if the directory cannot be forced
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchRunner Class
+ * Runs database commands read from a script, one command per line, without prompts.
+ * All output goes through one writer supplied by the caller, so large scripts are
+ * not slowed down by a flush per line.
+ *
+ * Commands (names containing spaces go in double quotes; # starts a comment):
+ *   add-material NAME TOTAL_COST TOTAL_GRAMS [DENSITY [INFILL SHELL_MM]]
+ *                (INFILL is a fraction from 0 to 1: 0.2 is 20%, not a percentage)
+ *   add-project NAME DESIGN_HOURS PRINT_HOURS GRAMS MATERIAL HOURLY_RATE PRINT_RATE
+ *   add-project-gcode NAME GCODE_FILE MATERIAL DESIGN_HOURS HOURLY_RATE PRINT_RATE
+ *   quote MATERIAL GRAMS PRINT_HOURS [DESIGN_HOURS HOURLY_RATE PRINT_RATE]
+ *   show NAME
+ *   list projects|materials
+ *   update-material NAME TOTAL_COST TOTAL_GRAMS
+ *   update-project NAME DESIGN_HOURS PRINT_HOURS GRAMS
+ *   delete-project NAME
+ *   delete-material NAME
+ */
+public class BatchRunner {
+    // Attributes
+    private ProjectDB database;      // Database the commands run against
+    private Writer out;              // Destination for all output
+    private CostPipeline pipeline;   // Prices quotes
+    private AnalysisCache cache;     // Remembers G-code analysis (null to analyze every file)
+    private int errors;              // Number of commands that failed
+
+    /**
+     * Constructor - Creates a runner for a database
+     * @param database Database the commands run against
+     * @param out Destination for all output (should be buffered)
+     */
+    public BatchRunner(ProjectDB database, Writer out) {
+        this(database, out, CostPipeline.load(new CostParameters()));
+    }
+
+    /**
+     * Constructor - Creates a runner that prices quotes with a cost pipeline
+     * @param database Database the commands run against
+     * @param out Destination for all output (should be buffered)
+     * @param pipeline Cost pipeline used to price quotes
+     */
+    public BatchRunner(ProjectDB database, Writer out, CostPipeline pipeline) {
+        this.database = database;
+        this.out = out;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Sets the cache used for G-code analysis, so a file seen before is not analyzed again
+     * @param cache Analysis cache, or null to analyze every file
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Runs every command in a script
+     * @param in Script to read
+     * @return Number of commands that failed
+     * @throws IOException if the script cannot be read or the output cannot be written
+     */
+    public int run(BufferedReader in) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            try {
+                List<String> words = split(line);
+                if (!words.isEmpty()) {
+                    execute(words);
+                }
+            } catch (IllegalArgumentException e) {
+                errors++;
+                out.write("Error on line " + lineNumber + ": " + e.getMessage() + "\n");
+            }
+        }
+        out.flush();
+        return errors;
+    }
+
+    /**
+     * Runs a single command
+     * @param words Command name followed by its arguments
+     * @throws IOException if the output cannot be written
+     */
+    private void execute(List<String> words) throws IOException {
+        String command = words.get(0);
+        switch (command) {
+            case "add-material": {
+                if (words.size() != 4 && words.size() != 5 && words.size() != 7) {
+                    throw new IllegalArgumentException("add-material takes 3, 4 or 6 arguments");
+                }
+                Material material = new Material(words.get(1), number(words, 2), number(words, 3));
+                if (words.size() >= 5) {
+                    material.setDensity(number(words, 4));
+                }
+                if (words.size() == 7) {
+                    material.setInfillDensity(number(words, 5));
+                    material.setShellThickness(number(words, 6));
+                }
+                check(database.addMaterial(material), "Material already exists: " + words.get(1));
+                break;
+            }
+            case "add-project":
+                arguments(words, 7);
+                check(database.addProject(new Project(words.get(1), number(words, 2), number(words, 3),
+                                                      number(words, 4), material(words.get(5)),
+                                                      number(words, 6), number(words, 7))),
+                      "Project already exists: " + words.get(1));
+                break;
+            case "add-project-gcode": {
+                arguments(words, 6);
+                GcodeAnalyzer.Result result;
+                try {
+                    result = cache != null ? cache.analyzeGcode(words.get(2), new GcodeAnalyzer())
+                                           : new GcodeAnalyzer().analyze(words.get(2));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot read G-code file: " + e.getMessage());
+                }
+                check(database.addProject(result.toProject(words.get(1), number(words, 4), material(words.get(3)),
+                                                           number(words, 5), number(words, 6))),
+                      "Project already exists: " + words.get(1));
+                break;
+            }
+            case "quote": {
+                if (words.size() != 4 && words.size() != 7) {
+                    throw new IllegalArgumentException("quote takes 3 or 6 arguments");
+                }
+                boolean full = words.size() == 7;
+                Project quote = new Project("quote",
+                                            full ? number(words, 4) : 0,
+                                            number(words, 3),
+                                            number(words, 2),
+                                            material(words.get(1)),
+                                            full ? number(words, 5) : 0,
+                                            full ? number(words, 6) : 0);
+                out.write(Money.format(pipeline.price(quote), 2));
+                out.write('\n');
+                break;
+            }
+            case "show": {
+                arguments(words, 1);
+                Project project = database.getProject(words.get(1));
+                check(project != null, "Project not found: " + words.get(1));
+                out.write(project.toString());
+                out.write('\n');
+                break;
+            }
+            case "list":
+                arguments(words, 1);
+                if (words.get(1).equals("projects")) {
+                    out.write(database.listProjects());
+                } else if (words.get(1).equals("materials")) {
+                    out.write(database.listMaterials());
+                } else {
+                    throw new IllegalArgumentException("list takes projects or materials");
+                }
+                out.write('\n');
+                break;
+            case "update-material":
+                arguments(words, 3);
+                check(database.updateMaterial(words.get(1), number(words, 2), number(words, 3)),
+                      "Material not found: " + words.get(1));
+                break;
+            case "update-project": {
+                arguments(words, 4);
+                Project old = database.getProject(words.get(1));
+                check(old != null, "Project not found: " + words.get(1));
+                database.updateProject(words.get(1),
+                                       new Project(old.getProjectName(), number(words, 2), number(words, 3),
+                                                   number(words, 4), old.getMaterialType(),
+                                                   old.getHourlyRate(), old.getPrintRate()));
+                break;
+            }
+            case "delete-project":
+                arguments(words, 1);
+                check(database.deleteProject(words.get(1)), "Project not found: " + words.get(1));
+                break;
+            case "delete-material":
+                arguments(words, 1);
+                check(database.deleteMaterial(words.get(1)), "Material not found: " + words.get(1));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    // ==================== PARSING HELPERS ====================
+
+    /**
+     * Splits a line into words. Double quotes group words containing spaces,
+     * and everything after an unquoted # is ignored.
+     * @param line Line to split
+     * @return List of words (empty for blank or comment lines)
+     */
+    static List<String> split(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean inWord = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                } else {
+                    word.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inWord = true;
+            } else if (c == '#') {
+                break;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Checks that a command has the expected number of arguments
+     * @param words Command name followed by its arguments
+     * @param count Expected number of arguments
+     */
+    private static void arguments(List<String> words, int count) {
+        if (words.size() != count + 1) {
+            throw new IllegalArgumentException(words.get(0) + " takes " + count
+                                               + (count == 1 ? " argument" : " arguments"));
+        }
+    }
+
+    /**
+     * Parses a non-negative number argument
+     * @param words Command name followed by its arguments
+     * @param index Position of the argument
+     * @return Parsed number
+     */
+    private static double number(List<String> words, int index) {
+        String text = words.get(index);
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + text);
+        }
+        if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Please enter a positive number: " + text);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up a material that must exist
+     * @param name Material name
+     * @return Material object
+     */
+    private Material material(String name) {
+        Material material = database.getMaterial(name);
+        check(material != null, "Material not found: " + name);
+        return material;
+    }
+
+    /**
+     * Fails the current command if a condition is false
+     * @param ok Condition that must hold
+     * @param message Error message otherwise
+     */
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
\ No newline at end of file
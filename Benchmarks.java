@@ -0,0 +1,338 @@
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Benchmarks Class
+ * Micro-benchmark suite for the database and cost model hot paths.
+ * Each benchmark is warmed up, then measured over several iterations, and
+ * reports time per operation together with allocation and GC figures so
+ * results can be compared between releases. Allocation is counted for the
+ * calling thread only, so work done on fork-join or background writer
+ * threads is not in the B/op and MB/sec columns.
+ *
+ * Usage: java Benchmarks [--sizes 1000,10000,100000] [--filter name] [--iterations n]
+ */
+public class Benchmarks {
+    // Settings
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final String[] MATERIAL_NAMES = {"PLA", "ABS", "PETG", "TPU", "ASA"};
+
+    // Result sink so the JIT cannot discard benchmark work
+    private static volatile double sink;
+
+    /**
+     * A single benchmark body
+     */
+    private interface Operation {
+        /**
+         * Runs the benchmark body once
+         * @return Number of operations performed
+         * @throws Exception if the benchmark fails
+         */
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {1_000, 10_000, 100_000};
+        String filter = "";
+        int iterations = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--filter":
+                    filter = args[i + 1];
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        System.out.println("Allocation (MB/sec, B/op) is counted on the calling thread only.");
+        System.out.println(String.format("%-34s %10s %14s %12s %12s %8s %8s",
+                           "Benchmark", "Size", "ns/op", "MB/sec", "B/op", "GCs", "GC ms"));
+        for (int size : sizes) {
+            runSuite(size, filter, iterations);
+        }
+    }
+
+    /**
+     * Runs every benchmark against a dataset of the given size
+     * @param size Number of projects in the dataset
+     * @param filter Only run benchmarks whose name contains this text
+     * @param iterations Number of measured iterations
+     * @throws Exception if a benchmark fails
+     */
+    private static void runSuite(int size, String filter, int iterations) throws Exception {
+        File directory = Files.createTempDirectory("projectdb-bench").toFile();
+        String projectFile = new File(directory, "projects.db").getPath();
+        String materialFile = new File(directory, "materials.db").getPath();
+
+        List<Material> materials = createMaterials();
+        List<Project> projects = createProjects(size, materials);
+        ProjectDB seeded = new ProjectDB(projectFile, materialFile);
+        seeded.importRecords(materials, projects);
+
+        ProjectDB database = new ProjectDB(projectFile, materialFile);
+        String[] names = new String[Math.min(size, 1 << 16)];
+        Random random = new Random(42);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Project-" + random.nextInt(size);
+        }
+        String[] projectLines = new String[Math.min(size, 1 << 16)];
+        for (int i = 0; i < projectLines.length; i++) {
+            projectLines[i] = projects.get(i).toDatabaseString();
+        }
+        String[] materialLines = new String[materials.size()];
+        for (int i = 0; i < materialLines.length; i++) {
+            materialLines[i] = materials.get(i).toDatabaseString();
+        }
+        Material pla = materials.get(0);
+
+        Map<String, Operation> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("ProjectDB.load", () -> {
+            sink = new ProjectDB(projectFile, materialFile).getProjectCount();
+            return size;
+        });
+        benchmarks.put("ProjectDB.loadParallel", () -> {
+            DatabaseOptions parallel = new DatabaseOptions().setParallelLoad(true);
+            sink = new ProjectDB(projectFile, materialFile, parallel).getProjectCount();
+            return size;
+        });
+        benchmarks.put("ProjectDB.save", () -> {
+            database.checkpoint();
+            return size;
+        });
+        benchmarks.put("ProjectDB.getProject", () -> {
+            double total = 0;
+            for (String name : names) {
+                total += database.getProject(name).getTotalCost();
+            }
+            sink = total;
+            return names.length;
+        });
+        benchmarks.put("ProjectDB.listProjects", () -> {
+            sink = database.listProjects().length();
+            return size;
+        });
+        benchmarks.put("Project.calculateCost", () -> {
+            double total = 0;
+            for (Project project : projects) {
+                total += project.calculateCost();
+            }
+            sink = total;
+            return projects.size();
+        });
+        benchmarks.put("Project.calculateCost[BigDecimal]", () -> {
+            // Baseline: the same exact cost calculation done with BigDecimal
+            BigDecimal total = BigDecimal.ZERO;
+            for (Project project : projects) {
+                total = total.add(BigDecimal.valueOf(project.getHourlyRateMicros())
+                                            .multiply(BigDecimal.valueOf(project.getDesignTime())))
+                             .add(BigDecimal.valueOf(project.getPrintRateMicros())
+                                            .multiply(BigDecimal.valueOf(project.getPrintTime())))
+                             .add(BigDecimal.valueOf(project.getMaterialType().getCostPerGramMicros())
+                                            .multiply(BigDecimal.valueOf(project.getMaterialUsed())))
+                             .setScale(0, RoundingMode.HALF_UP);
+            }
+            sink = total.doubleValue();
+            return projects.size();
+        });
+        CostPipeline pipeline = CostPipeline.load(new CostParameters()
+                .set(StandardCostComponents.ELECTRICITY_PRICE, 0.20)
+                .set(StandardCostComponents.PRINTER_WATTS, 150)
+                .set(StandardCostComponents.MACHINE_COST, 800)
+                .set(StandardCostComponents.MACHINE_LIFETIME, 4000)
+                .set(StandardCostComponents.FAILURE_RATE, 0.05)
+                .set(StandardCostComponents.POSTPROCESSING_PER_PRINT, 1.50)
+                .set(StandardCostComponents.MARKUP_RATE, 0.25));
+        benchmarks.put("CostPipeline.priceAll", () -> {
+            long[] prices = pipeline.priceAll(projects);
+            sink = prices[prices.length - 1];
+            return prices.length;
+        });
+        benchmarks.put("Project.toDatabaseString", () -> {
+            long length = 0;
+            for (int i = 0; i < projectLines.length; i++) {
+                length += projects.get(i).toDatabaseString().length();
+            }
+            sink = length;
+            return projectLines.length;
+        });
+        benchmarks.put("Project.fromDatabaseString", () -> {
+            double total = 0;
+            for (String line : projectLines) {
+                total += Project.fromDatabaseString(line, pla).getTotalCost();
+            }
+            sink = total;
+            return projectLines.length;
+        });
+        benchmarks.put("Material.fromDatabaseString", () -> {
+            double total = 0;
+            for (int repeat = 0; repeat < 10_000; repeat++) {
+                for (String line : materialLines) {
+                    total += Material.fromDatabaseString(line).getCostPerGram();
+                }
+            }
+            sink = total;
+            return 10_000L * materialLines.length;
+        });
+
+        for (Map.Entry<String, Operation> benchmark : benchmarks.entrySet()) {
+            if (benchmark.getKey().contains(filter)) {
+                measure(benchmark.getKey(), size, benchmark.getValue(), iterations);
+            }
+        }
+
+        // Write-ahead log appends under each sync policy, with and without group commit.
+        // Each database is only opened when its benchmark runs, and is closed (which
+        // stops its background writer) before the files are removed.
+        for (DatabaseOptions.SyncPolicy policy : DatabaseOptions.SyncPolicy.values()) {
+            for (boolean groupCommit : new boolean[] {false, true}) {
+                String name = "ProjectDB.add[" + policy + (groupCommit ? ",group" : "") + "]";
+                if (!name.contains(filter)) {
+                    continue;
+                }
+                DatabaseOptions walOptions = new DatabaseOptions()
+                        .setWriteAheadLog(true)
+                        .setCheckpointInterval(Integer.MAX_VALUE)
+                        .setSyncPolicy(policy)
+                        .setFlushPolicy(groupCommit ? FlushPolicy.everyOperation() : null);
+                String prefix = new File(directory, "wal-" + policy + (groupCommit ? "-group" : "")).getPath();
+                ProjectDB walDatabase = new ProjectDB(prefix + ".db", materialFile, walOptions);
+                try {
+                    int[] counter = {0};
+                    measure(name, size, () -> {
+                        for (int i = 0; i < 200; i++) {
+                            walDatabase.addProject(new Project("Added-" + counter[0]++, 1, 2, 30, pla, 25, 1.5));
+                        }
+                        walDatabase.whenDurable().join();
+                        return 200;
+                    }, iterations);
+                } finally {
+                    walDatabase.close();
+                }
+            }
+        }
+
+        for (File file : Objects.requireNonNull(directory.listFiles())) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Warms up and measures a single benchmark, then prints one result row
+     * @param name Benchmark name
+     * @param size Dataset size
+     * @param operation Benchmark body
+     * @param iterations Number of measured iterations
+     * @throws Exception if the benchmark fails
+     */
+    private static void measure(String name, int size, Operation operation, int iterations) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        long operations = 0;
+        long allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operations += operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        double seconds = elapsed / 1e9;
+        System.out.println(String.format("%-34s %10d %14.1f %12.1f %12.1f %8d %8d",
+                           name, size,
+                           (double) elapsed / operations,
+                           allocated / (1024.0 * 1024.0) / seconds,
+                           (double) allocated / operations,
+                           gcCount() - gcCountBefore,
+                           gcTime() - gcTimeBefore));
+    }
+
+    /**
+     * Gets the bytes allocated so far by the calling thread.
+     * Summing over all live threads would miss worker threads that exit
+     * during a measurement, so other threads are left out altogether.
+     * @return Allocated bytes, or 0 if the JVM cannot report allocation
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        return Math.max(((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes(), 0);
+    }
+
+    /**
+     * Gets the number of garbage collections so far
+     * @return Total collection count of all collectors
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the time spent in garbage collection so far
+     * @return Total collection time of all collectors in milliseconds
+     */
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    /**
+     * Creates the benchmark materials
+     * @return List of materials
+     */
+    private static List<Material> createMaterials() {
+        List<Material> materials = new ArrayList<>();
+        for (int i = 0; i < MATERIAL_NAMES.length; i++) {
+            materials.add(new Material(MATERIAL_NAMES[i], 18.99 + i * 4.5, 1000));
+        }
+        return materials;
+    }
+
+    /**
+     * Creates a reproducible set of projects
+     * @param size Number of projects
+     * @param materials Materials to choose from
+     * @return List of projects
+     */
+    private static List<Project> createProjects(int size, List<Material> materials) {
+        Random random = new Random(size);
+        List<Project> projects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            projects.add(new Project("Project-" + i,
+                                     random.nextInt(2000) / 100.0,
+                                     random.nextInt(4800) / 100.0,
+                                     random.nextInt(100000) / 100.0,
+                                     materials.get(random.nextInt(materials.size())),
+                                     25 + random.nextInt(50),
+                                     0.5 + random.nextInt(300) / 100.0));
+        }
+        return projects;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,311 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BinarySnapshot Class
+ * Binary database snapshot that is opened with a memory map.
+ * Opening only reads the header and the materials; project records are
+ * decoded one at a time when they are asked for.
+ *
+ * File layout (big-endian):
+ *   header      magic, version, materialCount, projectCount, stringCount, indexSlots
+ *   materials   materialCount x (nameId int, costPerGram long, totalVolume double, density double,
+ *               infillDensity double, shellThickness double)
+ *   projects    projectCount x (nameId int, materialIndex int, designTime, printTime,
+ *               materialUsed doubles, hourlyRate, printRate, totalCost longs)
+ *   index       indexSlots x int, open-addressing hash of project names (record + 1, 0 = empty)
+ *   offsets     (stringCount + 1) x int, start of each string in the string data
+ *   strings     UTF-8 string data
+ *
+ * Money fields hold Money micro-cents. Version 1 files, which hold them as
+ * doubles, version 2 files, which have no material density, and version 3
+ * files, which have no infill or shell settings, can still be read.
+ */
+public class BinarySnapshot {
+    // File format constants
+    private static final int MAGIC = 0x50444253;          // "PDBS"
+    private static final int VERSION = 4;
+    private static final int NO_PRINT_SETTINGS_VERSION = 3;  // Materials have no infill or shell
+    private static final int NO_DENSITY_VERSION = 2;    // Materials have no density
+    private static final int DOUBLE_MONEY_VERSION = 1;  // Money fields stored as doubles
+    private static final int HEADER_SIZE = 24;
+    private static final int MATERIAL_RECORD_SIZE = 44;
+    private static final int DENSITY_MATERIAL_RECORD_SIZE = 28;  // Version 3
+    private static final int OLD_MATERIAL_RECORD_SIZE = 20;  // Versions 1 and 2
+    private static final int PROJECT_RECORD_SIZE = 56;
+
+    // Attributes
+    private ByteBuffer buffer;           // Mapped file contents
+    private boolean doubleMoney;         // Money fields are doubles (version 1 file)
+    private Material[] materials;        // Materials, decoded when the snapshot is opened
+    private int projectCount;            // Number of project records
+    private int indexSlots;              // Size of the name hash index
+    private int projectsOffset;          // Start of the project records
+    private int indexOffset;             // Start of the name hash index
+    private int stringOffsetsOffset;     // Start of the string offsets
+    private int stringDataOffset;        // Start of the string data
+
+    /**
+     * Private constructor - use open() to read a snapshot file
+     * @param buffer Mapped file contents
+     */
+    private BinarySnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a database snapshot file");
+        }
+        int version = buffer.getInt(4);
+        if (version < DOUBLE_MONEY_VERSION || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+        }
+        this.doubleMoney = version == DOUBLE_MONEY_VERSION;
+        int materialRecordSize = version == VERSION ? MATERIAL_RECORD_SIZE
+                               : version == NO_PRINT_SETTINGS_VERSION ? DENSITY_MATERIAL_RECORD_SIZE
+                               : OLD_MATERIAL_RECORD_SIZE;
+        int materialCount = buffer.getInt(8);
+        this.projectCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+        this.indexSlots = buffer.getInt(20);
+        this.projectsOffset = HEADER_SIZE + materialCount * materialRecordSize;
+        this.indexOffset = projectsOffset + projectCount * PROJECT_RECORD_SIZE;
+        this.stringOffsetsOffset = indexOffset + indexSlots * 4;
+        this.stringDataOffset = stringOffsetsOffset + (stringCount + 1) * 4;
+
+        this.materials = new Material[materialCount];
+        for (int i = 0; i < materialCount; i++) {
+            int position = HEADER_SIZE + i * materialRecordSize;
+            materials[i] = Material.ofCostPerGram(readString(buffer.getInt(position)),
+                                                  readMoney(position + 4),
+                                                  buffer.getDouble(position + 12));
+            if (version >= NO_PRINT_SETTINGS_VERSION) {
+                materials[i].setDensity(buffer.getDouble(position + 20));
+            }
+            if (version == VERSION) {
+                materials[i].setInfillDensity(buffer.getDouble(position + 28));
+                materials[i].setShellThickness(buffer.getDouble(position + 36));
+            }
+        }
+    }
+
+    /**
+     * Opens a snapshot file by memory-mapping it
+     * @param snapshotFile Path to the snapshot file
+     * @return Opened snapshot
+     * @throws IOException if the file cannot be read
+     */
+    public static BinarySnapshot open(String snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot file is too large to map");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinarySnapshot(mapped);
+        }
+    }
+
+    /**
+     * Writes a snapshot file. The file is written under a temporary name and
+     * then renamed, so a snapshot that is currently mapped is never overwritten in place
+     * and a crash never leaves a half-written snapshot.
+     * Projects whose material is not in the materials collection are skipped,
+     * the same way loading the text database skips them.
+     * @param snapshotFile Path to the snapshot file
+     * @param materials Materials to write
+     * @param projects Projects to write
+     * @param force true to force the file to disk before returning
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(String snapshotFile, Collection<Material> materials,
+                             Collection<Project> projects, boolean force) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        Map<String, Integer> materialIndex = new HashMap<>();
+        for (Material material : materials) {
+            materialIndex.put(material.getName(), materialIndex.size());
+            strings.add(material.getName().getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Project> written = new ArrayList<>(projects.size());
+        for (Project project : projects) {
+            if (materialIndex.containsKey(project.getMaterialType().getName())) {
+                written.add(project);
+                strings.add(project.getProjectName().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        // Hash index of project names, sized to stay at most half full
+        int slots = 1;
+        while (slots < written.size() * 2) {
+            slots <<= 1;
+        }
+        int[] index = new int[slots];
+        for (int i = 0; i < written.size(); i++) {
+            int slot = slotFor(written.get(i).getProjectName(), slots);
+            while (index[slot] != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            index[slot] = i + 1;
+        }
+
+        int slotCount = slots;
+        AtomicFileWriter.write(snapshotFile, force, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(materials.size());
+            out.writeInt(written.size());
+            out.writeInt(strings.size());
+            out.writeInt(slotCount);
+
+            int stringId = 0;
+            for (Material material : materials) {
+                out.writeInt(stringId++);
+                out.writeLong(material.getCostPerGramMicros());
+                out.writeDouble(material.getTotalVolume());
+                out.writeDouble(material.getDensity());
+                out.writeDouble(material.getInfillDensity());
+                out.writeDouble(material.getShellThickness());
+            }
+            for (Project project : written) {
+                out.writeInt(stringId++);
+                out.writeInt(materialIndex.get(project.getMaterialType().getName()));
+                out.writeDouble(project.getDesignTime());
+                out.writeDouble(project.getPrintTime());
+                out.writeDouble(project.getMaterialUsed());
+                out.writeLong(project.getHourlyRateMicros());
+                out.writeLong(project.getPrintRateMicros());
+                out.writeLong(project.getTotalCostMicros());
+            }
+            for (int slot : index) {
+                out.writeInt(slot);
+            }
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Gets the materials stored in the snapshot
+     * @return Array of materials, in record order
+     */
+    public Material[] getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Gets the number of project records
+     * @return Number of projects
+     */
+    public int getProjectCount() {
+        return projectCount;
+    }
+
+    /**
+     * Finds a project record by name using the hash index
+     * @param projectName Name of the project
+     * @return Record number, or -1 if the project is not in the snapshot
+     */
+    public int findProject(String projectName) {
+        if (projectCount == 0) {
+            return -1;
+        }
+        byte[] key = projectName.getBytes(StandardCharsets.UTF_8);
+        int slot = slotFor(projectName, indexSlots);
+        while (true) {
+            int entry = buffer.getInt(indexOffset + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int record = entry - 1;
+            if (stringEquals(buffer.getInt(projectsOffset + record * PROJECT_RECORD_SIZE), key)) {
+                return record;
+            }
+            slot = (slot + 1) & (indexSlots - 1);
+        }
+    }
+
+    /**
+     * Decodes a project record
+     * @param record Record number
+     * @return Project object, using the snapshot's Material objects
+     */
+    public Project readProject(int record) {
+        int position = projectsOffset + record * PROJECT_RECORD_SIZE;
+        Material material = materials[buffer.getInt(position + 4)];
+        return Project.ofRates(readString(buffer.getInt(position)),
+                               buffer.getDouble(position + 8),
+                               buffer.getDouble(position + 16),
+                               buffer.getDouble(position + 24),
+                               material,
+                               readMoney(position + 32),
+                               readMoney(position + 40));
+    }
+
+    /**
+     * Reads a Money field, converting it if the file stores money as doubles
+     * @param position Position of the field
+     * @return Amount in Money micro-cents
+     */
+    private long readMoney(int position) {
+        return doubleMoney ? Money.of(buffer.getDouble(position)) : buffer.getLong(position);
+    }
+
+    /**
+     * Decodes a string from the string table
+     * @param id String number
+     * @return Decoded string
+     */
+    private String readString(int id) {
+        int start = buffer.getInt(stringOffsetsOffset + id * 4);
+        int end = buffer.getInt(stringOffsetsOffset + id * 4 + 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(stringDataOffset + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares a string in the string table with encoded bytes without decoding it
+     * @param id String number
+     * @param key UTF-8 bytes to compare with
+     * @return true if the strings are equal
+     */
+    private boolean stringEquals(int id, byte[] key) {
+        int start = buffer.getInt(stringOffsetsOffset + id * 4);
+        int end = buffer.getInt(stringOffsetsOffset + id * 4 + 4);
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(stringDataOffset + start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the starting hash index slot for a project name
+     * @param projectName Name of the project
+     * @param slots Number of slots (a power of two)
+     * @return Slot number
+     */
+    private static int slotFor(String projectName, int slots) {
+        int hash = projectName.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (slots - 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,567 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentProjectDB Class
+ * Thread-safe version of ProjectDB that can be shared between threads.
+ * Reads go straight to concurrent maps without locking. Changes take a lock
+ * chosen by record name (one of a fixed set of striped locks), so compound
+ * operations are atomic while changes to unrelated records run in parallel.
+ * Each material also has a striped read/write lock: adding or updating a
+ * project holds the read lock for its material while the project is priced
+ * and indexed, and changing or deleting the material holds the write lock,
+ * so a project is never stored with a cost from before a price change.
+ * Uses the same file formats as ProjectDB.
+ *
+ * With a FilamentInventory attached, adding a project reserves its material,
+ * completing it uses the material up and deleting it gives the material back.
+ * Reservations are lock-free, so orders for different projects only meet on
+ * the material counters.
+ */
+public class ConcurrentProjectDB {
+    // Number of striped locks (a power of two)
+    private static final int STRIPES = 64;
+
+    // Attributes
+    private final ConcurrentHashMap<String, Project> projects;          // Projects (key: project name)
+    private final ConcurrentHashMap<String, Material> materials;        // Materials (key: material name)
+    private final ConcurrentHashMap<String, Set<Project>> projectsByMaterial; // Projects using each material
+    private final ReentrantLock[] stripes;                              // Locks guarding changes by name
+    private final ReentrantReadWriteLock[] priceLocks;                  // Locks guarding material prices by name
+    private final String projectDatabaseFile;                           // Path to projects database file
+    private final String materialDatabaseFile;                          // Path to materials database file
+    private final boolean forceWrites;                                  // Force saved files to disk
+    private final Object projectSaveLock = new Object();                // One projects file writer at a time
+    private final Object materialSaveLock = new Object();               // One materials file writer at a time
+    private final AtomicLong projectVersion = new AtomicLong();         // Count of project changes
+    private final AtomicLong materialVersion = new AtomicLong();        // Count of material changes
+    private long savedProjectVersion;                                   // Project changes already saved
+    private long savedMaterialVersion;                                  // Material changes already saved
+    private volatile FilamentInventory inventory;                       // Filament stock (null if not tracked)
+
+    /**
+     * Constructor - Loads the database files into concurrent maps
+     * @param projectDatabaseFile Path to projects database file
+     * @param materialDatabaseFile Path to materials database file
+     */
+    public ConcurrentProjectDB(String projectDatabaseFile, String materialDatabaseFile) {
+        this(projectDatabaseFile, materialDatabaseFile, new DatabaseOptions());
+    }
+
+    /**
+     * Constructor - Loads the database files into concurrent maps with storage options
+     * Only the sync policy applies; every change rewrites the text files, so
+     * ON_CHECKPOINT and EVERY_WRITE both force each save to disk.
+     * @param projectDatabaseFile Path to projects database file
+     * @param materialDatabaseFile Path to materials database file
+     * @param options Storage settings
+     */
+    public ConcurrentProjectDB(String projectDatabaseFile, String materialDatabaseFile, DatabaseOptions options) {
+        this.projects = new ConcurrentHashMap<>();
+        this.materials = new ConcurrentHashMap<>();
+        this.projectsByMaterial = new ConcurrentHashMap<>();
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.priceLocks = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            priceLocks[i] = new ReentrantReadWriteLock();
+        }
+        this.projectDatabaseFile = projectDatabaseFile;
+        this.materialDatabaseFile = materialDatabaseFile;
+        this.forceWrites = options.getSyncPolicy() != DatabaseOptions.SyncPolicy.NONE;
+
+        // Load existing data using the single-threaded database
+        ProjectDB loader = new ProjectDB(projectDatabaseFile, materialDatabaseFile);
+        materials.putAll(loader.getAllMaterials());
+        for (Project project : loader.getAllProjects().values()) {
+            projects.put(project.getProjectName(), project);
+            index(project);
+        }
+    }
+
+    /**
+     * Default constructor - uses default file names
+     */
+    public ConcurrentProjectDB() {
+        this("projects.db", "materials.db");
+    }
+
+    /**
+     * Attaches a filament inventory and tracks every material in it
+     * Projects already in the database are taken as done; only projects added
+     * from now on reserve material.
+     * @param inventory Inventory to keep up to date
+     */
+    public void setInventory(FilamentInventory inventory) {
+        for (Material material : materials.values()) {
+            inventory.track(material);
+        }
+        this.inventory = inventory;
+        inventory.save();
+    }
+
+    /**
+     * Gets the attached filament inventory
+     * @return Inventory, or null if none is attached
+     */
+    public FilamentInventory getInventory() {
+        return inventory;
+    }
+
+    // ==================== LOCKING ====================
+
+    /**
+     * Gets the stripe number for a record name
+     * @param name Project or material name
+     * @return Index of the lock guarding that name
+     */
+    private static int stripeFor(String name) {
+        int hash = name.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (STRIPES - 1);
+    }
+
+    /**
+     * Gets the striped lock for a record name
+     * @param name Project or material name
+     * @return Lock guarding that name
+     */
+    private ReentrantLock lockFor(String name) {
+        return stripes[stripeFor(name)];
+    }
+
+    /**
+     * Gets the striped price lock for a material name
+     * Price locks are always taken before project locks.
+     * @param materialName Material name
+     * @return Read/write lock guarding that material's price
+     */
+    private ReentrantReadWriteLock priceLockFor(String materialName) {
+        return priceLocks[stripeFor(materialName)];
+    }
+
+    // ==================== MATERIAL OPERATIONS ====================
+
+    /**
+     * Adds a new material to the database
+     * @param material Material object to add
+     * @return true if successful, false if material already exists
+     * @throws IllegalArgumentException if the name cannot be stored
+     */
+    public boolean addMaterial(Material material) {
+        RecordCodec.checkName("Material", material.getName());
+        if (materials.putIfAbsent(material.getName(), material) != null) {
+            return false; // Material already exists
+        }
+        FilamentInventory current = inventory;
+        if (current != null) {
+            current.track(material);
+        }
+        materialVersion.incrementAndGet();
+        saveMaterials();
+        saveInventory();
+        return true;
+    }
+
+    /**
+     * Retrieves a material from the database by name
+     * @param materialName Name of the material
+     * @return Material object or null if not found
+     */
+    public Material getMaterial(String materialName) {
+        return materials.get(materialName);
+    }
+
+    /**
+     * Deletes a material from the database
+     * @param materialName Name of material to delete
+     * @return true if successful, false if material doesn't exist
+     */
+    public boolean deleteMaterial(String materialName) {
+        Lock lock = priceLockFor(materialName).writeLock();
+        lock.lock();
+        try {
+            if (materials.remove(materialName) == null) {
+                return false;
+            }
+            materialVersion.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        saveMaterials();
+        return true;
+    }
+
+    /**
+     * Updates an existing material's cost information and reprices the projects using it
+     * @param materialName Name of material to update
+     * @param newTotalCost New total cost paid
+     * @param newTotalVolume New total volume purchased
+     * @return true if successful, false if material doesn't exist
+     */
+    public boolean updateMaterial(String materialName, double newTotalCost, double newTotalVolume) {
+        boolean repriced;
+        Lock lock = priceLockFor(materialName).writeLock();
+        lock.lock();
+        try {
+            Material material = materials.get(materialName);
+            if (material == null) {
+                return false;
+            }
+            material.updateCost(newTotalCost, newTotalVolume);
+            materialVersion.incrementAndGet();
+            repriced = repriceProjects(material);
+        } finally {
+            lock.unlock();
+        }
+        saveMaterials();
+        if (repriced) {
+            saveProjects();
+        }
+        return true;
+    }
+
+    /**
+     * Recalculates the cost of every project that uses a material
+     * @param material Material whose cost changed
+     * @return true if any project was recalculated
+     */
+    private boolean repriceProjects(Material material) {
+        Set<Project> affected = projectsByMaterial.get(material.getName());
+        if (affected == null || affected.isEmpty()) {
+            return false;
+        }
+        for (Project project : affected) {
+            if (project.getMaterialType() != material) {
+                project.setMaterialType(material);
+            } else {
+                project.calculateCostMicros();
+            }
+        }
+        projectVersion.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Prices a project with the stored copy of its material before it is published
+     * The caller holds the read lock for the material, so the price cannot change
+     * again until the project is indexed and will be repriced with the rest.
+     * @param project Project about to be stored
+     */
+    private void refreshCost(Project project) {
+        Material current = materials.get(project.getMaterialType().getName());
+        if (current != null && current != project.getMaterialType()) {
+            project.setMaterialType(current);
+        } else {
+            project.calculateCostMicros();
+        }
+    }
+
+    /**
+     * Gets all materials in the database
+     * @return Map of all materials
+     */
+    public Map<String, Material> getAllMaterials() {
+        return new HashMap<>(materials);
+    }
+
+    /**
+     * Lists all materials with their information
+     * @return Formatted string of all materials
+     */
+    public String listMaterials() {
+        if (materials.isEmpty()) {
+            return "No materials in database.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== MATERIALS DATABASE ===\n");
+        for (Material material : materials.values()) {
+            sb.append(material.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // ==================== PROJECT OPERATIONS ====================
+
+    /**
+     * Adds a new project to the database, reserving its material if an inventory is attached
+     * @param project Project object to save
+     * @return true if successful, false if project already exists
+     * @throws FilamentInventory.OutOfStockException if there is not enough of its material
+     * @throws IllegalArgumentException if the name cannot be stored
+     */
+    public boolean addProject(Project project) {
+        RecordCodec.checkName("Project", project.getProjectName());
+        Lock priceLock = priceLockFor(project.getMaterialType().getName()).readLock();
+        ReentrantLock lock = lockFor(project.getProjectName());
+        priceLock.lock();
+        lock.lock();
+        try {
+            if (projects.containsKey(project.getProjectName())) {
+                return false; // Project already exists
+            }
+            FilamentInventory current = inventory;
+            if (current != null && !current.reserve(project)) {
+                throw new FilamentInventory.OutOfStockException(project,
+                        current.getAvailableGrams(project.getMaterialType().getName()));
+            }
+            refreshCost(project);
+            projects.put(project.getProjectName(), project);
+            index(project);
+            projectVersion.incrementAndGet();
+        } finally {
+            lock.unlock();
+            priceLock.unlock();
+        }
+        saveProjects();
+        saveInventory();
+        return true;
+    }
+
+    /**
+     * Retrieves a project from the database by name
+     * @param projectName Name of the project
+     * @return Project object or null if not found
+     */
+    public Project getProject(String projectName) {
+        return projects.get(projectName);
+    }
+
+    /**
+     * Marks a project as printed, using up the material it reserved
+     * The project stays in the database.
+     * @param projectName Name of the project
+     * @return true if the project had material reserved
+     */
+    public boolean completeProject(String projectName) {
+        FilamentInventory current = inventory;
+        if (current == null) {
+            return false;
+        }
+        boolean consumed;
+        ReentrantLock lock = lockFor(projectName);
+        lock.lock();
+        try {
+            consumed = projects.containsKey(projectName) && current.consume(projectName);
+        } finally {
+            lock.unlock();
+        }
+        saveInventory();
+        return consumed;
+    }
+
+    /**
+     * Deletes a project from the database, giving back any material it reserved
+     * @param projectName Name of project to delete
+     * @return true if successful, false if project doesn't exist
+     */
+    public boolean deleteProject(String projectName) {
+        ReentrantLock lock = lockFor(projectName);
+        lock.lock();
+        try {
+            Project removed = projects.remove(projectName);
+            if (removed == null) {
+                return false;
+            }
+            unindex(removed);
+            FilamentInventory current = inventory;
+            if (current != null) {
+                current.release(projectName);
+            }
+            projectVersion.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        saveProjects();
+        saveInventory();
+        return true;
+    }
+
+    /**
+     * Updates an existing project with new information.
+     * Both the old and the new name are locked, so the replacement is atomic with
+     * respect to other changes. The new record is published before the old one is
+     * removed, so readers never find neither. An open material reservation
+     * moves to the new record, and the read lock for the new record's material
+     * is held so its price cannot change underneath it.
+     * @param projectName Name of project to update
+     * @param updatedProject Updated Project object
+     * @return true if successful, false if project doesn't exist
+     * @throws FilamentInventory.OutOfStockException if there is not enough of its material
+     * @throws IllegalArgumentException if the new name cannot be stored
+     */
+    public boolean updateProject(String projectName, Project updatedProject) {
+        RecordCodec.checkName("Project", updatedProject.getProjectName());
+        // Always lock stripes in array order to avoid deadlock
+        int oldStripe = stripeFor(projectName);
+        int newStripe = stripeFor(updatedProject.getProjectName());
+        ReentrantLock first = stripes[Math.min(oldStripe, newStripe)];
+        ReentrantLock second = stripes[Math.max(oldStripe, newStripe)];
+        Lock priceLock = priceLockFor(updatedProject.getMaterialType().getName()).readLock();
+        priceLock.lock();
+        first.lock();
+        second.lock();
+        try {
+            Project old = projects.get(projectName);
+            if (old == null) {
+                return false;
+            }
+            FilamentInventory current = inventory;
+            if (current != null && !current.change(projectName, updatedProject)) {
+                throw new FilamentInventory.OutOfStockException(updatedProject,
+                        current.getAvailableGrams(updatedProject.getMaterialType().getName()));
+            }
+            refreshCost(updatedProject);
+            Project replaced = projects.put(updatedProject.getProjectName(), updatedProject);
+            if (replaced != null) {
+                unindex(replaced);
+            }
+            if (!projectName.equals(updatedProject.getProjectName())) {
+                projects.remove(projectName);
+                unindex(old);
+            }
+            index(updatedProject);
+            projectVersion.incrementAndGet();
+        } finally {
+            second.unlock();
+            first.unlock();
+            priceLock.unlock();
+        }
+        saveProjects();
+        saveInventory();
+        return true;
+    }
+
+    /**
+     * Gets all projects in the database
+     * @return Map of all projects
+     */
+    public Map<String, Project> getAllProjects() {
+        return new HashMap<>(projects);
+    }
+
+    /**
+     * Gets the projects that use a material
+     * @param materialName Name of the material
+     * @return List of projects using that material (empty if none)
+     */
+    public List<Project> getProjectsUsingMaterial(String materialName) {
+        Set<Project> using = projectsByMaterial.get(materialName);
+        return using == null ? new ArrayList<>() : new ArrayList<>(using);
+    }
+
+    /**
+     * Lists all projects with their basic information
+     * @return Formatted string of all projects
+     */
+    public String listProjects() {
+        if (projects.isEmpty()) {
+            return "No projects in database.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== PROJECTS DATABASE ===\n");
+        for (Project project : projects.values()) {
+            sb.append(project.toSimpleString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the number of projects in the database
+     * @return Number of projects
+     */
+    public int getProjectCount() {
+        return projects.size();
+    }
+
+    /**
+     * Gets the number of materials in the database
+     * @return Number of materials
+     */
+    public int getMaterialCount() {
+        return materials.size();
+    }
+
+    /**
+     * Adds a project to the material index
+     * @param project Project to add
+     */
+    private void index(Project project) {
+        projectsByMaterial.computeIfAbsent(project.getMaterialType().getName(),
+                                           name -> ConcurrentHashMap.newKeySet())
+                          .add(project);
+    }
+
+    /**
+     * Removes a project from the material index
+     * @param project Project to remove
+     */
+    private void unindex(Project project) {
+        Set<Project> using = projectsByMaterial.get(project.getMaterialType().getName());
+        if (using != null) {
+            using.remove(project);
+        }
+    }
+
+    // ==================== FILE PERSISTENCE OPERATIONS ====================
+    // Saving iterates the concurrent maps without locking them, so readers and
+    // writers are never blocked by a save. If several threads change records at
+    // once, one save covers all the changes made before it started.
+
+    /**
+     * Saves all materials to the database file, unless a newer save already covered them
+     */
+    private void saveMaterials() {
+        synchronized (materialSaveLock) {
+            long version = materialVersion.get();
+            if (version == savedMaterialVersion) {
+                return;
+            }
+            try {
+                AtomicFileWriter.writeLines(materialDatabaseFile, forceWrites,
+                        materials.values().stream().map(Material::toDatabaseString)::iterator);
+                savedMaterialVersion = version;
+            } catch (IOException e) {
+                System.err.println("Error saving materials: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Saves the attached inventory, if any
+     */
+    private void saveInventory() {
+        FilamentInventory current = inventory;
+        if (current != null) {
+            current.save();
+        }
+    }
+
+    /**
+     * Saves all projects to the database file, unless a newer save already covered them
+     */
+    private void saveProjects() {
+        synchronized (projectSaveLock) {
+            long version = projectVersion.get();
+            if (version == savedProjectVersion) {
+                return;
+            }
+            try {
+                AtomicFileWriter.writeLines(projectDatabaseFile, forceWrites,
+                        projects.values().stream().map(Project::toDatabaseString)::iterator);
+                savedProjectVersion = version;
+            } catch (IOException e) {
+                System.err.println("Error saving projects: " + e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
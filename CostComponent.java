@@ -0,0 +1,34 @@
+/**
+ * CostComponent Interface
+ * One part of a project's price, such as material, electricity or markup.
+ * A component does not price projects itself: when a CostPipeline is compiled
+ * for a material, each component adds its operations to a CostProgram, with
+ * every parameter already looked up. Pricing a project then only runs the program.
+ *
+ * Components are found with ServiceLoader; list implementations in
+ * META-INF/services/CostComponent. An implementation needs a public no-argument constructor.
+ */
+public interface CostComponent {
+    /**
+     * Gets the component name, used in listings
+     * @return Component name
+     */
+    String getName();
+
+    /**
+     * Gets the position of this component in the pipeline
+     * Components run in increasing order; percentage components such as markup
+     * apply to everything added before them.
+     * @return Order number
+     */
+    int getOrder();
+
+    /**
+     * Adds this component's operations to a program
+     * Adds nothing if the component does not apply with these parameters.
+     * @param parameters Cost parameters
+     * @param material Material the program is compiled for
+     * @param program Program being built
+     */
+    void compile(CostParameters parameters, Material material, CostProgram.Builder program);
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * CostParameters Class
+ * Named numeric settings used by cost components, such as the electricity
+ * price or a printer's power draw. A value can be overridden for one material.
+ * A separate CostParameters object is used for each printer.
+ *
+ * Properties file format:
+ *   electricity.pricePerKwh=0.15
+ *   material.TPU.failure.rate=0.10
+ */
+public class CostParameters {
+    // Prefix for per-material keys in a properties file
+    private static final String MATERIAL_PREFIX = "material.";
+
+    // Attributes
+    private Map<String, Double> values;                         // Values for every material
+    private Map<String, Map<String, Double>> materialValues;    // Overrides by material name
+
+    /**
+     * Constructor - Creates an empty parameter set (every component uses its defaults)
+     */
+    public CostParameters() {
+        this.values = new HashMap<>();
+        this.materialValues = new HashMap<>();
+    }
+
+    /**
+     * Copy constructor - Creates an independent copy, e.g. as the base for another printer
+     * @param other Parameters to copy
+     */
+    public CostParameters(CostParameters other) {
+        this();
+        values.putAll(other.values);
+        for (Map.Entry<String, Map<String, Double>> entry : other.materialValues.entrySet()) {
+            materialValues.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * Sets a value for every material
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return These parameters
+     */
+    public CostParameters set(String name, double value) {
+        values.put(name, value);
+        return this;
+    }
+
+    /**
+     * Sets a value for one material, overriding the value for every material
+     * @param materialName Material name
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return These parameters
+     */
+    public CostParameters setForMaterial(String materialName, String name, double value) {
+        materialValues.computeIfAbsent(materialName, key -> new HashMap<>()).put(name, value);
+        return this;
+    }
+
+    /**
+     * Gets a value, using the material's override if there is one
+     * @param name Parameter name
+     * @param materialName Material name
+     * @param defaultValue Value when the parameter is not set
+     * @return Parameter value
+     */
+    public double get(String name, String materialName, double defaultValue) {
+        Map<String, Double> overrides = materialValues.get(materialName);
+        if (overrides != null && overrides.containsKey(name)) {
+            return overrides.get(name);
+        }
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Loads parameters from a properties file
+     * Keys starting with "material.NAME." set a value for that material only.
+     * @param file Path to the properties file
+     * @return Loaded parameters
+     * @throws IOException if the file cannot be read
+     */
+    public static CostParameters load(String file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(file)) {
+            properties.load(reader);
+        }
+
+        CostParameters parameters = new CostParameters();
+        for (String key : properties.stringPropertyNames()) {
+            double value;
+            try {
+                value = Double.parseDouble(properties.getProperty(key).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number for " + key + " in " + file);
+            }
+            int separator = key.indexOf('.', MATERIAL_PREFIX.length());
+            if (key.startsWith(MATERIAL_PREFIX) && separator > MATERIAL_PREFIX.length()) {
+                parameters.setForMaterial(key.substring(MATERIAL_PREFIX.length(), separator),
+                                          key.substring(separator + 1), value);
+            } else {
+                parameters.set(key, value);
+            }
+        }
+        return parameters;
+    }
+}
\ No newline at end of file
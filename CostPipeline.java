@@ -0,0 +1,103 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CostPipeline Class
+ * Prices projects with an ordered list of cost components.
+ * The components are compiled once per material into a CostProgram, which is
+ * cached and reused until the material's cost changes, so repricing many
+ * projects only runs the compiled programs. Safe to share between threads.
+ */
+public class CostPipeline {
+    // Attributes
+    private final List<CostComponent> components;                  // Components in pipeline order
+    private final CostParameters parameters;                       // Parameters bound into programs
+    private final Map<Material, CostProgram> programs;             // Compiled programs by material
+
+    /**
+     * Constructor - Creates a pipeline from a set of components
+     * @param components Components (sorted into pipeline order)
+     * @param parameters Parameters bound into compiled programs (copied)
+     */
+    public CostPipeline(Collection<? extends CostComponent> components, CostParameters parameters) {
+        List<CostComponent> sorted = new ArrayList<>(components);
+        sorted.sort(Comparator.comparingInt(CostComponent::getOrder));
+        this.components = Collections.unmodifiableList(sorted);
+        this.parameters = new CostParameters(parameters);
+        this.programs = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a pipeline from every component found by ServiceLoader
+     * Uses the standard components if none are found (for example when
+     * META-INF/services is not on the class path).
+     * @param parameters Parameters bound into compiled programs
+     * @return Cost pipeline
+     */
+    public static CostPipeline load(CostParameters parameters) {
+        List<CostComponent> found = new ArrayList<>();
+        for (CostComponent component : ServiceLoader.load(CostComponent.class)) {
+            found.add(component);
+        }
+        if (found.isEmpty()) {
+            found.addAll(Arrays.asList(StandardCostComponents.all()));
+        }
+        return new CostPipeline(found, parameters);
+    }
+
+    /**
+     * Gets the compiled program for a material, compiling it if needed
+     * @param material Material to compile for
+     * @return Compiled program
+     */
+    public CostProgram compile(Material material) {
+        CostProgram program = programs.get(material);
+        if (program == null || program.getCostPerGram() != material.getCostPerGramMicros()) {
+            CostProgram.Builder builder = new CostProgram.Builder(material);
+            for (CostComponent component : components) {
+                component.compile(parameters, material, builder);
+            }
+            program = builder.build();
+            programs.put(material, program);
+        }
+        return program;
+    }
+
+    /**
+     * Prices a project
+     * @param project Project to price
+     * @return Price in Money micro-cents
+     */
+    public long price(Project project) {
+        return compile(project.getMaterialType()).evaluate(project);
+    }
+
+    /**
+     * Prices many projects
+     * Consecutive projects with the same material reuse the program without a lookup.
+     * @param projects Projects to price
+     * @return Prices in Money micro-cents, in the same order as the projects
+     */
+    public long[] priceAll(List<Project> projects) {
+        long[] prices = new long[projects.size()];
+        Material lastMaterial = null;
+        CostProgram program = null;
+        for (int i = 0; i < prices.length; i++) {
+            Project project = projects.get(i);
+            if (project.getMaterialType() != lastMaterial) {
+                lastMaterial = project.getMaterialType();
+                program = compile(lastMaterial);
+            }
+            prices[i] = program.evaluate(project);
+        }
+        return prices;
+    }
+
+    /**
+     * Gets the components in pipeline order
+     * @return Unmodifiable list of components
+     */
+    public List<CostComponent> getComponents() {
+        return components;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * CostProgram Class
+ * A project pricing formula compiled for one material.
+ * The formula is a flat list of operations held in primitive arrays, with all
+ * material and printer parameters already turned into constants, so pricing a
+ * project is one loop over the arrays with no per-component method calls.
+ * Every operation adds to a running total in Money micro-cents.
+ */
+public class CostProgram {
+    /**
+     * Per-project quantities an operation can multiply by
+     */
+    public enum Quantity {
+        DESIGN_HOURS,       // Project design time
+        PRINT_HOURS,        // Project print time
+        GRAMS               // Project material used
+    }
+
+    /**
+     * Per-project rates an operation can multiply by
+     */
+    public enum ProjectRate {
+        HOURLY_RATE,        // Project design rate
+        PRINT_RATE          // Project printer operation rate
+    }
+
+    // Operation codes
+    private static final int ADD_FIXED = 0;          // total += constant
+    private static final int ADD_RATE = 1;           // total += constant * quantity
+    private static final int ADD_PROJECT_RATE = 2;   // total += project rate * quantity
+    private static final int ADD_PERCENT = 3;        // total += total * constant / 1,000,000
+
+    // Attributes
+    private final int[] codes;           // Operation code of each step
+    private final int[] operands;        // Quantity ordinal of each step (ADD_RATE, ADD_PROJECT_RATE)
+    private final long[] constants;      // Constant of each step (amount, rate ordinal or parts per million)
+    private final long costPerGram;      // Material cost per gram the program was compiled with
+
+    /**
+     * Private constructor - use a Builder
+     * @param builder Builder holding the operations
+     */
+    private CostProgram(Builder builder) {
+        this.codes = Arrays.copyOf(builder.codes, builder.size);
+        this.operands = Arrays.copyOf(builder.operands, builder.size);
+        this.constants = Arrays.copyOf(builder.constants, builder.size);
+        this.costPerGram = builder.costPerGram;
+    }
+
+    /**
+     * Prices a project
+     * @param project Project to price (its material should be the one the program was compiled for)
+     * @return Price in Money micro-cents
+     */
+    public long evaluate(Project project) {
+        long total = 0;
+        for (int i = 0; i < codes.length; i++) {
+            switch (codes[i]) {
+                case ADD_FIXED:
+                    total += constants[i];
+                    break;
+                case ADD_RATE:
+                    total += Money.times(constants[i], quantity(project, operands[i]));
+                    break;
+                case ADD_PROJECT_RATE:
+                    total += Money.times(constants[i] == 0 ? project.getHourlyRateMicros()
+                                                           : project.getPrintRateMicros(),
+                                         quantity(project, operands[i]));
+                    break;
+                case ADD_PERCENT:
+                    total += Money.timesMillionths(total, constants[i]);
+                    break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reads a project quantity
+     * @param project Project to read
+     * @param quantity Quantity ordinal
+     * @return Quantity value
+     */
+    private static double quantity(Project project, int quantity) {
+        switch (quantity) {
+            case 0:
+                return project.getDesignTime();
+            case 1:
+                return project.getPrintTime();
+            default:
+                return project.getMaterialUsed();
+        }
+    }
+
+    /**
+     * Gets the number of operations
+     * @return Number of operations
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Gets the material cost per gram the program was compiled with
+     * @return Cost per gram in Money micro-cents
+     */
+    public long getCostPerGram() {
+        return costPerGram;
+    }
+
+    /**
+     * Builder - collects operations while components are compiled
+     * Consecutive constant rates on the same quantity are merged into one operation.
+     */
+    public static class Builder {
+        // Attributes
+        private int[] codes = new int[8];
+        private int[] operands = new int[8];
+        private long[] constants = new long[8];
+        private int size;
+        private long costPerGram;
+
+        /**
+         * Constructor - Creates a builder for a material
+         * @param material Material the program is compiled for
+         */
+        public Builder(Material material) {
+            this.costPerGram = material.getCostPerGramMicros();
+        }
+
+        /**
+         * Adds a fixed amount to every project
+         * @param amount Amount in Money micro-cents
+         * @return This builder
+         */
+        public Builder addFixed(long amount) {
+            if (size > 0 && codes[size - 1] == ADD_FIXED) {
+                constants[size - 1] += amount;
+                return this;
+            }
+            return add(ADD_FIXED, 0, amount);
+        }
+
+        /**
+         * Adds a constant rate times a project quantity
+         * @param quantity Quantity to multiply by
+         * @param rate Rate per unit in Money micro-cents
+         * @return This builder
+         */
+        public Builder addRate(Quantity quantity, long rate) {
+            if (size > 0 && codes[size - 1] == ADD_RATE && operands[size - 1] == quantity.ordinal()) {
+                constants[size - 1] += rate;
+                return this;
+            }
+            return add(ADD_RATE, quantity.ordinal(), rate);
+        }
+
+        /**
+         * Adds one of the project's own rates times a project quantity
+         * @param quantity Quantity to multiply by
+         * @param rate Project rate to use
+         * @return This builder
+         */
+        public Builder addProjectRate(Quantity quantity, ProjectRate rate) {
+            return add(ADD_PROJECT_RATE, quantity.ordinal(), rate.ordinal());
+        }
+
+        /**
+         * Adds a fraction of everything added so far
+         * @param fraction Fraction to add (0.25 adds 25%)
+         * @return This builder
+         */
+        public Builder addPercent(double fraction) {
+            return add(ADD_PERCENT, 0, Money.quantity(fraction));
+        }
+
+        /**
+         * Appends an operation
+         * @param code Operation code
+         * @param operand Quantity ordinal
+         * @param constant Operation constant
+         * @return This builder
+         */
+        private Builder add(int code, int operand, long constant) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                operands = Arrays.copyOf(operands, size * 2);
+                constants = Arrays.copyOf(constants, size * 2);
+            }
+            codes[size] = code;
+            operands[size] = operand;
+            constants[size] = constant;
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the program
+         * @return Compiled program
+         */
+        public CostProgram build() {
+            return new CostProgram(this);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * DatabaseLookup Class
+ * Finds single records in the database files without loading the database.
+ * Files are streamed line by line and only the matching record is decoded,
+ * then any changes to it in the write-ahead log are applied, so the result is
+ * the same as ProjectDB would return. Nothing is ever written.
+ */
+public class DatabaseLookup {
+    // Attributes
+    private String projectDatabaseFile;      // Path to projects database file
+    private String materialDatabaseFile;     // Path to materials database file
+    private RecordCodec codec;               // Reused to split records
+
+    /**
+     * Constructor - Creates a lookup over the given database files
+     * @param projectDatabaseFile Path to projects database file
+     * @param materialDatabaseFile Path to materials database file
+     */
+    public DatabaseLookup(String projectDatabaseFile, String materialDatabaseFile) {
+        this.projectDatabaseFile = projectDatabaseFile;
+        this.materialDatabaseFile = materialDatabaseFile;
+        this.codec = new RecordCodec();
+    }
+
+    /**
+     * Default constructor - uses default file names
+     */
+    public DatabaseLookup() {
+        this("projects.db", "materials.db");
+    }
+
+    /**
+     * Finds a material by name
+     * Reads the materials file, plus material records in the write-ahead log.
+     * @param materialName Name of the material
+     * @return Material object or null if not found
+     */
+    public Material findMaterial(String materialName) {
+        String line = findLine(materialDatabaseFile, materialName);
+        Material[] found = { line == null ? null : Material.fromRecord(codec.reset(line)) };
+
+        new WriteAheadLog(projectDatabaseFile + ".log").replay((type, payload) -> {
+            switch (type) {
+                case WriteAheadLog.ADD_MATERIAL:
+                    if (found[0] == null && codec.reset(payload).fieldEquals(0, materialName)) {
+                        found[0] = Material.fromRecord(codec);
+                    }
+                    break;
+                case WriteAheadLog.UPDATE_MATERIAL:
+                    if (found[0] != null && codec.reset(payload).fieldEquals(0, materialName)) {
+                        if (codec.fieldCount() != 3) {
+                            throw new IllegalArgumentException("Invalid log record format");
+                        }
+                        found[0].updateCost(codec.getDouble(1), codec.getDouble(2));
+                    }
+                    break;
+                case WriteAheadLog.DELETE_MATERIAL:
+                    if (payload.equals(materialName)) {
+                        found[0] = null;
+                    }
+                    break;
+                default:
+                    break; // Project records do not affect materials
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Finds a project by name
+     * Reads the projects file up to the matching record, the project records in
+     * the write-ahead log, and the project's material.
+     * @param projectName Name of the project
+     * @return Project object or null if not found (or its material no longer exists)
+     */
+    public Project findProject(String projectName) {
+        String[] found = { findLine(projectDatabaseFile, projectName) };
+
+        new WriteAheadLog(projectDatabaseFile + ".log").replay((type, payload) -> {
+            switch (type) {
+                case WriteAheadLog.ADD_PROJECT:
+                    if (codec.reset(payload).fieldEquals(0, projectName)) {
+                        found[0] = payload;
+                    }
+                    break;
+                case WriteAheadLog.UPDATE_PROJECT: {
+                    int separator = payload.indexOf('|');
+                    if (separator < 0) {
+                        throw new IllegalArgumentException("Invalid log record format");
+                    }
+                    String record = payload.substring(separator + 1);
+                    if (codec.reset(record).fieldEquals(0, projectName)) {
+                        found[0] = record;
+                    } else if (payload.substring(0, separator).equals(projectName)) {
+                        found[0] = null;
+                    }
+                    break;
+                }
+                case WriteAheadLog.DELETE_PROJECT:
+                    if (payload.equals(projectName)) {
+                        found[0] = null;
+                    }
+                    break;
+                default:
+                    break; // Material records are applied when the material is looked up
+            }
+        });
+        if (found[0] == null) {
+            return null;
+        }
+
+        // The material lookup reuses the codec, so take the name first
+        String materialName = codec.reset(found[0]).getString(4);
+        Material material = findMaterial(materialName);
+        if (material == null) {
+            return null;
+        }
+        return Project.fromRecord(codec.reset(found[0]), material);
+    }
+
+    /**
+     * Streams a database file until it finds the record with the given name
+     * @param file Path to the database file
+     * @param name Name in the first field of the wanted record
+     * @return The matching line, or null if there is none
+     */
+    private String findLine(String file, String name) {
+        if (!new File(file).exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The name is the first field, so the line starts with "name|"
+                if (line.startsWith(name) && line.length() > name.length()
+                        && line.charAt(name.length()) == '|') {
+                    return line;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + file + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+/**
+ * DatabaseOptions Class
+ * Holds the optional storage settings used by ProjectDB (and the sync
+ * policy used by ConcurrentProjectDB).
+ * The default options keep the original behavior of rewriting the
+ * database files after every change.
+ */
+public class DatabaseOptions {
+    /**
+     * When written data is forced to disk
+     */
+    public enum SyncPolicy {
+        NONE,               // Leave it to the operating system
+        ON_CHECKPOINT,      // Force database files when they are rewritten
+        EVERY_WRITE         // Also force every write-ahead log write
+    }
+
+    // Attributes
+    private boolean writeAheadLog;       // Append each change to a log instead of rewriting files
+    private int checkpointInterval;      // Log records written before the log is folded into the files
+    private boolean binarySnapshot;      // Store data in a memory-mapped binary snapshot file
+    private boolean parallelLoad;        // Parse the projects file on several threads
+    private FlushPolicy flushPolicy;     // Background log writer policy (null for synchronous writes)
+    private SyncPolicy syncPolicy;       // When written data is forced to disk
+
+    /**
+     * Constructor - Creates options with the default settings
+     */
+    public DatabaseOptions() {
+        this.writeAheadLog = false;
+        this.checkpointInterval = 1000;
+        this.binarySnapshot = false;
+        this.parallelLoad = false;
+        this.flushPolicy = null;
+        this.syncPolicy = SyncPolicy.NONE;
+    }
+
+    /**
+     * Checks whether the write-ahead log is enabled
+     * @return true if mutations are appended to the log
+     */
+    public boolean isWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    /**
+     * Enables or disables the write-ahead log
+     * @param writeAheadLog true to append mutations to the log
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setWriteAheadLog(boolean writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+        return this;
+    }
+
+    /**
+     * Gets the number of log records between automatic checkpoints
+     * @return Checkpoint interval in log records
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Sets the number of log records between automatic checkpoints
+     * @param checkpointInterval Checkpoint interval in log records
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be greater than 0");
+        }
+        this.checkpointInterval = checkpointInterval;
+        return this;
+    }
+
+    /**
+     * Checks whether the binary snapshot format is enabled
+     * @return true if data is stored in the binary snapshot file
+     */
+    public boolean isBinarySnapshot() {
+        return binarySnapshot;
+    }
+
+    /**
+     * Enables or disables the binary snapshot format
+     * @param binarySnapshot true to store data in the binary snapshot file
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setBinarySnapshot(boolean binarySnapshot) {
+        this.binarySnapshot = binarySnapshot;
+        return this;
+    }
+
+    /**
+     * Checks whether the projects file is loaded in parallel
+     * @return true if the projects file is parsed on several threads
+     */
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+
+    /**
+     * Enables or disables parallel loading of the projects file
+     * @param parallelLoad true to parse the projects file on several threads
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setParallelLoad(boolean parallelLoad) {
+        this.parallelLoad = parallelLoad;
+        return this;
+    }
+
+    /**
+     * Gets the flush policy of the background log writer
+     * @return Flush policy, or null if changes are written synchronously
+     */
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * Enables asynchronous group commit with the given flush policy.
+     * Changes are queued for a background thread that writes them to the
+     * write-ahead log in groups; this turns on the write-ahead log.
+     * @param flushPolicy When queued changes are written, or null for synchronous writes
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+        return this;
+    }
+
+    /**
+     * Gets the disk sync policy
+     * @return When written data is forced to disk
+     */
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Sets the disk sync policy.
+     * Database files are always replaced by writing a temporary file and renaming
+     * it; the policy decides whether that data is also forced to disk. Without the
+     * write-ahead log every change rewrites the files, so ON_CHECKPOINT and
+     * EVERY_WRITE behave the same.
+     * @param syncPolicy When written data is forced to disk
+     * @return These options, for chaining
+     */
+    public DatabaseOptions setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        return this;
+    }
+}
\ No newline at end of file
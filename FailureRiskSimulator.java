@@ -0,0 +1,403 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * FailureRiskSimulator Class
+ * Monte Carlo estimate of what a project really costs when prints can fail.
+ * Each attempt can fail for two reasons:
+ *   failure.rate         chance that a print in this material fails, at a random point
+ *   failure.hourlyRate   chance of failing in each hour of printing (long prints fail more)
+ * Both can be set per material through CostParameters. A failed attempt wastes
+ * the print time and material used up to the failure, and the print is started
+ * again until it succeeds. Design work is paid once.
+ *
+ * Trials run on SplittableRandom streams split from one seed per project, in
+ * parallel on the common fork-join pool. The streams are split in a fixed order,
+ * so an estimate does not depend on the number of threads, and a project gets the
+ * same estimate as a single quote or as part of the whole database.
+ */
+public class FailureRiskSimulator {
+    // Parameter name for the per-hour failure chance (the per-print chance is StandardCostComponents.FAILURE_RATE)
+    public static final String HOURLY_FAILURE_RATE = "failure.hourlyRate";
+
+    // Default number of trials per project
+    public static final int DEFAULT_TRIALS = 100_000;
+
+    // Default seed, so repeated quotes give the same estimate
+    public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    // Trials run by one fork-join task
+    private static final int CHUNK_TRIALS = 1 << 16;
+
+    // Attempts must succeed at least this often, or a trial could run for a very long time
+    private static final double MIN_SUCCESS_PROBABILITY = 0.001;
+
+    // Attributes
+    private final CostParameters parameters;    // Failure rates (per material overrides allowed)
+    private final int trials;                   // Trials per project
+    private final long seed;                    // Seed the random streams are derived from
+
+    /**
+     * Constructor - Creates a simulator with the default trial count and seed
+     * @param parameters Failure rates
+     */
+    public FailureRiskSimulator(CostParameters parameters) {
+        this(parameters, DEFAULT_TRIALS, DEFAULT_SEED);
+    }
+
+    /**
+     * Constructor - Creates a simulator
+     * @param parameters Failure rates (copied)
+     * @param trials Trials per project
+     * @param seed Seed the random streams are derived from
+     */
+    public FailureRiskSimulator(CostParameters parameters, int trials, long seed) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Trials must be positive");
+        }
+        this.parameters = new CostParameters(parameters);
+        this.trials = trials;
+        this.seed = seed;
+    }
+
+    /**
+     * Estimates the cost of one project, running its trials in parallel
+     * @param project Project to estimate (not modified)
+     * @return Cost estimate
+     */
+    public Estimate estimate(Project project) {
+        Model model = new Model(project, parameters);
+        SplittableRandom[] streams = streams(project);
+        List<ForkJoinTask<Tally>> tasks = new ArrayList<>();
+        for (int chunk = 0; chunk < streams.length; chunk++) {
+            SplittableRandom random = streams[chunk];
+            int count = chunkTrials(chunk);
+            tasks.add(ForkJoinTask.adapt(() -> model.run(random, count)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        Tally total = new Tally(0);
+        for (ForkJoinTask<Tally> task : tasks) {
+            total.add(task.join());
+        }
+        return new Estimate(project, model, total);
+    }
+
+    /**
+     * Estimates the cost of every project, running projects in parallel
+     * @param projects Projects to estimate (not modified)
+     * @return Cost estimates, in the same order as the projects
+     */
+    public List<Estimate> estimateAll(Collection<Project> projects) {
+        Project[] array = projects.toArray(new Project[0]);
+        Estimate[] estimates = new Estimate[array.length];
+        // Parallel streams run on the common fork-join pool
+        IntStream.range(0, array.length).parallel().forEach(i -> estimates[i] = estimateSequential(array[i]));
+        return Arrays.asList(estimates);
+    }
+
+    /**
+     * Estimates the cost of one project on the current thread
+     * Uses the same streams as estimate(), so the result is identical.
+     * @param project Project to estimate
+     * @return Cost estimate
+     */
+    private Estimate estimateSequential(Project project) {
+        Model model = new Model(project, parameters);
+        SplittableRandom[] streams = streams(project);
+        Tally total = new Tally(0);
+        for (int chunk = 0; chunk < streams.length; chunk++) {
+            total.add(model.run(streams[chunk], chunkTrials(chunk)));
+        }
+        return new Estimate(project, model, total);
+    }
+
+    /**
+     * Splits the random streams for a project's trial chunks
+     * @param project Project being estimated
+     * @return One stream per chunk
+     */
+    private SplittableRandom[] streams(Project project) {
+        SplittableRandom root = new SplittableRandom(seed ^ (project.getProjectName().hashCode() * 0x9E3779B97F4A7C15L));
+        SplittableRandom[] streams = new SplittableRandom[(trials + CHUNK_TRIALS - 1) / CHUNK_TRIALS];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = root.split();
+        }
+        return streams;
+    }
+
+    /**
+     * Gets the number of trials in a chunk
+     * @param chunk Chunk number
+     * @return Trials in that chunk (the last chunk may be short)
+     */
+    private int chunkTrials(int chunk) {
+        return Math.min(CHUNK_TRIALS, trials - chunk * CHUNK_TRIALS);
+    }
+
+    /**
+     * Model - failure behaviour of one project's print attempts
+     * Also used by FarmSimulator to fail prints on its virtual printers.
+     */
+    static class Model {
+        private final double printFailure;      // Chance of a failure at a random point of the print
+        private final double hourlyFailure;     // Chance of a failure over the print time
+        private final double hazard;            // Hourly failure rate as a continuous rate per hour
+        private final double printTime;         // Hours per attempt
+        private final double successProbability; // Chance that one attempt succeeds
+
+        /**
+         * Constructor - Works out the failure model of a project
+         * @param project Project to model
+         * @param parameters Failure rates
+         */
+        Model(Project project, CostParameters parameters) {
+            String materialName = project.getMaterialType().getName();
+            double perPrint = parameters.get(StandardCostComponents.FAILURE_RATE, materialName, 0);
+            double perHour = parameters.get(HOURLY_FAILURE_RATE, materialName, 0);
+            if (!(perPrint >= 0 && perPrint < 1) || !(perHour >= 0 && perHour < 1)) {
+                throw new IllegalArgumentException("Failure rates must be at least 0 and less than 1");
+            }
+            this.printTime = project.getPrintTime();
+            this.printFailure = perPrint;
+            this.hazard = -Math.log1p(-perHour);
+            this.hourlyFailure = -Math.expm1(-hazard * printTime);
+            this.successProbability = (1 - printFailure) * (1 - hourlyFailure);
+            if (successProbability < MIN_SUCCESS_PROBABILITY) {
+                throw new IllegalArgumentException("Project " + project.getProjectName()
+                        + " would almost never print successfully");
+            }
+        }
+
+        /**
+         * Runs a number of trials
+         * Each trial records the share of one print's time and material that failed attempts wasted.
+         * @param random Random stream for these trials
+         * @param count Number of trials
+         * @return Tally of the trials
+         */
+        Tally run(SplittableRandom random, int count) {
+            // Most trials succeed first time, so only wasted amounts above zero are kept
+            Tally tally = new Tally(Math.min(count, (int) (count * (1 - successProbability) * 2) + 16));
+            for (int i = 0; i < count; i++) {
+                double wasted = 0;
+                int attempts = 1;
+                while (true) {
+                    double failedAt = failurePoint(random);
+                    if (failedAt == Double.POSITIVE_INFINITY) {
+                        break;
+                    }
+                    wasted += failedAt;
+                    attempts++;
+                }
+                tally.add(wasted, attempts);
+            }
+            return tally;
+        }
+
+        /**
+         * Draws where one print attempt fails
+         * @param random Random stream
+         * @return Share of the print done when it fails, or positive infinity if it succeeds
+         */
+        double failurePoint(SplittableRandom random) {
+            // A failure in the first u of the attempts, where u is uniform, fails at
+            // point u / p of the print; an hourly failure is placed by the exponential
+            // distribution. Each cause needs only one random number.
+            double failedAt = Double.POSITIVE_INFINITY;
+            double u = random.nextDouble();
+            if (u < printFailure) {
+                failedAt = u / printFailure;
+            }
+            double v = random.nextDouble();
+            if (v < hourlyFailure) {
+                failedAt = Math.min(failedAt, -Math.log1p(-v) / hazard / printTime);
+            }
+            return failedAt;
+        }
+    }
+
+    /**
+     * Tally - running totals over a set of trials
+     */
+    private static class Tally {
+        private long trials;            // Number of trials
+        private long attempts;          // Attempts over all trials
+        private double wastedSum;       // Sum of wasted shares
+        private double wastedSquares;   // Sum of squared wasted shares
+        private double[] wasted;        // Wasted shares of the trials that had a failure
+        private int failedTrials;       // Number of entries in use in wasted
+
+        /**
+         * Constructor - Creates an empty tally
+         * @param capacity Expected number of trials with a failure
+         */
+        Tally(int capacity) {
+            this.wasted = new double[Math.max(capacity, 16)];
+        }
+
+        /**
+         * Adds one trial
+         * @param share Wasted share of a print
+         * @param trialAttempts Attempts in the trial
+         */
+        void add(double share, int trialAttempts) {
+            trials++;
+            attempts += trialAttempts;
+            if (share > 0) {
+                wastedSum += share;
+                wastedSquares += share * share;
+                if (failedTrials == wasted.length) {
+                    wasted = Arrays.copyOf(wasted, failedTrials * 2);
+                }
+                wasted[failedTrials++] = share;
+            }
+        }
+
+        /**
+         * Adds the trials of another tally
+         * @param other Tally to add
+         */
+        void add(Tally other) {
+            trials += other.trials;
+            attempts += other.attempts;
+            wastedSum += other.wastedSum;
+            wastedSquares += other.wastedSquares;
+            if (failedTrials + other.failedTrials > wasted.length) {
+                wasted = Arrays.copyOf(wasted, Math.max(wasted.length * 2, failedTrials + other.failedTrials));
+            }
+            System.arraycopy(other.wasted, 0, wasted, failedTrials, other.failedTrials);
+            failedTrials += other.failedTrials;
+        }
+
+        /**
+         * Finds a percentile of the wasted share
+         * @param percentile Percentile between 0 and 1
+         * @return Wasted share at that percentile (nearest rank)
+         */
+        double percentile(double percentile) {
+            long rank = (long) Math.ceil(percentile * trials);
+            long zeros = trials - failedTrials;
+            if (rank <= zeros) {
+                return 0;
+            }
+            double[] sorted = Arrays.copyOf(wasted, failedTrials);
+            Arrays.sort(sorted);
+            return sorted[(int) (rank - zeros - 1)];
+        }
+    }
+
+    /**
+     * Estimate - simulated cost of one project
+     */
+    public static class Estimate {
+        // Attributes
+        private final String projectName;           // Project estimated
+        private final double baseCost;              // Cost if nothing fails
+        private final double expectedCost;          // Mean simulated cost
+        private final double p95Cost;               // 95th percentile of simulated cost
+        private final double standardError;         // Standard error of the expected cost
+        private final double failureProbability;    // Chance that one attempt fails
+        private final double expectedAttempts;      // Mean attempts per project
+        private final long trials;                  // Number of trials
+
+        /**
+         * Constructor - Turns trial results into costs
+         * Cost is linear in the wasted share, so its percentiles are those of the share.
+         * @param project Project estimated
+         * @param model Failure model used
+         * @param tally Trial results
+         */
+        private Estimate(Project project, Model model, Tally tally) {
+            double attemptCost = Money.toDouble(Money.times(project.getPrintRateMicros(), project.getPrintTime())
+                    + Money.times(project.getMaterialType().getCostPerGramMicros(), project.getMaterialUsed()));
+            double mean = tally.wastedSum / tally.trials;
+            double variance = Math.max(0, tally.wastedSquares / tally.trials - mean * mean);
+
+            this.projectName = project.getProjectName();
+            this.baseCost = Money.toDouble(project.getTotalCostMicros());
+            this.expectedCost = baseCost + attemptCost * mean;
+            this.p95Cost = baseCost + attemptCost * tally.percentile(0.95);
+            this.standardError = attemptCost * Math.sqrt(variance / tally.trials);
+            this.failureProbability = 1 - model.successProbability;
+            this.expectedAttempts = (double) tally.attempts / tally.trials;
+            this.trials = tally.trials;
+        }
+
+        /**
+         * Gets the project name
+         * @return Project name
+         */
+        public String getProjectName() {
+            return projectName;
+        }
+
+        /**
+         * Gets the cost if nothing fails
+         * @return Project total cost
+         */
+        public double getBaseCost() {
+            return baseCost;
+        }
+
+        /**
+         * Gets the expected cost including reprints
+         * @return Mean simulated cost
+         */
+        public double getExpectedCost() {
+            return expectedCost;
+        }
+
+        /**
+         * Gets the cost that 95% of trials stayed at or below
+         * @return 95th percentile cost
+         */
+        public double getP95Cost() {
+            return p95Cost;
+        }
+
+        /**
+         * Gets the standard error of the expected cost
+         * @return Standard error
+         */
+        public double getStandardError() {
+            return standardError;
+        }
+
+        /**
+         * Gets the chance that one print attempt fails
+         * @return Failure probability per attempt
+         */
+        public double getFailureProbability() {
+            return failureProbability;
+        }
+
+        /**
+         * Gets the mean number of print attempts
+         * @return Expected attempts
+         */
+        public double getExpectedAttempts() {
+            return expectedAttempts;
+        }
+
+        /**
+         * Gets the number of trials run
+         * @return Number of trials
+         */
+        public long getTrials() {
+            return trials;
+        }
+
+        /**
+         * Returns a one-line summary of the estimate
+         * @return Estimate summary
+         */
+        @Override
+        public String toString() {
+            return String.format("%s: base $%.2f, expected $%.2f (+/- %.2f), P95 $%.2f, %.1f%% of attempts fail",
+                                 projectName, baseCost, expectedCost, standardError, p95Cost,
+                                 failureProbability * 100);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,1043 @@
+import java.util.*;
+
+/**
+ * FarmSimulator Class
+ * Discrete-event simulation of a print farm working through a stream of orders,
+ * to see how a fleet copes with the work before buying printers.
+ *
+ * Orders wait in one queue per material. A free printer takes the oldest order
+ * it can print, but keeps to its loaded material while the oldest order of that
+ * material is at most the swap defer time newer, because a spool change costs
+ * the material change time. Prints fail at the rates in CostParameters, the
+ * same model as FailureRiskSimulator, and a failed order goes back to the front
+ * of its queue.
+ *
+ * An operator must be present to start a print and to clear a finished or
+ * failed one. Operators work from the shift start to the shift end hour on the
+ * first work days of each week (day 0 is a work day), so prints run on
+ * overnight but a printer that finishes outside the shift waits for the next one.
+ *
+ * Events are kept in a heap of primitive arrays holding at most one event per
+ * printer plus the next arrival and the next shift change, and orders are kept
+ * in ring buffers, so the event loop allocates nothing per event. Arrivals and
+ * failures use separate random streams from one seed, so fleets compared with
+ * the same seed see the same orders.
+ *
+ * Times are hours from the start of the simulation.
+ */
+public class FarmSimulator {
+    // Default seed, so repeated runs give the same report
+    public static final long DEFAULT_SEED = 0x2545F4914F6CDD1DL;
+
+    // Default operator shift: 8:00 to 18:00, five days a week
+    public static final double DEFAULT_SHIFT_START = 8;
+    public static final double DEFAULT_SHIFT_END = 18;
+    public static final int DEFAULT_WORK_DAYS = 5;
+
+    // Default time an older order of another material may be passed over to avoid a spool change
+    public static final double DEFAULT_SWAP_DEFER_HOURS = 4;
+
+    // Printer states
+    private static final byte IDLE = 0;         // Free and empty
+    private static final byte BUSY = 1;         // Changing material or printing
+    private static final byte BLOCKED = 2;      // Finished or failed, waiting for an operator
+
+    // Attributes
+    private final Printer[] printers;                       // The fleet (not modified)
+    private final CostPipeline pricing;                     // Prices completed orders
+    private final CostParameters failureRates;              // Failure rates (per material overrides allowed)
+    private double materialChangeHours = FleetScheduler.DEFAULT_MATERIAL_CHANGE_HOURS;    // Time to swap spools
+    private double swapDeferHours = DEFAULT_SWAP_DEFER_HOURS;   // Age gap that still avoids a swap
+    private double shiftStart = DEFAULT_SHIFT_START;        // Hour of day operators arrive
+    private double shiftEnd = DEFAULT_SHIFT_END;            // Hour of day operators leave
+    private int workDays = DEFAULT_WORK_DAYS;               // Days a week with a shift
+    private long seed = DEFAULT_SEED;                       // Seed the random streams are derived from
+
+    /**
+     * Constructor - Creates a simulator for a fleet
+     * @param printers The fleet; loaded materials are where the simulation starts
+     * @param pricing Prices completed orders for the revenue
+     * @param failureRates Failure rates, as used by FailureRiskSimulator
+     */
+    public FarmSimulator(Collection<Printer> printers, CostPipeline pricing, CostParameters failureRates) {
+        if (printers.isEmpty()) {
+            throw new IllegalArgumentException("At least one printer is needed");
+        }
+        this.printers = printers.toArray(new Printer[0]);
+        this.pricing = pricing;
+        this.failureRates = new CostParameters(failureRates);
+    }
+
+    /**
+     * Sets the time to swap spools
+     * @param materialChangeHours Hours per material change
+     */
+    public void setMaterialChangeHours(double materialChangeHours) {
+        if (!(materialChangeHours >= 0) || Double.isInfinite(materialChangeHours)) {
+            throw new IllegalArgumentException("Material change time must be a positive number");
+        }
+        this.materialChangeHours = materialChangeHours;
+    }
+
+    /**
+     * Sets how much newer an order of the loaded material may be than the oldest
+     * order and still be printed first, saving a spool change
+     * @param swapDeferHours Hours (0 to always take the oldest order)
+     */
+    public void setSwapDeferHours(double swapDeferHours) {
+        if (!(swapDeferHours >= 0)) {
+            throw new IllegalArgumentException("Swap defer time must be a positive number");
+        }
+        this.swapDeferHours = swapDeferHours;
+    }
+
+    /**
+     * Sets when operators are present
+     * @param shiftStart Hour of day the shift starts
+     * @param shiftEnd Hour of day the shift ends (after the start, 24 at most)
+     * @param workDays Days a week with a shift (0 to 24 and 7 means always staffed)
+     */
+    public void setShift(double shiftStart, double shiftEnd, int workDays) {
+        if (!(shiftStart >= 0 && shiftStart < shiftEnd && shiftEnd <= 24)) {
+            throw new IllegalArgumentException("Shift must start and end within a day: " + shiftStart + "-" + shiftEnd);
+        }
+        if (workDays < 1 || workDays > 7) {
+            throw new IllegalArgumentException("Work days must be between 1 and 7");
+        }
+        this.shiftStart = shiftStart;
+        this.shiftEnd = shiftEnd;
+        this.workDays = workDays;
+    }
+
+    /**
+     * Sets the seed of the random streams
+     * @param seed Seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Simulates a random order stream: orders arrive at random times at an
+     * average rate, day and night, each a copy of a catalog project picked at random
+     * @param catalog Projects that can be ordered
+     * @param ordersPerDay Average number of orders a day
+     * @param days Length of the simulation in days
+     * @return Simulation report
+     */
+    public Report simulate(Collection<Project> catalog, double ordersPerDay, double days) {
+        if (catalog.isEmpty()) {
+            throw new IllegalArgumentException("The catalog has no projects");
+        }
+        if (!(ordersPerDay > 0) || Double.isInfinite(ordersPerDay)) {
+            throw new IllegalArgumentException("Orders per day must be a positive number");
+        }
+        Run run = new Run(new ArrayList<>(catalog), days);
+        run.ordersPerHour = ordersPerDay / 24;
+        return run.execute();
+    }
+
+    /**
+     * Simulates a given order stream
+     * @param orders Ordered projects (the same project may be ordered many times)
+     * @param arrivalHours Time each order arrives, in increasing order
+     * @param days Length of the simulation in days (later orders are not simulated)
+     * @return Simulation report
+     */
+    public Report replay(List<Project> orders, double[] arrivalHours, double days) {
+        if (orders.size() != arrivalHours.length) {
+            throw new IllegalArgumentException("Every order needs one arrival time");
+        }
+        for (int i = 0; i < arrivalHours.length; i++) {
+            if (!(arrivalHours[i] >= (i == 0 ? 0 : arrivalHours[i - 1]))) {
+                throw new IllegalArgumentException("Arrival times must be positive and in increasing order");
+            }
+        }
+        Map<Project, Integer> ids = new IdentityHashMap<>();
+        List<Project> catalog = new ArrayList<>();
+        int[] orderTemplates = new int[orders.size()];
+        for (int i = 0; i < orderTemplates.length; i++) {
+            Project project = orders.get(i);
+            Integer id = ids.get(project);
+            if (id == null) {
+                id = catalog.size();
+                ids.put(project, id);
+                catalog.add(project);
+            }
+            orderTemplates[i] = id;
+        }
+        Run run = new Run(catalog, days);
+        run.orderTemplates = orderTemplates;
+        run.orderArrivals = arrivalHours;
+        return run.execute();
+    }
+
+    /**
+     * Checks whether an operator is present at a time
+     * @param time Hours from the start
+     * @return True during a shift
+     */
+    private boolean onShift(double time) {
+        long day = (long) Math.floor(time / 24);
+        double hour = time - day * 24.0;
+        return day % 7 < workDays && hour >= shiftStart && hour < shiftEnd;
+    }
+
+    /**
+     * Finds the next time operators arrive or leave
+     * @param time Hours from the start
+     * @return First shift start or end after the time, or infinity if always staffed
+     */
+    private double nextShiftChange(double time) {
+        if (shiftStart == 0 && shiftEnd == 24 && workDays == 7) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long day = (long) Math.floor(time / 24);
+        for (long d = day; d <= day + 7; d++) {
+            if (d % 7 >= workDays) {
+                continue;
+            }
+            double start = d * 24.0 + shiftStart;
+            double end = d * 24.0 + shiftEnd;
+            if (start > time) {
+                return start;
+            }
+            if (end > time) {
+                return end;
+            }
+        }
+        throw new IllegalStateException("No shift within a week");
+    }
+
+    /**
+     * Run - state of one simulation
+     */
+    private class Run {
+        // Catalog
+        private final Project[] templates;                  // Distinct ordered projects
+        private final int[] templateMaterials;              // Material id of each
+        private final long[] templatePrices;                // Price of each
+        private final FailureRiskSimulator.Model[] templateFailures;    // Failure model of each
+        private final List<String> materialNames = new ArrayList<>();  // Material names by id
+        private final int[][] printable;                    // Material ids each printer can print
+        private final double horizon;                       // End of the simulation
+
+        // Order source: either a replayed stream or a random rate
+        private int[] orderTemplates;                       // Template of each replayed order
+        private double[] orderArrivals;                     // Arrival of each replayed order
+        private int nextOrder;                              // Next replayed order
+        private double ordersPerHour;                       // Random arrival rate
+        private int pendingTemplate;                        // Template of the next random order
+        private final SplittableRandom arrivalRandom;       // Random stream for the order stream
+        private final SplittableRandom failureRandom;       // Random stream for print failures
+
+        // Event loop
+        private final EventQueue events;
+        private final OrderQueue[] queues;                  // Waiting orders by material
+        private boolean staffed;                            // An operator is present
+        private int idleCount;                              // Printers in the IDLE state
+
+        // Printers
+        private final byte[] state;
+        private final int[] loaded;                         // Loaded material id (-1 if none)
+        private final int[] jobTemplate;                    // Order on the printer
+        private final double[] jobArrival;
+        private final double[] jobFirstStart;               // First attempt's start (NaN before)
+        private final boolean[] jobFailed;                  // The current attempt fails
+        private final double[] printFrom;                   // Start of the current print, after any change
+        private final double[] printUntil;                  // End or failure of the current print
+        private final double[] blockedSince;                // Time the printer started waiting for an operator
+
+        // Results
+        private final double[] printHours;                  // Hours printing, failed attempts included
+        private final double[] failedHours;                 // Hours of failed attempts
+        private final double[] changeHours;                 // Hours changing material
+        private final double[] blockedHours;                // Hours waiting for an operator
+        private final int[] printerCompleted;
+        private final int[] printerFailures;
+        private final int[] printerChanges;
+        private long arrived;
+        private long completed;
+        private long revenue;                               // Price of the completed orders
+        private double gramsUsed;                           // Material used, failed attempts included
+        private final Samples waits = new Samples();        // Arrival to first start
+        private final Samples leadTimes = new Samples();    // Arrival to completion
+        private long eventCount;
+
+        /**
+         * Constructor - Prepares the catalog, fleet and random streams
+         * @param catalog Distinct projects that will be ordered
+         * @param days Length of the simulation in days
+         */
+        Run(List<Project> catalog, double days) {
+            if (!(days > 0) || Double.isInfinite(days)) {
+                throw new IllegalArgumentException("Days must be a positive number");
+            }
+            horizon = days * 24;
+            int n = catalog.size();
+            templates = catalog.toArray(new Project[0]);
+            templateMaterials = new int[n];
+            templatePrices = new long[n];
+            templateFailures = new FailureRiskSimulator.Model[n];
+            Map<String, Integer> materialIds = new HashMap<>();
+            for (int t = 0; t < n; t++) {
+                String materialName = templates[t].getMaterialType().getName();
+                templateMaterials[t] = materialIds.computeIfAbsent(materialName, name -> {
+                    materialNames.add(name);
+                    return materialNames.size() - 1;
+                });
+                templatePrices[t] = pricing.price(templates[t]);
+                templateFailures[t] = new FailureRiskSimulator.Model(templates[t], failureRates);
+            }
+
+            int count = printers.length;
+            printable = new int[count][];
+            loaded = new int[count];
+            boolean[] covered = new boolean[materialNames.size()];
+            for (int p = 0; p < count; p++) {
+                int[] ids = new int[materialNames.size()];
+                int size = 0;
+                for (int m = 0; m < ids.length; m++) {
+                    if (printers[p].canPrint(materialNames.get(m))) {
+                        ids[size++] = m;
+                        covered[m] = true;
+                    }
+                }
+                printable[p] = Arrays.copyOf(ids, size);
+                Integer loadedId = materialIds.get(printers[p].getLoadedMaterial());
+                loaded[p] = loadedId == null ? -1 : loadedId;
+            }
+            for (int m = 0; m < covered.length; m++) {
+                if (!covered[m]) {
+                    throw new IllegalArgumentException("No printer can print " + materialNames.get(m));
+                }
+            }
+
+            SplittableRandom root = new SplittableRandom(seed);
+            arrivalRandom = root.split();
+            failureRandom = root.split();
+            events = new EventQueue(count + 2);
+            queues = new OrderQueue[materialNames.size()];
+            for (int m = 0; m < queues.length; m++) {
+                queues[m] = new OrderQueue();
+            }
+            state = new byte[count];
+            jobTemplate = new int[count];
+            jobArrival = new double[count];
+            jobFirstStart = new double[count];
+            jobFailed = new boolean[count];
+            printFrom = new double[count];
+            printUntil = new double[count];
+            blockedSince = new double[count];
+            printHours = new double[count];
+            failedHours = new double[count];
+            changeHours = new double[count];
+            blockedHours = new double[count];
+            printerCompleted = new int[count];
+            printerFailures = new int[count];
+            printerChanges = new int[count];
+        }
+
+        /**
+         * Runs the event loop to the end of the simulation
+         * @return Simulation report
+         */
+        Report execute() {
+            long started = System.nanoTime();
+            int count = printers.length;
+            int arrival = count;        // Event codes: printers, then the next arrival, then the shift change
+            int shiftChange = count + 1;
+            idleCount = count;
+            staffed = onShift(0);
+            events.push(nextShiftChange(0), shiftChange);
+            scheduleArrival(0, arrival);
+
+            while (events.size() > 0 && events.peekTime() < horizon) {
+                double time = events.peekTime();
+                int code = events.pop();
+                eventCount++;
+                if (code < count) {
+                    printEnded(code, time);
+                } else if (code == arrival) {
+                    int template = pendingTemplate;
+                    scheduleArrival(time, arrival);
+                    orderArrived(template, time);
+                } else {
+                    staffed = onShift(time);
+                    events.push(nextShiftChange(time), shiftChange);
+                    if (staffed) {
+                        shiftStarted(time);
+                    }
+                }
+            }
+            closeBooks();
+            return new Report(printers, this, (System.nanoTime() - started) / 1e9);
+        }
+
+        /**
+         * Puts the next order of the stream in the event queue
+         * @param time Current time
+         * @param code Arrival event code
+         */
+        private void scheduleArrival(double time, int code) {
+            if (orderArrivals != null) {
+                if (nextOrder < orderArrivals.length) {
+                    pendingTemplate = orderTemplates[nextOrder];
+                    events.push(orderArrivals[nextOrder++], code);
+                }
+            } else {
+                // Exponential gaps give a Poisson stream
+                pendingTemplate = arrivalRandom.nextInt(templates.length);
+                events.push(time - Math.log1p(-arrivalRandom.nextDouble()) / ordersPerHour, code);
+            }
+        }
+
+        /**
+         * Queues a new order and starts it if a printer is free
+         * @param template Ordered project
+         * @param time Current time
+         */
+        private void orderArrived(int template, double time) {
+            arrived++;
+            int m = templateMaterials[template];
+            queues[m].addLast(template, time, Double.NaN);
+            if (!staffed || idleCount == 0) {
+                return;
+            }
+            // Prefer a free printer that has the material loaded
+            int chosen = -1;
+            for (int p = 0; p < printers.length; p++) {
+                if (state[p] == IDLE && canPrint(p, m)) {
+                    if (loaded[p] == m) {
+                        chosen = p;
+                        break;
+                    }
+                    if (chosen < 0) {
+                        chosen = p;
+                    }
+                }
+            }
+            if (chosen >= 0) {
+                dispatch(chosen, time);
+            }
+        }
+
+        /**
+         * Handles a print reaching its end or its failure
+         * @param p Printer index
+         * @param time Current time
+         */
+        private void printEnded(int p, double time) {
+            double hours = time - printFrom[p];
+            Project project = templates[jobTemplate[p]];
+            printHours[p] += hours;
+            gramsUsed += project.getPrintTime() > 0 ? project.getMaterialUsed() * hours / project.getPrintTime()
+                                                     : project.getMaterialUsed();
+            if (jobFailed[p]) {
+                failedHours[p] += hours;
+                printerFailures[p]++;
+            }
+            state[p] = BLOCKED;
+            blockedSince[p] = time;
+            if (staffed) {
+                clear(p, time);
+                dispatch(p, time);
+            }
+        }
+
+        /**
+         * Operators arrive: clears every waiting printer, then starts work on every free one
+         * @param time Current time
+         */
+        private void shiftStarted(double time) {
+            for (int p = 0; p < printers.length; p++) {
+                if (state[p] == BLOCKED) {
+                    clear(p, time);
+                }
+            }
+            for (int p = 0; p < printers.length && idleCount > 0; p++) {
+                if (state[p] == IDLE) {
+                    dispatch(p, time);
+                }
+            }
+        }
+
+        /**
+         * An operator takes a finished print off a printer, or puts a failed order back in its queue
+         * @param p Printer index
+         * @param time Current time
+         */
+        private void clear(int p, double time) {
+            blockedHours[p] += time - blockedSince[p];
+            int template = jobTemplate[p];
+            if (jobFailed[p]) {
+                queues[templateMaterials[template]].addFirst(template, jobArrival[p], jobFirstStart[p]);
+            } else {
+                completed++;
+                printerCompleted[p]++;
+                revenue += templatePrices[template];
+                leadTimes.add(time - jobArrival[p]);
+            }
+            state[p] = IDLE;
+            idleCount++;
+        }
+
+        /**
+         * Starts the next order on a free printer, if there is one it can print
+         * @param p Printer index
+         * @param time Current time
+         */
+        private void dispatch(int p, double time) {
+            int chosen = -1;
+            double oldest = Double.POSITIVE_INFINITY;
+            for (int m : printable[p]) {
+                if (queues[m].size() > 0 && queues[m].firstArrival() < oldest) {
+                    chosen = m;
+                    oldest = queues[m].firstArrival();
+                }
+            }
+            if (chosen < 0) {
+                return;
+            }
+            int current = loaded[p];
+            if (current >= 0 && current != chosen && queues[current].size() > 0
+                    && queues[current].firstArrival() <= oldest + swapDeferHours) {
+                chosen = current;
+            }
+
+            OrderQueue queue = queues[chosen];
+            int template = queue.firstTemplate();
+            jobTemplate[p] = template;
+            jobArrival[p] = queue.firstArrival();
+            jobFirstStart[p] = Double.isNaN(queue.firstStart()) ? time : queue.firstStart();
+            queue.removeFirst();
+            if (jobFirstStart[p] == time) {
+                waits.add(time - jobArrival[p]);
+            }
+
+            double change = 0;
+            if (current != chosen) {
+                change = materialChangeHours;
+                changeHours[p] += Math.min(change, horizon - time);
+                printerChanges[p]++;
+                loaded[p] = chosen;
+            }
+            double printTime = templates[template].getPrintTime();
+            double failedAt = templateFailures[template].failurePoint(failureRandom);
+            jobFailed[p] = failedAt != Double.POSITIVE_INFINITY;
+            printFrom[p] = time + change;
+            printUntil[p] = printFrom[p] + (jobFailed[p] ? failedAt * printTime : printTime);
+            state[p] = BUSY;
+            idleCount--;
+            events.push(printUntil[p], p);
+        }
+
+        /**
+         * Checks whether a printer can print a material
+         * @param p Printer index
+         * @param m Material id
+         * @return True if it can
+         */
+        private boolean canPrint(int p, int m) {
+            for (int id : printable[p]) {
+                if (id == m) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Counts the part of work still in progress at the end of the simulation
+         */
+        private void closeBooks() {
+            for (int p = 0; p < printers.length; p++) {
+                if (state[p] == BUSY && horizon > printFrom[p]) {
+                    printHours[p] += horizon - printFrom[p];
+                } else if (state[p] == BLOCKED) {
+                    blockedHours[p] += horizon - blockedSince[p];
+                }
+            }
+        }
+    }
+
+    /**
+     * EventQueue - min-heap of (time, code) pairs in primitive arrays
+     * Codes break ties, so runs are repeatable.
+     */
+    private static class EventQueue {
+        private final double[] times;
+        private final int[] codes;
+        private int size;
+
+        /**
+         * Constructor - Creates an empty queue
+         * @param capacity Most events pending at once
+         */
+        EventQueue(int capacity) {
+            times = new double[capacity];
+            codes = new int[capacity];
+        }
+
+        /**
+         * Gets the number of pending events
+         * @return Number of events
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Gets the time of the next event
+         * @return Event time
+         */
+        double peekTime() {
+            return times[0];
+        }
+
+        /**
+         * Adds an event
+         * @param time Event time (infinite events are dropped)
+         * @param code Event code
+         */
+        void push(double time, int code) {
+            if (time == Double.POSITIVE_INFINITY) {
+                return;
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(time, code, times[parent], codes[parent])) {
+                    break;
+                }
+                times[i] = times[parent];
+                codes[i] = codes[parent];
+                i = parent;
+            }
+            times[i] = time;
+            codes[i] = code;
+        }
+
+        /**
+         * Removes the next event
+         * @return Its code
+         */
+        int pop() {
+            int top = codes[0];
+            size--;
+            double time = times[size];
+            int code = codes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(times[child + 1], codes[child + 1], times[child], codes[child])) {
+                    child++;
+                }
+                if (!before(times[child], codes[child], time, code)) {
+                    break;
+                }
+                times[i] = times[child];
+                codes[i] = codes[child];
+                i = child;
+            }
+            times[i] = time;
+            codes[i] = code;
+            return top;
+        }
+
+        /**
+         * Compares events by time, then code
+         */
+        private static boolean before(double timeA, int codeA, double timeB, int codeB) {
+            return timeA < timeB || (timeA == timeB && codeA < codeB);
+        }
+    }
+
+    /**
+     * OrderQueue - ring buffer of waiting orders of one material
+     */
+    private static class OrderQueue {
+        private int[] templates = new int[16];
+        private double[] arrivals = new double[16];
+        private double[] firstStarts = new double[16];
+        private int head;
+        private int size;
+
+        /**
+         * Gets the number of waiting orders
+         * @return Number of orders
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Gets the project of the first order
+         * @return Template index
+         */
+        int firstTemplate() {
+            return templates[head];
+        }
+
+        /**
+         * Gets when the first order arrived
+         * @return Arrival time
+         */
+        double firstArrival() {
+            return arrivals[head];
+        }
+
+        /**
+         * Gets when the first order's first attempt started
+         * @return Start time, or NaN if it has not been tried
+         */
+        double firstStart() {
+            return firstStarts[head];
+        }
+
+        /**
+         * Removes the first order
+         */
+        void removeFirst() {
+            head = (head + 1) & (templates.length - 1);
+            size--;
+        }
+
+        /**
+         * Adds a new order at the back
+         */
+        void addLast(int template, double arrival, double firstStart) {
+            grow();
+            set((head + size) & (templates.length - 1), template, arrival, firstStart);
+            size++;
+        }
+
+        /**
+         * Puts an order back at the front
+         */
+        void addFirst(int template, double arrival, double firstStart) {
+            grow();
+            head = (head - 1) & (templates.length - 1);
+            set(head, template, arrival, firstStart);
+            size++;
+        }
+
+        /**
+         * Doubles the buffer when it is full, keeping the capacity a power of two
+         */
+        private void grow() {
+            if (size < templates.length) {
+                return;
+            }
+            int capacity = templates.length * 2;
+            int[] newTemplates = new int[capacity];
+            double[] newArrivals = new double[capacity];
+            double[] newStarts = new double[capacity];
+            for (int i = 0; i < size; i++) {
+                int j = (head + i) & (templates.length - 1);
+                newTemplates[i] = templates[j];
+                newArrivals[i] = arrivals[j];
+                newStarts[i] = firstStarts[j];
+            }
+            templates = newTemplates;
+            arrivals = newArrivals;
+            firstStarts = newStarts;
+            head = 0;
+        }
+
+        /**
+         * Stores an order at a position
+         */
+        private void set(int i, int template, double arrival, double firstStart) {
+            templates[i] = template;
+            arrivals[i] = arrival;
+            firstStarts[i] = firstStart;
+        }
+    }
+
+    /**
+     * Samples - growable list of values for percentiles
+     */
+    private static class Samples {
+        private double[] values = new double[1024];
+        private int size;
+
+        /**
+         * Adds a value
+         * @param value Value to add
+         */
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Gets the sorted values
+         * @return Sorted copy
+         */
+        double[] sorted() {
+            double[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Report - results of one simulation
+     */
+    public static class Report {
+        // Attributes
+        private final double hours;                 // Simulated hours
+        private final int printerCount;
+        private final long arrived;                 // Orders received
+        private final long completed;               // Orders finished
+        private final long backlog;                 // Orders waiting or on a printer at the end
+        private final long failures;                // Failed print attempts
+        private final long materialChanges;
+        private final double utilization;           // Share of printer time spent printing
+        private final double goodUtilization;       // Share spent on prints that succeeded
+        private final double meanWait;              // Arrival to first start
+        private final double p95Wait;
+        private final double meanLeadTime;          // Arrival to completion
+        private final double p50LeadTime;
+        private final double p95LeadTime;
+        private final double maxLeadTime;
+        private final long revenue;                 // Price of the completed orders
+        private final double gramsUsed;             // Material used, failed attempts included
+        private final long events;                  // Events processed
+        private final double runSeconds;            // Wall-clock time of the run
+        private final String printerTable;          // One line per printer
+
+        /**
+         * Constructor - Summarizes a finished run
+         * @param fleet The simulated printers
+         * @param run Finished run
+         * @param runSeconds Wall-clock time of the run
+         */
+        private Report(Printer[] fleet, FarmSimulator.Run run, double runSeconds) {
+            this.hours = run.horizon;
+            this.printerCount = fleet.length;
+            this.arrived = run.arrived;
+            this.completed = run.completed;
+            this.backlog = run.arrived - run.completed;
+            double print = 0, failed = 0;
+            long failureCount = 0, changes = 0;
+            StringBuilder table = new StringBuilder();
+            for (int p = 0; p < fleet.length; p++) {
+                print += run.printHours[p];
+                failed += run.failedHours[p];
+                failureCount += run.printerFailures[p];
+                changes += run.printerChanges[p];
+                table.append(String.format("  %-16s %5.1f%% printing %5.1f%% changing %5.1f%% waiting for operator"
+                                           + " | %d done, %d failed, %d changes%n",
+                                           fleet[p].getName(), 100 * run.printHours[p] / hours,
+                                           100 * run.changeHours[p] / hours, 100 * run.blockedHours[p] / hours,
+                                           run.printerCompleted[p], run.printerFailures[p], run.printerChanges[p]));
+            }
+            this.failures = failureCount;
+            this.materialChanges = changes;
+            this.utilization = print / (hours * fleet.length);
+            this.goodUtilization = (print - failed) / (hours * fleet.length);
+            double[] waits = run.waits.sorted();
+            double[] leadTimes = run.leadTimes.sorted();
+            this.meanWait = mean(waits);
+            this.p95Wait = percentile(waits, 0.95);
+            this.meanLeadTime = mean(leadTimes);
+            this.p50LeadTime = percentile(leadTimes, 0.5);
+            this.p95LeadTime = percentile(leadTimes, 0.95);
+            this.maxLeadTime = leadTimes.length == 0 ? 0 : leadTimes[leadTimes.length - 1];
+            this.revenue = run.revenue;
+            this.gramsUsed = run.gramsUsed;
+            this.events = run.eventCount;
+            this.runSeconds = runSeconds;
+            this.printerTable = table.toString();
+        }
+
+        /**
+         * Averages values
+         * @param values Values
+         * @return Mean, or 0 if there are none
+         */
+        private static double mean(double[] values) {
+            double sum = 0;
+            for (double value : values) {
+                sum += value;
+            }
+            return values.length == 0 ? 0 : sum / values.length;
+        }
+
+        /**
+         * Finds a percentile of sorted values
+         * @param sorted Sorted values
+         * @param percentile Percentile between 0 and 1
+         * @return Value at that percentile (nearest rank), or 0 if there are none
+         */
+        private static double percentile(double[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        /**
+         * Gets the simulated time
+         * @return Hours
+         */
+        public double getHours() {
+            return hours;
+        }
+
+        /**
+         * Gets the number of orders received
+         * @return Number of orders
+         */
+        public long getArrived() {
+            return arrived;
+        }
+
+        /**
+         * Gets the number of orders finished
+         * @return Number of orders
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Gets the number of orders waiting or on a printer at the end
+         * @return Number of orders
+         */
+        public long getBacklog() {
+            return backlog;
+        }
+
+        /**
+         * Gets the number of failed print attempts
+         * @return Number of failures
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the number of spool changes
+         * @return Number of changes
+         */
+        public long getMaterialChanges() {
+            return materialChanges;
+        }
+
+        /**
+         * Gets the share of printer time spent printing, failed attempts included
+         * @return Utilization between 0 and 1
+         */
+        public double getUtilization() {
+            return utilization;
+        }
+
+        /**
+         * Gets the share of printer time spent on prints that succeeded
+         * @return Utilization between 0 and 1
+         */
+        public double getGoodUtilization() {
+            return goodUtilization;
+        }
+
+        /**
+         * Gets the mean time from an order arriving to its first print starting
+         * @return Hours
+         */
+        public double getMeanWait() {
+            return meanWait;
+        }
+
+        /**
+         * Gets the wait that 95% of orders stayed at or below
+         * @return Hours
+         */
+        public double getP95Wait() {
+            return p95Wait;
+        }
+
+        /**
+         * Gets the mean time from an order arriving to its print being taken off the printer
+         * @return Hours
+         */
+        public double getMeanLeadTime() {
+            return meanLeadTime;
+        }
+
+        /**
+         * Gets the median lead time
+         * @return Hours
+         */
+        public double getP50LeadTime() {
+            return p50LeadTime;
+        }
+
+        /**
+         * Gets the lead time that 95% of orders stayed at or below
+         * @return Hours
+         */
+        public double getP95LeadTime() {
+            return p95LeadTime;
+        }
+
+        /**
+         * Gets the longest lead time
+         * @return Hours
+         */
+        public double getMaxLeadTime() {
+            return maxLeadTime;
+        }
+
+        /**
+         * Gets the price of the completed orders
+         * @return Revenue in Money units
+         */
+        public long getRevenueMicros() {
+            return revenue;
+        }
+
+        /**
+         * Gets the material used, failed attempts included
+         * @return Grams
+         */
+        public double getGramsUsed() {
+            return gramsUsed;
+        }
+
+        /**
+         * Gets the number of events processed
+         * @return Number of events
+         */
+        public long getEvents() {
+            return events;
+        }
+
+        /**
+         * String representation for display purposes
+         * @return Formatted report with one line per printer
+         */
+        @Override
+        public String toString() {
+            return String.format("=== FARM SIMULATION (%d printers, %.1f days) ===%n", printerCount, hours / 24)
+                   + String.format("Orders: %d arrived, %d completed, %d in backlog | Failed prints: %d"
+                                   + " | Material changes: %d%n", arrived, completed, backlog, failures, materialChanges)
+                   + String.format("Utilization: %.1f%% printing, %.1f%% on good prints%n",
+                                   utilization * 100, goodUtilization * 100)
+                   + String.format("Queue wait: mean %.1f h, P95 %.1f h%n", meanWait, p95Wait)
+                   + String.format("Lead time: mean %.1f h, P50 %.1f h, P95 %.1f h, max %.1f h%n",
+                                   meanLeadTime, p50LeadTime, p95LeadTime, maxLeadTime)
+                   + String.format("Revenue: $%s | Material used: %.0fg%n", Money.format(revenue, 2), gramsUsed)
+                   + printerTable
+                   + String.format("(%d events in %.2f s)%n", events, runSeconds);
+        }
+    }
+}
\ No newline at end of file
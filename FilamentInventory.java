@@ -0,0 +1,545 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FilamentInventory Class
+ * Live stock of each material, so the farm never takes an order it has no
+ * filament for. A project reserves its grams when it is created, uses them up
+ * when it is completed and gives them back when it is cancelled.
+ *
+ * Each material has two counters: grams available to reserve and grams
+ * reserved. A reservation takes its grams from the available counter with a
+ * compare-and-set loop that gives up when too little is left, so concurrent
+ * orders never oversell a spool and never wait for a lock. Stock on hand is the
+ * sum of the two counters.
+ *
+ * Low-stock listeners are told when a reservation takes the available grams of a
+ * material below its threshold. Exactly one reservation crosses the threshold,
+ * so each drop is reported once, by the thread that made it.
+ *
+ * A material's stock starts at its purchased total volume the first time it is
+ * seen; after that it only changes through reservations and restocking. Stock
+ * and open reservations are written to the inventory file by save(), which the
+ * owner calls after changes so that no file work happens on the reservation
+ * path. Amounts are kept in millionths of a gram, the precision of Money quantities.
+ */
+public class FilamentInventory {
+    // Inventory file used when none is given
+    public static final String DEFAULT_INVENTORY_FILE = "inventory.db";
+
+    // Low-stock threshold for materials that have not been given one
+    public static final double DEFAULT_LOW_STOCK_GRAMS = 200;
+
+    // Record types in the inventory file
+    private static final String STOCK = "S";            // S|material|onHand|threshold
+    private static final String RESERVATION = "R";      // R|project|material|amount
+
+    /**
+     * Listener told when a material's available stock falls below its threshold
+     */
+    public interface LowStockListener {
+        /**
+         * Called after a reservation takes the available stock below the threshold
+         * @param materialName Material running low
+         * @param availableGrams Grams still available to reserve
+         * @param thresholdGrams The material's low-stock threshold
+         */
+        void stockLow(String materialName, double availableGrams, double thresholdGrams);
+    }
+
+    /**
+     * Thrown when a project cannot be created or changed because its material is not in stock
+     */
+    public static class OutOfStockException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor - Describes the shortfall
+         * @param project Project that could not be reserved
+         * @param availableGrams Grams of its material available
+         */
+        public OutOfStockException(Project project, double availableGrams) {
+            super(String.format("Not enough %s in stock for %s: %.2fg needed, %.2fg available",
+                                project.getMaterialType().getName(), project.getProjectName(),
+                                project.getMaterialUsed(), availableGrams));
+        }
+    }
+
+    // Attributes
+    private final String inventoryFile;                                     // Path to the inventory file
+    private final ConcurrentHashMap<String, Stock> stocks = new ConcurrentHashMap<>();                // By material name
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();    // By project name
+    private final List<LowStockListener> listeners = new CopyOnWriteArrayList<>();    // Told about low stock
+    private final AtomicLong version = new AtomicLong();                    // Count of changes
+    private final Object saveLock = new Object();                           // One file writer at a time
+    private long savedVersion;                                              // Changes already saved
+    private volatile long defaultThreshold = Money.quantity(DEFAULT_LOW_STOCK_GRAMS);  // For newly tracked materials
+
+    /**
+     * Constructor - Opens an inventory and loads its file if it exists
+     * @param inventoryFile Path to the inventory file
+     */
+    public FilamentInventory(String inventoryFile) {
+        this.inventoryFile = inventoryFile;
+        load();
+    }
+
+    /**
+     * Default constructor - uses the default file name
+     */
+    public FilamentInventory() {
+        this(DEFAULT_INVENTORY_FILE);
+    }
+
+    // ==================== STOCK ====================
+
+    /**
+     * Starts tracking a material, with its purchased total volume as the stock
+     * Does nothing if the material is already tracked.
+     * @param material Material to track
+     */
+    public void track(Material material) {
+        stockFor(material);
+    }
+
+    /**
+     * Gets a material's stock, starting to track it if needed
+     * @param material Material
+     * @return Stock of the material
+     */
+    private Stock stockFor(Material material) {
+        Stock stock = stocks.get(material.getName());
+        if (stock != null) {
+            return stock;
+        }
+        return stocks.computeIfAbsent(material.getName(), name -> {
+            version.incrementAndGet();
+            return new Stock(name, Money.quantity(material.getTotalVolume()), 0, defaultThreshold);
+        });
+    }
+
+    /**
+     * Gets a tracked material's stock
+     * @param materialName Material name
+     * @return Stock of the material
+     */
+    private Stock stockNamed(String materialName) {
+        Stock stock = stocks.get(materialName);
+        if (stock == null) {
+            throw new IllegalArgumentException("Material not in inventory: " + materialName);
+        }
+        return stock;
+    }
+
+    /**
+     * Adds newly bought filament to a material's stock
+     * @param materialName Material name
+     * @param grams Grams added
+     */
+    public void restock(String materialName, double grams) {
+        if (!(grams > 0)) {
+            throw new IllegalArgumentException("Restocked grams must be a positive number");
+        }
+        stockNamed(materialName).available.addAndGet(Money.quantity(grams));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Sets the stock level below which a material counts as low
+     * @param materialName Material name
+     * @param grams Threshold in grams available
+     */
+    public void setLowStockThreshold(String materialName, double grams) {
+        if (!(grams >= 0)) {
+            throw new IllegalArgumentException("Threshold must be a positive number");
+        }
+        stockNamed(materialName).threshold = Money.quantity(grams);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Sets the threshold given to materials when they are first tracked
+     * @param grams Threshold in grams available
+     */
+    public void setDefaultLowStockThreshold(double grams) {
+        if (!(grams >= 0)) {
+            throw new IllegalArgumentException("Threshold must be a positive number");
+        }
+        defaultThreshold = Money.quantity(grams);
+    }
+
+    /**
+     * Registers a listener for low stock
+     * @param listener Listener to add
+     */
+    public void addLowStockListener(LowStockListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a low-stock listener
+     * @param listener Listener to remove
+     */
+    public void removeLowStockListener(LowStockListener listener) {
+        listeners.remove(listener);
+    }
+
+    // ==================== RESERVATIONS ====================
+
+    /**
+     * Reserves the grams a new project needs
+     * @param project Project being created
+     * @return true if reserved, false if there is not enough of its material
+     */
+    public boolean reserve(Project project) {
+        Stock stock = stockFor(project.getMaterialType());
+        Reservation reservation = new Reservation(stock, Money.quantity(project.getMaterialUsed()));
+        if (!take(stock, reservation.amount)) {
+            return false;
+        }
+        if (reservations.putIfAbsent(project.getProjectName(), reservation) != null) {
+            give(stock, reservation.amount);
+            throw new IllegalArgumentException("Project already has a reservation: " + project.getProjectName());
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Uses up a completed project's reserved grams
+     * @param projectName Project name
+     * @return true if the project had a reservation
+     */
+    public boolean consume(String projectName) {
+        Reservation reservation = reservations.remove(projectName);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.stock.reserved.addAndGet(-reservation.amount);
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gives back a cancelled project's reserved grams
+     * @param projectName Project name
+     * @return true if the project had a reservation
+     */
+    public boolean release(String projectName) {
+        Reservation reservation = reservations.remove(projectName);
+        if (reservation == null) {
+            return false;
+        }
+        give(reservation.stock, reservation.amount);
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Moves a project's reservation to its updated version, which may use a
+     * different amount or material or have a new name
+     * Only the difference is taken when the material stays the same. Projects
+     * without a reservation, such as completed ones, are left alone. A project
+     * renamed over another one replaces it, so the other one's reservation is
+     * given back. Calls for the same project must not run at the same time.
+     * @param projectName Current project name
+     * @param updated Updated project
+     * @return true if the reservation was moved, false if there is not enough of the new material
+     */
+    public boolean change(String projectName, Project updated) {
+        Reservation old = reservations.get(projectName);
+        if (old == null) {
+            if (!projectName.equals(updated.getProjectName())) {
+                release(updated.getProjectName());
+            }
+            return true;
+        }
+        Stock stock = stockFor(updated.getMaterialType());
+        Reservation reservation = new Reservation(stock, Money.quantity(updated.getMaterialUsed()));
+        if (stock == old.stock) {
+            long extra = reservation.amount - old.amount;
+            if (extra > 0 && !take(stock, extra)) {
+                return false;
+            } else if (extra < 0) {
+                give(stock, -extra);
+            }
+        } else {
+            if (!take(stock, reservation.amount)) {
+                return false;
+            }
+            give(old.stock, old.amount);
+        }
+        reservations.remove(projectName, old);
+        Reservation replaced = reservations.put(updated.getProjectName(), reservation);
+        if (replaced != null && replaced != old) {
+            give(replaced.stock, replaced.amount);
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Takes grams from a material's available stock, unless too little is left
+     * @param stock Material stock
+     * @param amount Millionths of a gram
+     * @return true if taken
+     */
+    private boolean take(Stock stock, long amount) {
+        long before;
+        do {
+            before = stock.available.get();
+            if (before < amount) {
+                return false;
+            }
+        } while (!stock.available.compareAndSet(before, before - amount));
+        stock.reserved.addAndGet(amount);
+
+        long threshold = stock.threshold;
+        if (before >= threshold && before - amount < threshold) {
+            for (LowStockListener listener : listeners) {
+                try {
+                    listener.stockLow(stock.name, (before - amount) / (double) Money.QUANTITY_SCALE,
+                                      threshold / (double) Money.QUANTITY_SCALE);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in low-stock listener: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns reserved grams to a material's available stock
+     * @param stock Material stock
+     * @param amount Millionths of a gram
+     */
+    private void give(Stock stock, long amount) {
+        stock.reserved.addAndGet(-amount);
+        stock.available.addAndGet(amount);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Gets the grams of a material that can still be reserved
+     * @param materialName Material name
+     * @return Available grams (0 if the material is not tracked)
+     */
+    public double getAvailableGrams(String materialName) {
+        Stock stock = stocks.get(materialName);
+        return stock == null ? 0 : stock.available.get() / (double) Money.QUANTITY_SCALE;
+    }
+
+    /**
+     * Gets the grams of a material reserved by open projects
+     * @param materialName Material name
+     * @return Reserved grams (0 if the material is not tracked)
+     */
+    public double getReservedGrams(String materialName) {
+        Stock stock = stocks.get(materialName);
+        return stock == null ? 0 : stock.reserved.get() / (double) Money.QUANTITY_SCALE;
+    }
+
+    /**
+     * Gets the grams of a material on the shelf, reserved or not
+     * @param materialName Material name
+     * @return Grams on hand (0 if the material is not tracked)
+     */
+    public double getOnHandGrams(String materialName) {
+        Stock stock = stocks.get(materialName);
+        return stock == null ? 0 : stock.onHand() / (double) Money.QUANTITY_SCALE;
+    }
+
+    /**
+     * Gets a material's low-stock threshold
+     * @param materialName Material name
+     * @return Threshold in grams
+     */
+    public double getLowStockThreshold(String materialName) {
+        return stockNamed(materialName).threshold / (double) Money.QUANTITY_SCALE;
+    }
+
+    /**
+     * Gets the grams a project has reserved
+     * @param projectName Project name
+     * @return Reserved grams, or 0 if it has no open reservation
+     */
+    public double getReservation(String projectName) {
+        Reservation reservation = reservations.get(projectName);
+        return reservation == null ? 0 : reservation.amount / (double) Money.QUANTITY_SCALE;
+    }
+
+    /**
+     * Checks whether a project has an open reservation
+     * @param projectName Project name
+     * @return true if it has reserved grams that are not yet used or given back
+     */
+    public boolean hasReservation(String projectName) {
+        return reservations.containsKey(projectName);
+    }
+
+    /**
+     * Gets the names of the tracked materials
+     * @return Material names, sorted
+     */
+    public Set<String> getMaterialNames() {
+        return new TreeSet<>(stocks.keySet());
+    }
+
+    /**
+     * Lists the stock of every material
+     * @return Formatted string with one line per material
+     */
+    @Override
+    public String toString() {
+        if (stocks.isEmpty()) {
+            return "No materials in inventory.";
+        }
+        StringBuilder sb = new StringBuilder("=== FILAMENT INVENTORY ===\n");
+        for (String name : getMaterialNames()) {
+            Stock stock = stocks.get(name);
+            long available = stock.available.get();
+            sb.append(String.format("%-16s on hand %10.2fg | reserved %10.2fg | available %10.2fg%s%n", name,
+                                    stock.onHand() / (double) Money.QUANTITY_SCALE,
+                                    stock.reserved.get() / (double) Money.QUANTITY_SCALE,
+                                    available / (double) Money.QUANTITY_SCALE,
+                                    available < stock.threshold ? "  LOW" : ""));
+        }
+        return sb.toString();
+    }
+
+    // ==================== FILE PERSISTENCE OPERATIONS ====================
+    // Saving reads the counters without stopping reservations. Every change is
+    // counted before it saves, so a save that raced a change is followed by one
+    // that includes it.
+
+    /**
+     * Saves stock and open reservations to the inventory file, unless a newer save already covered them
+     */
+    public void save() {
+        synchronized (saveLock) {
+            long current = version.get();
+            if (current == savedVersion) {
+                return;
+            }
+            List<String> lines = new ArrayList<>(stocks.size() + reservations.size());
+            for (Stock stock : stocks.values()) {
+                lines.add(STOCK + "|" + stock.name + "|" + stock.onHand() + "|" + stock.threshold);
+            }
+            for (Map.Entry<String, Reservation> entry : reservations.entrySet()) {
+                Reservation reservation = entry.getValue();
+                lines.add(RESERVATION + "|" + entry.getKey() + "|" + reservation.stock.name + "|" + reservation.amount);
+            }
+            try {
+                AtomicFileWriter.writeLines(inventoryFile, false, lines);
+                savedVersion = current;
+            } catch (IOException e) {
+                System.err.println("Error saving inventory: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loads stock and open reservations from the inventory file
+     */
+    private void load() {
+        File file = new File(inventoryFile);
+        if (!file.exists()) {
+            return; // No file to load from
+        }
+
+        Map<String, long[]> stockRecords = new HashMap<>();
+        Map<String, Object[]> reservationRecords = new HashMap<>();
+        RecordCodec record = new RecordCodec();
+        try (BufferedReader reader = new BufferedReader(new FileReader(inventoryFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                record.reset(line);
+                if (record.fieldCount() == 4 && record.fieldEquals(0, STOCK)) {
+                    stockRecords.put(record.getString(1), new long[] { record.getFixed(2, 0), record.getFixed(3, 0) });
+                } else if (record.fieldCount() == 4 && record.fieldEquals(0, RESERVATION)) {
+                    reservationRecords.put(record.getString(1),
+                                           new Object[] { record.getString(2), record.getFixed(3, 0) });
+                } else {
+                    throw new IllegalArgumentException("Invalid inventory record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading inventory: " + e.getMessage());
+            return;
+        }
+
+        // Reserved grams are still on hand but not available
+        for (Map.Entry<String, long[]> entry : stockRecords.entrySet()) {
+            long[] values = entry.getValue();
+            stocks.put(entry.getKey(), new Stock(entry.getKey(), values[0], 0, values[1]));
+        }
+        for (Map.Entry<String, Object[]> entry : reservationRecords.entrySet()) {
+            Stock stock = stockNamed((String) entry.getValue()[0]);
+            long amount = (Long) entry.getValue()[1];
+            stock.available.addAndGet(-amount);
+            stock.reserved.addAndGet(amount);
+            reservations.put(entry.getKey(), new Reservation(stock, amount));
+        }
+    }
+
+    /**
+     * Stock - counters for one material
+     */
+    private static class Stock {
+        private final String name;                  // Material name
+        private final AtomicLong available;         // Millionths of a gram free to reserve
+        private final AtomicLong reserved;          // Millionths of a gram reserved by open projects
+        private volatile long threshold;            // Low when available falls below this
+
+        /**
+         * Constructor - Creates the stock of a material
+         * @param name Material name
+         * @param available Millionths of a gram free to reserve
+         * @param reserved Millionths of a gram reserved
+         * @param threshold Low-stock threshold in millionths of a gram
+         */
+        Stock(String name, long available, long reserved, long threshold) {
+            this.name = name;
+            this.available = new AtomicLong(available);
+            this.reserved = new AtomicLong(reserved);
+            this.threshold = threshold;
+        }
+
+        /**
+         * Gets the amount on the shelf, reserved or not
+         * @return Millionths of a gram
+         */
+        long onHand() {
+            return available.get() + reserved.get();
+        }
+    }
+
+    /**
+     * Reservation - grams held for one open project
+     */
+    private static class Reservation {
+        private final Stock stock;      // Material reserved
+        private final long amount;      // Millionths of a gram
+
+        /**
+         * Constructor - Creates a reservation
+         * @param stock Material reserved
+         * @param amount Millionths of a gram
+         */
+        Reservation(Stock stock, long amount) {
+            this.stock = stock;
+            this.amount = amount;
+        }
+    }
+}
\ No newline at end of file
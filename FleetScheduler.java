@@ -0,0 +1,987 @@
+import java.util.*;
+
+/**
+ * FleetScheduler Class
+ * Plans when and on which printer each queued project is printed, so the farm
+ * can say when work will be finished.
+ *
+ * Jobs are handed out in the order of an AssignmentPolicy, and each one goes
+ * to the printer where it would finish first (list scheduling). A printer
+ * whose loaded material differs from the job's first spends the material change
+ * time swapping spools. Printers are found through heaps keyed by the time
+ * they are free, one for printers that print anything, one per material for
+ * printers limited to some materials, and one per material for printers that
+ * have it loaded, so each job costs a few heap operations whatever the fleet size.
+ *
+ * The plan is kept up to date lazily and incrementally. A job placed in the
+ * queue only invalidates the plan after its position, and planning resumes
+ * from a saved printer state at most CHECKPOINT_JOBS jobs before it. When jobs
+ * start or finish, the plan and the saved states are kept up to the first job
+ * the printers' new state could move: jobs that run as planned move nothing,
+ * and a job that finishes early is planned again from the saved state before
+ * the first job its printer could now take. Planning only runs when a result
+ * is asked for, so many jobs added between two questions share one pass.
+ *
+ * A job starts when its printer begins on it, so a spool change is part of the
+ * job and is not pushed back while the clock moves through it.
+ *
+ * Times are hours on the scheduler's clock, which starts at 0.
+ */
+public class FleetScheduler {
+    // Time to swap spools when none is given
+    public static final double DEFAULT_MATERIAL_CHANGE_HOURS = 0.25;
+
+    // Jobs planned between saved printer states
+    private static final int CHECKPOINT_JOBS = 1024;
+
+    // Material id of a printer with nothing loaded
+    private static final int NO_MATERIAL = -1;
+
+    // Attributes
+    private final Printer[] printers;                       // The fleet
+    private final AssignmentPolicy policy;                  // Hand-out order and change penalty
+    private final Comparator<Job> order;                    // Policy order, then order added
+    private final double materialChangeHours;               // Time to swap spools
+    private final double changePenalty;                     // Extra hours a swap counts as when choosing
+    private final Map<String, Integer> materialIds = new HashMap<>();   // Material ids by name
+    private final List<String> materialNames = new ArrayList<>();      // Material names by id
+    private final Map<String, Integer> printerIds = new HashMap<>();    // Printer index by name
+    private final int[][] limitedTo;                        // Material ids each printer is limited to (null for any)
+    private boolean anyPrinterUnlimited;                    // Some printer prints every material
+
+    // Printer state at the current time
+    private double now;                                     // Current time
+    private final double[] busyUntil;                       // When each printer finishes its running job
+    private final int[] loadedIds;                          // Material loaded in each printer
+    private final Job[] running;                            // Job running on each printer (null if idle)
+
+    // Queue
+    private final List<Job> queue = new ArrayList<>();      // Jobs not started, in hand-out order
+    private final Map<String, Job> jobs = new HashMap<>();  // Queued and running jobs by project name
+    private long nextSequence;                              // Tie-breaker for jobs that compare equal
+    private long completed;                                 // Jobs finished
+    private int plannedJobs;                                // Leading queue jobs whose plan is up to date
+    private final List<Integer> checkpointPositions = new ArrayList<>(); // Queue positions of the saved printer states
+    private final List<double[]> checkpointFree = new ArrayList<>();    // Printer free times before those positions
+    private final List<int[]> checkpointLoaded = new ArrayList<>();     // Loaded materials at the same points
+
+    // Planning state
+    private final double[] free;                            // When each printer is free in the plan
+    private final int[] loaded;                             // Material loaded in each printer in the plan
+    private final int[] version;                            // Bumped whenever a printer's plan changes
+    private final PrinterHeap anyHeap = new PrinterHeap();  // Printers that print anything
+    private PrinterHeap[] limitedHeaps = new PrinterHeap[0];    // By material: limited printers that print it
+    private PrinterHeap[] loadedHeaps = new PrinterHeap[0];     // By material: printers with it loaded
+
+    /**
+     * Constructor - Creates a scheduler with the default material change time
+     * @param printers The fleet
+     * @param policy Assignment policy
+     */
+    public FleetScheduler(Collection<Printer> printers, AssignmentPolicy policy) {
+        this(printers, policy, DEFAULT_MATERIAL_CHANGE_HOURS);
+    }
+
+    /**
+     * Constructor - Creates a scheduler
+     * @param printers The fleet (printer names must be unique)
+     * @param policy Assignment policy
+     * @param materialChangeHours Time to swap spools
+     */
+    public FleetScheduler(Collection<Printer> printers, AssignmentPolicy policy, double materialChangeHours) {
+        if (printers.isEmpty()) {
+            throw new IllegalArgumentException("The fleet needs at least one printer");
+        }
+        if (!(materialChangeHours >= 0) || Double.isInfinite(materialChangeHours)) {
+            throw new IllegalArgumentException("Material change time must be a positive number");
+        }
+        this.printers = printers.toArray(new Printer[0]);
+        this.policy = policy;
+        this.order = policy.thenComparingLong(job -> job.sequence);
+        this.materialChangeHours = materialChangeHours;
+        this.changePenalty = policy.getChangePenalty(materialChangeHours);
+
+        int count = this.printers.length;
+        this.limitedTo = new int[count][];
+        this.busyUntil = new double[count];
+        this.loadedIds = new int[count];
+        this.running = new Job[count];
+        this.free = new double[count];
+        this.loaded = new int[count];
+        this.version = new int[count];
+        for (int p = 0; p < count; p++) {
+            Printer printer = this.printers[p];
+            if (printerIds.put(printer.getName(), p) != null) {
+                throw new IllegalArgumentException("Printer already in the fleet: " + printer.getName());
+            }
+            if (printer.printsAnyMaterial()) {
+                anyPrinterUnlimited = true;
+            } else {
+                int[] ids = new int[printer.getSupportedMaterials().size()];
+                int i = 0;
+                for (String material : printer.getSupportedMaterials()) {
+                    ids[i++] = materialId(material);
+                }
+                limitedTo[p] = ids;
+            }
+            loadedIds[p] = printer.getLoadedMaterial() == null ? NO_MATERIAL : materialId(printer.getLoadedMaterial());
+        }
+    }
+
+    /**
+     * Gets the id of a material, giving it one if it is new
+     * @param materialName Material name
+     * @return Material id
+     */
+    private int materialId(String materialName) {
+        Integer id = materialIds.get(materialName);
+        if (id == null) {
+            id = materialNames.size();
+            materialIds.put(materialName, id);
+            materialNames.add(materialName);
+        }
+        return id;
+    }
+
+    // ==================== QUEUE ====================
+
+    /**
+     * Queues a project with no deadline
+     * @param project Project to print
+     * @return Queued job
+     */
+    public Job addJob(Project project) {
+        return addJob(project, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Queues a project
+     * @param project Project to print (project names must be unique among queued and running jobs)
+     * @param deadline Time the print should be finished by
+     * @return Queued job
+     */
+    public Job addJob(Project project, double deadline) {
+        Job job = newJob(project, deadline);
+        int position = -Collections.binarySearch(queue, job, order) - 1;
+        queue.add(position, job);
+        jobs.put(job.getName(), job);
+        invalidateFrom(position);
+        return job;
+    }
+
+    /**
+     * Queues many projects with no deadline, sorting them once instead of placing them one by one
+     * @param projects Projects to print
+     * @return Queued jobs, in the order of the projects
+     */
+    public List<Job> addJobs(Collection<Project> projects) {
+        List<Job> added = new ArrayList<>(projects.size());
+        Set<String> names = new HashSet<>();
+        for (Project project : projects) {
+            if (!names.add(project.getProjectName())) {
+                throw new IllegalArgumentException("Job already queued: " + project.getProjectName());
+            }
+            added.add(newJob(project, Double.POSITIVE_INFINITY));
+        }
+        for (Job job : added) {
+            jobs.put(job.getName(), job);
+        }
+
+        // Merge the sorted new jobs into the queue
+        List<Job> sorted = new ArrayList<>(added);
+        sorted.sort(order);
+        List<Job> merged = new ArrayList<>(queue.size() + sorted.size());
+        int firstChanged = -1;
+        int i = 0;
+        for (Job job : sorted) {
+            while (i < queue.size() && order.compare(queue.get(i), job) < 0) {
+                merged.add(queue.get(i++));
+            }
+            if (firstChanged < 0) {
+                firstChanged = merged.size();
+            }
+            merged.add(job);
+        }
+        merged.addAll(queue.subList(i, queue.size()));
+        queue.clear();
+        queue.addAll(merged);
+        if (firstChanged >= 0) {
+            invalidateFrom(firstChanged);
+        }
+        return added;
+    }
+
+    /**
+     * Creates a job after checking that it can be queued
+     * @param project Project to print
+     * @param deadline Time the print should be finished by
+     * @return New job
+     */
+    private Job newJob(Project project, double deadline) {
+        if (jobs.containsKey(project.getProjectName())) {
+            throw new IllegalArgumentException("Job already queued: " + project.getProjectName());
+        }
+        if (Double.isNaN(deadline)) {
+            throw new IllegalArgumentException("Deadline must be a number");
+        }
+        String materialName = project.getMaterialType().getName();
+        if (!anyPrinterUnlimited) {
+            boolean printable = false;
+            for (Printer printer : printers) {
+                printable |= printer.canPrint(materialName);
+            }
+            if (!printable) {
+                throw new IllegalArgumentException("No printer can print " + materialName
+                                                   + " for job " + project.getProjectName());
+            }
+        }
+        return new Job(project, deadline, materialId(materialName), nextSequence++);
+    }
+
+    /**
+     * Removes a job that has not started
+     * @param projectName Name of the job's project
+     * @return True if the job was queued and has been removed
+     */
+    public boolean cancelJob(String projectName) {
+        Job job = jobs.get(projectName);
+        if (job == null || job.isRunning()) {
+            return false;
+        }
+        int position = Collections.binarySearch(queue, job, order);
+        queue.remove(position);
+        jobs.remove(projectName);
+        invalidateFrom(position);
+        return true;
+    }
+
+    /**
+     * Moves the clock forward, starting every job its printer has begun on
+     * (a job needing a spool change starts when the change does).
+     * Running jobs that reach their planned end are finished.
+     * @param time New current time
+     * @return Jobs started, in queue order
+     */
+    public List<Job> advanceTo(double time) {
+        if (!(time >= now)) {
+            throw new IllegalArgumentException("Time cannot go backwards: " + time + " < " + now);
+        }
+        plan();
+        for (int p = 0; p < printers.length; p++) {
+            if (running[p] != null && running[p].end <= time) {
+                finish(p);
+            }
+        }
+
+        // On each printer the queue order is also the start order, so each printer's started jobs are a prefix
+        List<Job> started = new ArrayList<>();
+        for (Job job : queue) {
+            if (job.setup > time) {
+                continue;
+            }
+            int p = job.printer;
+            started.add(job);
+            job.running = true;
+            running[p] = job;
+            busyUntil[p] = job.end;
+            loadedIds[p] = job.materialId;
+            printers[p].setLoadedMaterial(job.getMaterialName());
+            if (job.end <= time) {
+                finish(p);
+            }
+        }
+        now = time;
+        rebase(time);
+        return started;
+    }
+
+    /**
+     * Records that a running job has finished, for example earlier than planned
+     * or because the print failed (queue the project again to reprint it)
+     * @param projectName Name of the job's project
+     * @param time Time the printer became free
+     */
+    public void finishJob(String projectName, double time) {
+        Job job = jobs.get(projectName);
+        if (job == null || !job.isRunning()) {
+            throw new IllegalArgumentException("Job is not running: " + projectName);
+        }
+        if (!(time >= job.start)) {
+            throw new IllegalArgumentException("Job cannot finish before it starts");
+        }
+        plan();
+        job.end = time;
+        busyUntil[job.printer] = time;
+        finish(job.printer);
+        rebase(Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Removes the running job from a printer
+     * @param p Printer index
+     */
+    private void finish(int p) {
+        Job job = running[p];
+        job.running = false;
+        jobs.remove(job.getName());
+        running[p] = null;
+        completed++;
+    }
+
+    /**
+     * Marks the plan as out of date from a queue position on
+     * @param position First queue position whose plan may change
+     */
+    private void invalidateFrom(int position) {
+        plannedJobs = Math.min(plannedJobs, position);
+    }
+
+    /**
+     * Brings an up-to-date plan in line with a change in the printers' state
+     * Started jobs leave the queue. The plan is kept up to the first queued job
+     * the change could move, and the saved states before that job are moved to
+     * their new queue positions with the changed printers' new state.
+     * @param startedBy Queued jobs planned to begin by this time have started
+     */
+    private void rebase(double startedBy) {
+        // Each printer's state after its started jobs in the old plan, and where its queued jobs begin
+        int count = printers.length;
+        int size = queue.size();
+        double[] oldFree = checkpointFree.get(0).clone();
+        int[] oldLoaded = checkpointLoaded.get(0).clone();
+        int[] firstQueued = new int[count];
+        int[] lastStarted = new int[count];
+        Arrays.fill(firstQueued, size);
+        Arrays.fill(lastStarted, -1);
+        for (int i = 0; i < size; i++) {
+            Job job = queue.get(i);
+            int p = job.printer;
+            if (job.setup <= startedBy) {
+                lastStarted[p] = i;
+                oldFree[p] = job.end;
+                oldLoaded[p] = job.materialId;
+            } else if (firstQueued[p] == size) {
+                firstQueued[p] = i;
+            }
+        }
+
+        // A printer whose state changed moves its own next queued job. Before that it can only
+        // take a job planned elsewhere if it is now free earlier or holds another material, or
+        // if the job comes before its last started one; those jobs are checked one by one.
+        int affected = size;
+        int[] checkUntil = new int[count];
+        int scanEnd = 0;
+        for (int p = 0; p < count; p++) {
+            double newFree = Math.max(busyUntil[p], now);
+            if (newFree != oldFree[p] || loadedIds[p] != oldLoaded[p]) {
+                affected = Math.min(affected, firstQueued[p]);
+            }
+            boolean later = newFree >= oldFree[p] && loadedIds[p] == oldLoaded[p];
+            checkUntil[p] = later ? lastStarted[p] : firstQueued[p];
+            scanEnd = Math.max(scanEnd, checkUntil[p]);
+        }
+        for (int i = 0; i < Math.min(affected, scanEnd); i++) {
+            Job job = queue.get(i);
+            if (job.setup <= startedBy) {
+                continue;
+            }
+            for (int p = 0; p < count; p++) {
+                if (i < checkUntil[p] && couldTake(p, job)) {
+                    affected = i;
+                    break;
+                }
+            }
+        }
+
+        // Keep the saved states up to the affected job at their new positions
+        int kept = 0;
+        int startedBefore = 0;
+        int i = 0;
+        for (int k = 0; k < checkpointPositions.size(); k++) {
+            int position = checkpointPositions.get(k);
+            if (position > affected) {
+                break;
+            }
+            for (; i < position; i++) {
+                if (queue.get(i).setup <= startedBy) {
+                    startedBefore++;
+                }
+            }
+            if (kept > 0 && checkpointPositions.get(kept - 1) == position - startedBefore) {
+                continue;
+            }
+            double[] states = checkpointFree.get(k);
+            int[] materials = checkpointLoaded.get(k);
+            for (int p = 0; p < count; p++) {
+                if (firstQueued[p] >= position) {
+                    states[p] = Math.max(busyUntil[p], now);
+                    materials[p] = loadedIds[p];
+                }
+            }
+            checkpointPositions.set(kept, position - startedBefore);
+            checkpointFree.set(kept, states);
+            checkpointLoaded.set(kept, materials);
+            kept++;
+        }
+        checkpointPositions.subList(kept, checkpointPositions.size()).clear();
+        checkpointFree.subList(kept, checkpointFree.size()).clear();
+        checkpointLoaded.subList(kept, checkpointLoaded.size()).clear();
+        for (; i < affected; i++) {
+            if (queue.get(i).setup <= startedBy) {
+                startedBefore++;
+            }
+        }
+
+        // The plan's end state is still right for printers with queued jobs
+        if (affected == size) {
+            for (int p = 0; p < count; p++) {
+                if (firstQueued[p] == size) {
+                    free[p] = Math.max(busyUntil[p], now);
+                    loaded[p] = loadedIds[p];
+                }
+            }
+        }
+        if (startedBy > Double.NEGATIVE_INFINITY) {
+            queue.removeIf(job -> job.setup <= startedBy);
+        }
+        plannedJobs = affected - startedBefore;
+    }
+
+    /**
+     * Checks whether a printer in its new state might be chosen for a job planned elsewhere
+     * @param p Printer index
+     * @param job Queued job
+     * @return True if the printer could print the job at or below its planned cost
+     */
+    private boolean couldTake(int p, Job job) {
+        int m = job.materialId;
+        boolean printable = loadedIds[p] == m || limitedTo[p] == null;
+        for (int i = 0; !printable && i < limitedTo[p].length; i++) {
+            printable = limitedTo[p][i] == m;
+        }
+        double cost = Math.max(busyUntil[p], now) + (loadedIds[p] == m ? 0 : materialChangeHours + changePenalty);
+        return printable && cost <= job.cost;
+    }
+
+    // ==================== PLANNING ====================
+
+    /**
+     * Brings the plan up to date, starting from the last saved printer state that is still right
+     */
+    private void plan() {
+        if (plannedJobs == queue.size() && !checkpointFree.isEmpty()) {
+            return;
+        }
+        int checkpoint = Collections.binarySearch(checkpointPositions, plannedJobs);
+        if (checkpoint < 0) {
+            checkpoint = -checkpoint - 2;
+        }
+        if (checkpoint < 0) {
+            for (int p = 0; p < printers.length; p++) {
+                free[p] = Math.max(busyUntil[p], now);
+                loaded[p] = loadedIds[p];
+            }
+            checkpoint = 0;
+            saveCheckpoint(0);
+        } else {
+            System.arraycopy(checkpointFree.get(checkpoint), 0, free, 0, free.length);
+            System.arraycopy(checkpointLoaded.get(checkpoint), 0, loaded, 0, loaded.length);
+            checkpointPositions.subList(checkpoint + 1, checkpointPositions.size()).clear();
+            checkpointFree.subList(checkpoint + 1, checkpointFree.size()).clear();
+            checkpointLoaded.subList(checkpoint + 1, checkpointLoaded.size()).clear();
+        }
+        buildHeaps();
+
+        int last = checkpointPositions.get(checkpoint);
+        for (int i = last; i < queue.size(); i++) {
+            if (i - last == CHECKPOINT_JOBS) {
+                saveCheckpoint(i);
+                last = i;
+            }
+            assign(queue.get(i));
+        }
+        plannedJobs = queue.size();
+    }
+
+    /**
+     * Saves the planning state before a queue position
+     * @param position Queue position
+     */
+    private void saveCheckpoint(int position) {
+        checkpointPositions.add(position);
+        checkpointFree.add(free.clone());
+        checkpointLoaded.add(loaded.clone());
+    }
+
+    /**
+     * Fills the printer heaps from the planning state
+     */
+    private void buildHeaps() {
+        int materials = materialNames.size();
+        if (limitedHeaps.length < materials) {
+            limitedHeaps = Arrays.copyOf(limitedHeaps, materials);
+            loadedHeaps = Arrays.copyOf(loadedHeaps, materials);
+        }
+        anyHeap.clear();
+        for (int m = 0; m < materials; m++) {
+            if (limitedHeaps[m] != null) {
+                limitedHeaps[m].clear();
+            }
+            if (loadedHeaps[m] != null) {
+                loadedHeaps[m].clear();
+            }
+        }
+        for (int p = 0; p < printers.length; p++) {
+            version[p]++;
+            offer(p);
+        }
+    }
+
+    /**
+     * Adds a printer to the heaps it belongs in, keyed by when it is free
+     * @param p Printer index
+     */
+    private void offer(int p) {
+        if (limitedTo[p] == null) {
+            anyHeap.push(free[p], p, version[p]);
+        } else {
+            for (int m : limitedTo[p]) {
+                heap(limitedHeaps, m).push(free[p], p, version[p]);
+            }
+        }
+        if (loaded[p] != NO_MATERIAL) {
+            heap(loadedHeaps, loaded[p]).push(free[p], p, version[p]);
+        }
+    }
+
+    /**
+     * Gets a material's heap, creating it if needed
+     * @param heaps Heaps by material id
+     * @param m Material id
+     * @return Heap for the material
+     */
+    private static PrinterHeap heap(PrinterHeap[] heaps, int m) {
+        if (heaps[m] == null) {
+            heaps[m] = new PrinterHeap();
+        }
+        return heaps[m];
+    }
+
+    /**
+     * Puts a job on the printer where it finishes first, counting a material change at its penalty
+     * @param job Job to place
+     */
+    private void assign(Job job) {
+        int m = job.materialId;
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        // Printers with the material loaded need no change
+        int p = loadedHeaps[m] == null ? -1 : loadedHeaps[m].peek(version);
+        if (p >= 0) {
+            best = p;
+            bestCost = free[p];
+        }
+        // Any other printer may need one; one already loaded was costed exactly above
+        for (int k = 0; k < 2; k++) {
+            int q = k == 0 ? anyHeap.peek(version) : limitedHeaps[m] == null ? -1 : limitedHeaps[m].peek(version);
+            if (q >= 0) {
+                double cost = free[q] + (loaded[q] == m ? 0 : materialChangeHours + changePenalty);
+                if (cost < bestCost || (cost == bestCost && q < best)) {
+                    best = q;
+                    bestCost = cost;
+                }
+            }
+        }
+
+        job.printer = best;
+        job.cost = bestCost;
+        job.setup = free[best];
+        job.start = free[best] + (loaded[best] == m ? 0 : materialChangeHours);
+        job.end = job.start + job.hours;
+        free[best] = job.end;
+        loaded[best] = m;
+        version[best]++;
+        offer(best);
+    }
+
+    // ==================== RESULTS ====================
+
+    /**
+     * Gets the current time
+     * @return Hours since the scheduler started
+     */
+    public double getNow() {
+        return now;
+    }
+
+    /**
+     * Gets the assignment policy
+     * @return Policy
+     */
+    public AssignmentPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets a queued or running job
+     * @param projectName Name of the job's project
+     * @return Job, or null if it is not queued or running
+     */
+    public Job getJob(String projectName) {
+        return jobs.get(projectName);
+    }
+
+    /**
+     * Gets the number of jobs not started
+     * @return Queued jobs
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of jobs finished
+     * @return Finished jobs
+     */
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Gets the time all queued and running work is finished
+     * @return Planned finish time of the last job
+     */
+    public double getMakespan() {
+        plan();
+        double makespan = now;
+        for (int p = 0; p < printers.length; p++) {
+            makespan = Math.max(makespan, Math.max(free[p], busyUntil[p]));
+        }
+        return makespan;
+    }
+
+    /**
+     * Gets the jobs planned to finish after their deadline
+     * @return Late jobs, running ones first
+     */
+    public List<Job> getLateJobs() {
+        plan();
+        List<Job> late = new ArrayList<>();
+        for (Job job : running) {
+            if (job != null && job.isLate()) {
+                late.add(job);
+            }
+        }
+        for (Job job : queue) {
+            if (job.isLate()) {
+                late.add(job);
+            }
+        }
+        return late;
+    }
+
+    /**
+     * Gets the running job and planned jobs of one printer
+     * @param printerName Printer name
+     * @return Jobs in start order
+     */
+    public List<Job> getPlan(String printerName) {
+        Integer p = printerIds.get(printerName);
+        if (p == null) {
+            throw new IllegalArgumentException("Printer not in the fleet: " + printerName);
+        }
+        plan();
+        List<Job> planned = new ArrayList<>();
+        if (running[p] != null) {
+            planned.add(running[p]);
+        }
+        for (Job job : queue) {
+            if (job.printer == p) {
+                planned.add(job);
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Counts the material changes in the plan
+     * @return Planned spool changes, including loading an empty printer
+     */
+    public int getMaterialChanges() {
+        plan();
+        int[] current = loadedIds.clone();
+        int changes = 0;
+        for (Job job : queue) {
+            if (current[job.printer] != job.materialId) {
+                changes++;
+                current[job.printer] = job.materialId;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Summarizes the plan
+     * @return Makespan, lateness and per-printer totals
+     */
+    @Override
+    public String toString() {
+        plan();
+        int[] jobCount = new int[printers.length];
+        double[] printHours = new double[printers.length];
+        for (Job job : queue) {
+            jobCount[job.printer]++;
+            printHours[job.printer] += job.hours;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== FLEET SCHEDULE (").append(policy.getName()).append(") ===\n");
+        sb.append(String.format("Time: %.2f h | Queued: %d | Running: %d | Finished: %d%n",
+                                now, queue.size(), jobs.size() - queue.size(), completed));
+        sb.append(String.format("All work finished at: %.2f h | Late jobs: %d | Material changes: %d%n",
+                                getMakespan(), getLateJobs().size(), getMaterialChanges()));
+        for (int p = 0; p < printers.length; p++) {
+            sb.append(String.format("  %-16s %6d jobs  %10.2f print h  free at %10.2f h%s%n",
+                                    printers[p].getName(), jobCount[p], printHours[p],
+                                    Math.max(free[p], busyUntil[p]),
+                                    running[p] != null ? "  (printing " + running[p].getName() + ")" : ""));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Job - one project in the queue, with its planned printer and times
+     * The plan is brought up to date whenever a planned value is read.
+     */
+    public class Job {
+        // Attributes
+        private final Project project;      // Project to print
+        private final double deadline;      // Time it should be finished by (infinite if none)
+        private final double hours;         // Print time in hours
+        private final int materialId;       // Material id in the scheduler
+        private final long sequence;        // Order added, breaks ties in the policy order
+        private int printer = -1;           // Planned or running printer index
+        private double cost;                // Start it was placed by, swap penalty included
+        private double setup;               // Planned time its printer begins on it
+        private double start;               // Planned or actual start time
+        private double end;                 // Planned end time
+        private boolean running;            // Printing now
+
+        /**
+         * Constructor - Creates a job
+         * @param project Project to print
+         * @param deadline Time it should be finished by
+         * @param materialId Material id in the scheduler
+         * @param sequence Order added
+         */
+        private Job(Project project, double deadline, int materialId, long sequence) {
+            this.project = project;
+            this.deadline = deadline;
+            this.hours = project.getPrintTime();
+            this.materialId = materialId;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Gets the project
+         * @return Project to print
+         */
+        public Project getProject() {
+            return project;
+        }
+
+        /**
+         * Gets the project name
+         * @return Project name
+         */
+        public String getName() {
+            return project.getProjectName();
+        }
+
+        /**
+         * Gets the name of the material to print with
+         * @return Material name
+         */
+        public String getMaterialName() {
+            return materialNames.get(materialId);
+        }
+
+        /**
+         * Gets the print time
+         * @return Print time in hours
+         */
+        public double getPrintHours() {
+            return hours;
+        }
+
+        /**
+         * Gets the deadline
+         * @return Time the print should be finished by (infinite if none)
+         */
+        public double getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Checks whether the job is printing now
+         * @return True if the job is running
+         */
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * Gets the printer the job is planned for or running on
+         * @return Printer
+         */
+        public Printer getPrinter() {
+            refresh();
+            return printers[printer];
+        }
+
+        /**
+         * Gets the planned start time (or actual, once running)
+         * @return Start time in hours
+         */
+        public double getStart() {
+            refresh();
+            return start;
+        }
+
+        /**
+         * Gets the planned end time
+         * @return End time in hours
+         */
+        public double getEnd() {
+            refresh();
+            return end;
+        }
+
+        /**
+         * Checks whether the job is planned to finish after its deadline
+         * @return True if the job is late
+         */
+        public boolean isLate() {
+            refresh();
+            return end > deadline;
+        }
+
+        /**
+         * Brings the plan up to date for a queued job
+         */
+        private void refresh() {
+            if (!running && jobs.get(getName()) == this) {
+                plan();
+            }
+        }
+
+        /**
+         * String representation for display purposes
+         * @return Job name, printer and times
+         */
+        @Override
+        public String toString() {
+            refresh();
+            return String.format("%s on %s: %.2f h to %.2f h%s", getName(), printers[printer].getName(),
+                                 start, end, end > deadline ? " (late)" : "");
+        }
+    }
+
+    /**
+     * PrinterHeap - binary min-heap of (free time, printer) entries in parallel arrays
+     * Entries are not removed when a printer's plan changes; an entry whose
+     * version no longer matches the printer's is skipped when it reaches the top.
+     */
+    private static class PrinterHeap {
+        private double[] times = new double[16];
+        private int[] printers = new int[16];
+        private int[] versions = new int[16];
+        private int size;
+
+        /**
+         * Removes every entry
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Adds an entry
+         * @param time When the printer is free
+         * @param printer Printer index
+         * @param version Printer's version when the entry was made
+         */
+        void push(double time, int printer, int version) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                printers = Arrays.copyOf(printers, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(time, printer, times[parent], printers[parent])) {
+                    break;
+                }
+                set(i, times[parent], printers[parent], versions[parent]);
+                i = parent;
+            }
+            set(i, time, printer, version);
+        }
+
+        /**
+         * Gets the printer free first, dropping out-of-date entries on the way
+         * @param current Current version of every printer
+         * @return Printer index, or -1 if the heap is empty
+         */
+        int peek(int[] current) {
+            while (size > 0 && versions[0] != current[printers[0]]) {
+                pop();
+            }
+            return size > 0 ? printers[0] : -1;
+        }
+
+        /**
+         * Removes the top entry
+         */
+        private void pop() {
+            size--;
+            double time = times[size];
+            int printer = printers[size];
+            int version = versions[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(times[child + 1], printers[child + 1], times[child], printers[child])) {
+                    child++;
+                }
+                if (!before(times[child], printers[child], time, printer)) {
+                    break;
+                }
+                set(i, times[child], printers[child], versions[child]);
+                i = child;
+            }
+            set(i, time, printer, version);
+        }
+
+        /**
+         * Compares entries by time, then printer index
+         */
+        private static boolean before(double timeA, int printerA, double timeB, int printerB) {
+            return timeA < timeB || (timeA == timeB && printerA < printerB);
+        }
+
+        /**
+         * Stores an entry at a position
+         */
+        private void set(int i, double time, int printer, int version) {
+            times[i] = time;
+            printers[i] = printer;
+            versions[i] = version;
+        }
+    }
+}
\ No newline at end of file
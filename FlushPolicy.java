@@ -0,0 +1,101 @@
+/**
+ * FlushPolicy Class
+ * Decides when the background log writer turns queued changes into a write.
+ * Every policy groups all changes that are queued when the write happens.
+ */
+public class FlushPolicy {
+    /**
+     * When queued changes are written
+     */
+    public enum Mode {
+        EVERY_OPERATION,    // As soon as the writer is free
+        INTERVAL,           // A fixed time after the first queued change
+        BATCH               // Once enough changes are queued
+    }
+
+    // Attributes
+    private Mode mode;                   // When queued changes are written
+    private long intervalMillis;         // Delay for INTERVAL mode
+    private int batchSize;               // Queued changes needed for BATCH mode
+
+    /**
+     * Private constructor - use the static factory methods
+     * @param mode When queued changes are written
+     * @param intervalMillis Delay for INTERVAL mode
+     * @param batchSize Queued changes needed for BATCH mode
+     */
+    private FlushPolicy(Mode mode, long intervalMillis, int batchSize) {
+        this.mode = mode;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes queued changes as soon as the writer is free
+     * @return Flush policy
+     */
+    public static FlushPolicy everyOperation() {
+        return new FlushPolicy(Mode.EVERY_OPERATION, 0, 1);
+    }
+
+    /**
+     * Writes queued changes a fixed time after the first one was queued
+     * @param intervalMillis Delay in milliseconds
+     * @return Flush policy
+     */
+    public static FlushPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0");
+        }
+        return new FlushPolicy(Mode.INTERVAL, intervalMillis, 1);
+    }
+
+    /**
+     * Writes queued changes once a number of them are waiting.
+     * Fewer changes are only written when a flush is requested.
+     * @param batchSize Number of changes per write
+     * @return Flush policy
+     */
+    public static FlushPolicy everyMutations(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        return new FlushPolicy(Mode.BATCH, 0, batchSize);
+    }
+
+    /**
+     * Gets the flush mode
+     * @return When queued changes are written
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the delay used in INTERVAL mode
+     * @return Delay in milliseconds
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Gets the number of changes per write in BATCH mode
+     * @return Batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case INTERVAL:
+                return "every " + intervalMillis + " ms";
+            case BATCH:
+                return "every " + batchSize + " mutations";
+            default:
+                return "every operation";
+        }
+    }
+}
\ No newline at end of file
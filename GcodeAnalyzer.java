@@ -0,0 +1,964 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * GcodeAnalyzer Class
+ * Reads a G-code file to find the print time and filament used, so a project
+ * can be created from the file a slicer produced instead of typed-in numbers.
+ *
+ * The file is memory-mapped and split into chunks at line boundaries, and the
+ * chunks are parsed in parallel on the common fork-join pool. A chunk does not
+ * know the printer state left by the chunks before it, so it starts with unknown
+ * positions and feed rate: positions are tracked as offsets from the unknown start
+ * until the file sets them, and the few moves that need the real start state are
+ * kept aside. When the chunks are joined in file order each chunk's start state
+ * is known, and those moves are worked out then. Modes (G90/G91, M82/M83, G20/G21)
+ * are taken from the first chunk; a chunk that relied on a mode which turns out to
+ * be different is parsed again once its start state is known.
+ *
+ * Times are distance / feed rate for each move, without acceleration, so they
+ * are usually a little shorter than a slicer's own estimate.
+ */
+public class GcodeAnalyzer {
+    // Filament diameter in mm when none is given
+    public static final double DEFAULT_FILAMENT_DIAMETER = 1.75;
+
+    // Feed rate in mm/min for moves before the file sets one
+    private static final double DEFAULT_FEED_RATE = 1500;
+
+    // Chunk sizes: the first chunk is parsed alone to learn the modes the file uses
+    private static final long FIRST_CHUNK_BYTES = 256 * 1024;
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    // Bytes copied out of the mapped file at a time for parsing
+    private static final int WINDOW_BYTES = 256 * 1024;
+
+    // A chunk keeping more moves aside than this is parsed again instead
+    private static final int MAX_DEFERRED = 4096;
+
+    // Axes and their word bits
+    private static final int X = 0, Y = 1, Z = 2, E = 3, AXES = 4;
+    private static final int F = 4, I = 5, J = 6, P = 7, S = 8, WORDS = 9;
+    private static final int AXIS_WORDS = (1 << X) | (1 << Y) | (1 << Z) | (1 << E);
+
+    // Mode flags
+    private static final int RELATIVE = 1;             // G91: relative X, Y, Z
+    private static final int RELATIVE_EXTRUDER = 2;    // M83: relative E
+    private static final int INCHES = 4;               // G20: inch units
+    private static final int ALL_MODES = RELATIVE | RELATIVE_EXTRUDER | INCHES;
+
+    // Powers of ten for number parsing
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Attributes
+    private final double filamentDiameter;    // Filament diameter in mm
+
+    /**
+     * Constructor - Creates an analyzer for 1.75 mm filament
+     */
+    public GcodeAnalyzer() {
+        this(DEFAULT_FILAMENT_DIAMETER);
+    }
+
+    /**
+     * Constructor - Creates an analyzer
+     * @param filamentDiameter Filament diameter in mm
+     */
+    public GcodeAnalyzer(double filamentDiameter) {
+        if (!(filamentDiameter > 0)) {
+            throw new IllegalArgumentException("Filament diameter must be greater than 0");
+        }
+        this.filamentDiameter = filamentDiameter;
+    }
+
+    /**
+     * Gets the filament diameter
+     * @return Filament diameter in mm
+     */
+    public double getFilamentDiameter() {
+        return filamentDiameter;
+    }
+
+    /**
+     * Analyzes a G-code file
+     * @param gcodeFile Path to the G-code file
+     * @return Print time and filament used
+     * @throws IOException if the file cannot be read
+     */
+    public Result analyze(String gcodeFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(gcodeFile), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long firstEnd = nextLineStart(channel, Math.min(size, FIRST_CHUNK_BYTES), size);
+            Machine state = Machine.start();
+            ChunkParser first = new ChunkParser(map(channel, 0, firstEnd));
+            first.parse(state);
+            Totals total = first.totals;
+
+            long rest = size - firstEnd;
+            long chunks = Math.max(ForkJoinPool.getCommonPoolParallelism() * 4L, rest / MAX_CHUNK_BYTES + 1);
+            chunks = Math.max(1, Math.min(chunks, rest / MIN_CHUNK_BYTES));
+            long[] bounds = new long[(int) chunks + 1];
+            bounds[0] = firstEnd;
+            bounds[(int) chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = nextLineStart(channel, Math.max(firstEnd + rest * i / chunks, bounds[i - 1]), size);
+            }
+
+            Machine guess = state.copy();
+            List<ForkJoinTask<ChunkParser>> tasks = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                if (start < end) {
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                        ChunkParser parser = new ChunkParser(map(channel, start, end));
+                        parser.parse(Machine.unknown(guess));
+                        return parser;
+                    }));
+                }
+            }
+
+            // Join in file order: each chunk's start state is the previous chunk's end state
+            for (ForkJoinTask<ChunkParser> task : tasks) {
+                ChunkParser parser = task.get();
+                if (parser.overflow || !parser.end.assumedModesMatch(guess, state)) {
+                    parser = new ChunkParser(parser.source);
+                    parser.parse(state);
+                } else {
+                    parser.resolveDeferred(state);
+                    state.followedBy(parser.end);
+                }
+                total.add(parser.totals);
+            }
+            return new Result(total, filamentDiameter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing " + gcodeFile);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Maps a range of the file
+     * @param channel Open G-code file
+     * @param start Start of the range
+     * @param end End of the range
+     * @return Read-only buffer over the range
+     * @throws IOException if the file cannot be mapped
+     */
+    private static ByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    /**
+     * Finds the start of the first line after a position in the file
+     * @param channel Open G-code file
+     * @param position Position to search from
+     * @param size Size of the file
+     * @return Position just after the next newline, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /**
+     * Machine - printer state while parsing
+     * In a chunk parsed without its start state, a position that is not known
+     * holds an offset from the unknown position at the start of the chunk.
+     */
+    private static class Machine {
+        private final double[] position = new double[AXES];    // Position (or offset) of each axis in mm
+        private final boolean[] known = new boolean[AXES];     // Whether each position is absolute
+        private double feedRate;                               // Feed rate in mm/min
+        private boolean feedKnown;                             // Whether the feed rate is known
+        private int modes;                                     // Mode flags in effect
+        private int modesSet;                                  // Mode flags known in this chunk
+        private int modesAssumed;                              // Mode flags used before this chunk set them
+
+        /**
+         * Creates the state at the start of a file
+         * @return Machine at the origin in absolute millimetre mode
+         */
+        static Machine start() {
+            Machine machine = new Machine();
+            for (int axis = 0; axis < AXES; axis++) {
+                machine.known[axis] = true;
+            }
+            machine.feedRate = DEFAULT_FEED_RATE;
+            machine.feedKnown = true;
+            machine.modesSet = ALL_MODES;
+            return machine;
+        }
+
+        /**
+         * Creates the state at the start of a chunk whose start state is unknown
+         * @param guess Machine whose modes are assumed
+         * @return Machine with unknown positions and feed rate
+         */
+        static Machine unknown(Machine guess) {
+            Machine machine = new Machine();
+            machine.modes = guess.modes;
+            return machine;
+        }
+
+        /**
+         * Copies this state
+         * @return Independent copy
+         */
+        Machine copy() {
+            Machine machine = new Machine();
+            System.arraycopy(position, 0, machine.position, 0, AXES);
+            System.arraycopy(known, 0, machine.known, 0, AXES);
+            machine.feedRate = feedRate;
+            machine.feedKnown = feedKnown;
+            machine.modes = modes;
+            machine.modesSet = modesSet;
+            return machine;
+        }
+
+        /**
+         * Reads a mode, noting when a chunk relies on a mode it did not set
+         * @param flag Mode flag
+         * @return true if the mode is on
+         */
+        boolean mode(int flag) {
+            if ((modesSet & flag) == 0) {
+                modesAssumed |= flag;
+            }
+            return (modes & flag) != 0;
+        }
+
+        /**
+         * Sets or clears modes
+         * @param flags Mode flags
+         * @param on true to turn the modes on
+         */
+        void setMode(int flags, boolean on) {
+            modes = on ? modes | flags : modes & ~flags;
+            modesSet |= flags;
+        }
+
+        /**
+         * Checks that every mode a chunk relied on had the assumed value
+         * @param guess Machine whose modes were assumed
+         * @param actual Real state at the start of the chunk
+         * @return true if the chunk's results are valid
+         */
+        boolean assumedModesMatch(Machine guess, Machine actual) {
+            return ((guess.modes ^ actual.modes) & modesAssumed) == 0;
+        }
+
+        /**
+         * Moves this state past a chunk
+         * @param chunkEnd State at the end of the chunk, relative to its start
+         */
+        void followedBy(Machine chunkEnd) {
+            for (int axis = 0; axis < AXES; axis++) {
+                position[axis] = chunkEnd.known[axis] ? chunkEnd.position[axis]
+                                                      : position[axis] + chunkEnd.position[axis];
+            }
+            if (chunkEnd.feedKnown) {
+                feedRate = chunkEnd.feedRate;
+            }
+            modes = (modes & ~chunkEnd.modesSet) | (chunkEnd.modes & chunkEnd.modesSet);
+        }
+    }
+
+    /**
+     * Totals - running totals of a file or chunk
+     */
+    private static class Totals {
+        private double filament;            // Filament pushed in mm (retractions subtracted)
+        private double extrudeDistance;     // Distance moved while extruding in mm
+        private double travelDistance;      // Distance moved without extruding in mm
+        private double extrudeTime;         // Seconds spent extruding
+        private double travelTime;          // Seconds spent on travel and retraction moves
+        private double dwellTime;           // Seconds spent in G4 pauses
+        private long moves;                 // Number of moves
+        private long lines;                 // Number of lines
+
+        /**
+         * Adds one move
+         * @param length Distance moved in mm
+         * @param extruded Filament pushed in mm
+         * @param feedRate Feed rate in mm/min
+         */
+        void addMove(double length, double extruded, double feedRate) {
+            double seconds = feedRate > 0 ? (length > 0 ? length : Math.abs(extruded)) * 60 / feedRate : 0;
+            if (length > 0 && extruded > 0) {
+                extrudeDistance += length;
+                extrudeTime += seconds;
+            } else {
+                travelDistance += length;
+                travelTime += seconds;
+            }
+            filament += extruded;
+            moves++;
+        }
+
+        /**
+         * Adds the totals of another chunk
+         * @param other Totals to add
+         */
+        void add(Totals other) {
+            filament += other.filament;
+            extrudeDistance += other.extrudeDistance;
+            travelDistance += other.travelDistance;
+            extrudeTime += other.extrudeTime;
+            travelTime += other.travelTime;
+            dwellTime += other.dwellTime;
+            moves += other.moves;
+            lines += other.lines;
+        }
+    }
+
+    /**
+     * ChunkParser - parses the lines of one chunk of the file
+     * Lines are parsed from a byte array that a window of the mapped chunk is copied
+     * into, which is much faster than reading the mapped buffer a byte at a time.
+     */
+    private static class ChunkParser {
+        private final ByteBuffer source;        // Mapped chunk contents
+        private final Totals totals;            // Totals of the moves worked out so far
+        private Machine end;                    // State at the end of the chunk
+        private byte[] data;                    // Window of the chunk being parsed
+        private int windowStart;                // Position of the window in the chunk
+        private int limit;                      // End of the complete lines in the window
+        private int cursor;                     // Current position in the window
+
+        // Words of the current line
+        private final double[] values = new double[WORDS];
+        private int words;
+
+        // Moves kept aside until the chunk's start state is known
+        private int[] deferredLines = new int[16];        // Line start of each move
+        private int[] deferredFlags = new int[16];        // Known positions, feed and modes before the move
+        private double[] deferredState = new double[16 * (AXES + 1)];  // Positions and feed before the move
+        private int deferredCount;
+        private boolean overflow;                         // Too many moves were kept aside
+
+        /**
+         * Constructor - Creates a parser for a chunk
+         * @param source Mapped chunk contents
+         */
+        ChunkParser(ByteBuffer source) {
+            this.source = source;
+            this.totals = new Totals();
+            this.data = new byte[Math.min(WINDOW_BYTES, Math.max(source.limit(), 16))];
+        }
+
+        /**
+         * Parses every line of the chunk
+         * @param machine State at the start of the chunk (updated to the end state)
+         */
+        void parse(Machine machine) {
+            int length = source.limit();
+            int offset = 0;
+            while (offset < length) {
+                int count = Math.min(data.length, length - offset);
+                source.get(offset, data, 0, count);
+                int usable = count;
+                if (offset + count < length) {
+                    // Only parse up to the last complete line in the window
+                    while (usable > 0 && data[usable - 1] != '\n') {
+                        usable--;
+                    }
+                    if (usable == 0) {
+                        data = new byte[data.length * 2];
+                        continue;
+                    }
+                }
+                windowStart = offset;
+                limit = usable;
+                cursor = 0;
+                while (cursor < limit) {
+                    line(machine);
+                }
+                offset += usable;
+            }
+            end = machine;
+        }
+
+        /**
+         * Works out the moves kept aside, now that the chunk's start state is known
+         * @param start State at the start of the chunk
+         */
+        void resolveDeferred(Machine start) {
+            for (int i = 0; i < deferredCount; i++) {
+                int flags = deferredFlags[i];
+                int base = i * (AXES + 1);
+                Machine machine = Machine.start();
+                for (int axis = 0; axis < AXES; axis++) {
+                    double value = deferredState[base + axis];
+                    machine.position[axis] = (flags & (1 << axis)) != 0 ? value : start.position[axis] + value;
+                }
+                machine.feedRate = (flags & (1 << AXES)) != 0 ? deferredState[base + AXES] : start.feedRate;
+                machine.modes = flags >>> (AXES + 1);
+                loadLine(deferredLines[i]);
+                line(machine);
+                totals.lines--;
+            }
+        }
+
+        /**
+         * Copies a single line of the chunk into the window
+         * @param lineStart Position of the line in the chunk
+         */
+        private void loadLine(int lineStart) {
+            int lineEnd = lineStart;
+            while (lineEnd < source.limit() && source.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd - lineStart > data.length) {
+                data = new byte[lineEnd - lineStart];
+            }
+            source.get(lineStart, data, 0, lineEnd - lineStart);
+            windowStart = lineStart;
+            limit = lineEnd - lineStart;
+            cursor = 0;
+        }
+
+        /**
+         * Parses one line and moves the cursor past it
+         * @param machine Current state
+         */
+        private void line(Machine machine) {
+            int lineStart = cursor;
+            skipSpaces();
+            int c = peek() & ~0x20;
+            if (c == 'N') {
+                cursor++;
+                number();
+                skipSpaces();
+                c = peek() & ~0x20;
+            }
+            if (c == 'G' || c == 'M') {
+                cursor++;
+                int code = code();
+                if (c == 'G') {
+                    gcode(code, machine, lineStart);
+                } else if (code == 82 || code == 83) {
+                    machine.setMode(RELATIVE_EXTRUDER, code == 83);
+                }
+            }
+            while (cursor < limit && data[cursor++] != '\n') {
+                // Skip the rest of the line
+            }
+            totals.lines++;
+        }
+
+        /**
+         * Handles a G command
+         * @param code Command number
+         * @param machine Current state
+         * @param lineStart Start of the line
+         */
+        private void gcode(int code, Machine machine, int lineStart) {
+            switch (code) {
+                case 0:
+                case 1:
+                case 2:
+                case 3:
+                    move(machine, lineStart, code >= 2 ? code : 0);
+                    break;
+                case 4:
+                    readWords();
+                    if ((words & (1 << P)) != 0) {
+                        totals.dwellTime += values[P] / 1000;
+                    } else if ((words & (1 << S)) != 0) {
+                        totals.dwellTime += values[S];
+                    }
+                    break;
+                case 20:
+                case 21:
+                    machine.setMode(INCHES, code == 20);
+                    break;
+                case 28:
+                    // Homing: the listed axes (or all of X, Y and Z) go to 0
+                    readWords();
+                    for (int axis = X; axis <= Z; axis++) {
+                        if ((words & AXIS_WORDS) == 0 || (words & (1 << axis)) != 0) {
+                            machine.position[axis] = 0;
+                            machine.known[axis] = true;
+                        }
+                    }
+                    break;
+                case 90:
+                case 91:
+                    machine.setMode(RELATIVE | RELATIVE_EXTRUDER, code == 91);
+                    break;
+                case 92:
+                    readWords();
+                    double unit = (words & AXIS_WORDS) != 0 && machine.mode(INCHES) ? 25.4 : 1;
+                    for (int axis = 0; axis < AXES; axis++) {
+                        if ((words & AXIS_WORDS) == 0 || (words & (1 << axis)) != 0) {
+                            machine.position[axis] = (words & AXIS_WORDS) == 0 ? 0 : values[axis] * unit;
+                            machine.known[axis] = true;
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Handles a linear (G0/G1) or arc (G2/G3) move
+         * @param machine Current state
+         * @param lineStart Start of the line
+         * @param arc 2 or 3 for an arc, 0 for a straight move
+         */
+        private void move(Machine machine, int lineStart, int arc) {
+            readWords();
+            if (words == 0) {
+                return;
+            }
+            double unit = machine.mode(INCHES) ? 25.4 : 1;
+            boolean deferred = false;
+            double dx = 0, dy = 0, dz = 0, de = 0;
+            for (int axis = 0; axis < AXES; axis++) {
+                if ((words & (1 << axis)) == 0) {
+                    continue;
+                }
+                double value = values[axis] * unit;
+                double delta;
+                if (machine.mode(axis == E ? RELATIVE_EXTRUDER : RELATIVE)) {
+                    delta = value;
+                } else if (machine.known[axis]) {
+                    delta = value - machine.position[axis];
+                } else {
+                    delta = 0;
+                    deferred = true;
+                }
+                switch (axis) {
+                    case X: dx = delta; break;
+                    case Y: dy = delta; break;
+                    case Z: dz = delta; break;
+                    default: de = delta; break;
+                }
+            }
+            if (arc != 0 && !(machine.known[X] && machine.known[Y])) {
+                deferred = true;
+            }
+
+            boolean hasFeed = (words & (1 << F)) != 0;
+            double feedRate = hasFeed ? values[F] * unit : machine.feedRate;
+            if (!deferred) {
+                double length = arc != 0 ? arcLength(machine, dx, dy, dz, unit, arc)
+                                         : Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (length > 0 || de != 0) {
+                    if (hasFeed || machine.feedKnown) {
+                        totals.addMove(length, de, feedRate);
+                    } else {
+                        deferred = true;
+                    }
+                }
+            }
+            if (deferred) {
+                defer(machine, lineStart);
+            }
+
+            // Move to the target
+            for (int axis = 0; axis < AXES; axis++) {
+                if ((words & (1 << axis)) != 0) {
+                    double value = values[axis] * unit;
+                    if ((machine.modes & (axis == E ? RELATIVE_EXTRUDER : RELATIVE)) != 0) {
+                        machine.position[axis] += value;
+                    } else {
+                        machine.position[axis] = value;
+                        machine.known[axis] = true;
+                    }
+                }
+            }
+            if (hasFeed) {
+                machine.feedRate = feedRate;
+                machine.feedKnown = true;
+            }
+        }
+
+        /**
+         * Works out the length of an arc move
+         * @param machine State at the start of the move (X and Y known)
+         * @param dx Change in X
+         * @param dy Change in Y
+         * @param dz Change in Z
+         * @param unit Millimetres per unit
+         * @param arc 2 for clockwise, 3 for counter-clockwise
+         * @return Length of the arc in mm
+         */
+        private double arcLength(Machine machine, double dx, double dy, double dz, double unit, int arc) {
+            double i = (words & (1 << I)) != 0 ? values[I] * unit : 0;
+            double j = (words & (1 << J)) != 0 ? values[J] * unit : 0;
+            double radius = Math.sqrt(i * i + j * j);
+            // Angles of the start and end points around the centre
+            double startAngle = Math.atan2(-j, -i);
+            double endAngle = Math.atan2(dy - j, dx - i);
+            double sweep = arc == 3 ? endAngle - startAngle : startAngle - endAngle;
+            if (sweep <= 1e-9) {
+                sweep += 2 * Math.PI;
+            }
+            double planar = radius * sweep;
+            return Math.sqrt(planar * planar + dz * dz);
+        }
+
+        /**
+         * Keeps a move aside until the chunk's start state is known
+         * @param machine State before the move
+         * @param lineStart Start of the line
+         */
+        private void defer(Machine machine, int lineStart) {
+            if (deferredCount == MAX_DEFERRED) {
+                overflow = true;
+                return;
+            }
+            if (deferredCount == deferredLines.length) {
+                deferredLines = Arrays.copyOf(deferredLines, deferredCount * 2);
+                deferredFlags = Arrays.copyOf(deferredFlags, deferredCount * 2);
+                deferredState = Arrays.copyOf(deferredState, deferredCount * 2 * (AXES + 1));
+            }
+            int flags = machine.modes << (AXES + 1);
+            int base = deferredCount * (AXES + 1);
+            for (int axis = 0; axis < AXES; axis++) {
+                if (machine.known[axis]) {
+                    flags |= 1 << axis;
+                }
+                deferredState[base + axis] = machine.position[axis];
+            }
+            if (machine.feedKnown) {
+                flags |= 1 << AXES;
+            }
+            deferredState[base + AXES] = machine.feedRate;
+            deferredLines[deferredCount] = windowStart + lineStart;
+            deferredFlags[deferredCount] = flags;
+            deferredCount++;
+        }
+
+        /**
+         * Reads the words of the current command up to a comment or the end of the line
+         */
+        private void readWords() {
+            words = 0;
+            while (cursor < limit) {
+                int c = data[cursor];
+                if (c == '\n' || c == ';' || c == '(' || c == '*') {
+                    return;
+                }
+                cursor++;
+                int word;
+                switch (c & ~0x20) {
+                    case 'X': word = X; break;
+                    case 'Y': word = Y; break;
+                    case 'Z': word = Z; break;
+                    case 'E': word = E; break;
+                    case 'F': word = F; break;
+                    case 'I': word = I; break;
+                    case 'J': word = J; break;
+                    case 'P': word = P; break;
+                    case 'S': word = S; break;
+                    default: continue;
+                }
+                values[word] = number();
+                words |= 1 << word;
+            }
+        }
+
+        /**
+         * Reads a command number such as the 1 of G1
+         * @return Command number, or -1 for a missing or dotted number such as G29.1
+         */
+        private int code() {
+            int code = 0;
+            int digits = 0;
+            while (cursor < limit) {
+                int c = data[cursor];
+                if (c < '0' || c > '9') {
+                    if (c == '.') {
+                        return -1;
+                    }
+                    break;
+                }
+                code = code * 10 + (c - '0');
+                digits++;
+                cursor++;
+            }
+            return digits == 0 ? -1 : code;
+        }
+
+        /**
+         * Reads a decimal number
+         * @return Number read (0 if there are no digits)
+         */
+        private double number() {
+            boolean negative = false;
+            if (cursor < limit) {
+                int c = data[cursor];
+                if (c == '-' || c == '+') {
+                    negative = c == '-';
+                    cursor++;
+                }
+            }
+            long mantissa = 0;
+            int decimals = 0;
+            int extraDigits = 0;
+            boolean fraction = false;
+            while (cursor < limit) {
+                int c = data[cursor];
+                if (c >= '0' && c <= '9') {
+                    if (mantissa < 100_000_000_000_000_000L) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (fraction) {
+                            decimals++;
+                        }
+                    } else if (!fraction) {
+                        extraDigits++;
+                    }
+                } else if (c == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                cursor++;
+            }
+            double value = extraDigits > 0 ? mantissa * Math.pow(10, extraDigits)
+                                           : decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Skips spaces and tabs
+         */
+        private void skipSpaces() {
+            while (cursor < limit) {
+                int c = data[cursor];
+                if (c != ' ' && c != '\t') {
+                    return;
+                }
+                cursor++;
+            }
+        }
+
+        /**
+         * Looks at the current character
+         * @return Current character, or 0 at the end of the chunk
+         */
+        private int peek() {
+            return cursor < limit ? data[cursor] : 0;
+        }
+    }
+
+    /**
+     * Result - what a G-code file prints
+     */
+    public static class Result {
+        // Attributes
+        private final Totals totals;                // Totals over the whole file
+        private final double filamentDiameter;      // Filament diameter in mm
+
+        /**
+         * Constructor - Creates a result
+         * @param totals Totals over the whole file
+         * @param filamentDiameter Filament diameter in mm
+         */
+        private Result(Totals totals, double filamentDiameter) {
+            this.totals = totals;
+            this.filamentDiameter = filamentDiameter;
+        }
+
+        /**
+         * Converts the result to a string that fromRecord can read back exactly
+         * The filament diameter is not stored; it is given again when the result is read.
+         * @return String in format: filament|extrudeDistance|travelDistance|extrudeTime|travelTime|dwellTime|moves|lines
+         */
+        public String toRecordString() {
+            return totals.filament + "|" + totals.extrudeDistance + "|" + totals.travelDistance + "|"
+                 + totals.extrudeTime + "|" + totals.travelTime + "|" + totals.dwellTime + "|"
+                 + totals.moves + "|" + totals.lines;
+        }
+
+        /**
+         * Creates a result from a record written by toRecordString
+         * @param record Codec positioned on the record
+         * @param filamentDiameter Filament diameter in mm
+         * @return Result object
+         */
+        public static Result fromRecord(RecordCodec record, double filamentDiameter) {
+            if (record.fieldCount() != 8) {
+                throw new IllegalArgumentException("Invalid G-code result record");
+            }
+            Totals totals = new Totals();
+            totals.filament = record.getDouble(0);
+            totals.extrudeDistance = record.getDouble(1);
+            totals.travelDistance = record.getDouble(2);
+            totals.extrudeTime = record.getDouble(3);
+            totals.travelTime = record.getDouble(4);
+            totals.dwellTime = record.getDouble(5);
+            totals.moves = record.getFixed(6, 0);
+            totals.lines = record.getFixed(7, 0);
+            return new Result(totals, filamentDiameter);
+        }
+
+        /**
+         * Gets the length of filament used
+         * @return Filament length in mm
+         */
+        public double getFilamentLength() {
+            return totals.filament;
+        }
+
+        /**
+         * Gets the volume of filament used
+         * @return Filament volume in cm³
+         */
+        public double getFilamentVolume() {
+            double radius = filamentDiameter / 2;
+            return Math.max(0, totals.filament) * Math.PI * radius * radius / 1000;
+        }
+
+        /**
+         * Gets the weight of filament used
+         * @param material Material printed (must have a density)
+         * @return Filament weight in grams
+         */
+        public double getGrams(Material material) {
+            if (material.getDensity() <= 0) {
+                throw new IllegalArgumentException("Material " + material.getName() + " has no density");
+            }
+            return getFilamentVolume() * material.getDensity();
+        }
+
+        /**
+         * Gets the print time
+         * @return Print time in hours
+         */
+        public double getPrintHours() {
+            return getPrintSeconds() / 3600;
+        }
+
+        /**
+         * Gets the print time
+         * @return Print time in seconds (moves and pauses)
+         */
+        public double getPrintSeconds() {
+            return totals.extrudeTime + totals.travelTime + totals.dwellTime;
+        }
+
+        /**
+         * Gets the time spent extruding
+         * @return Seconds spent on moves that extrude
+         */
+        public double getExtrudeSeconds() {
+            return totals.extrudeTime;
+        }
+
+        /**
+         * Gets the time spent on travel and retraction moves
+         * @return Seconds spent on moves that do not extrude
+         */
+        public double getTravelSeconds() {
+            return totals.travelTime;
+        }
+
+        /**
+         * Gets the distance moved while extruding
+         * @return Distance in mm
+         */
+        public double getExtrudeDistance() {
+            return totals.extrudeDistance;
+        }
+
+        /**
+         * Gets the distance moved without extruding
+         * @return Distance in mm
+         */
+        public double getTravelDistance() {
+            return totals.travelDistance;
+        }
+
+        /**
+         * Gets the number of moves
+         * @return Number of moves
+         */
+        public long getMoveCount() {
+            return totals.moves;
+        }
+
+        /**
+         * Gets the number of lines in the file
+         * @return Number of lines
+         */
+        public long getLineCount() {
+            return totals.lines;
+        }
+
+        /**
+         * Creates a project from the print time and filament weight
+         * @param projectName Name of the project
+         * @param designTime Hours spent on design
+         * @param material Material printed (must have a density)
+         * @param hourlyRate Designer's hourly rate
+         * @param printRate Printer operation cost per hour
+         * @return New project
+         */
+        public Project toProject(String projectName, double designTime, Material material,
+                                 double hourlyRate, double printRate) {
+            return new Project(projectName, designTime, getPrintHours(), getGrams(material),
+                               material, hourlyRate, printRate);
+        }
+
+        /**
+         * String representation for display purposes
+         * @return Print time and filament summary
+         */
+        @Override
+        public String toString() {
+            return String.format("Print time: %.2f hours (%.0f s extruding, %.0f s travel)%n"
+                                 + "Filament: %.1f mm (%.2f cm³)%n"
+                                 + "Moves: %d in %d lines",
+                                 getPrintHours(), totals.extrudeTime, totals.travelTime,
+                                 totals.filament, getFilamentVolume(), totals.moves, totals.lines);
+        }
+    }
+}
\ No newline at end of file
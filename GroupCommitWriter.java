@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GroupCommitWriter Class
+ * Background thread that appends queued log records to a WriteAheadLog.
+ * Callers queue a record and get back a future; the writer collects every
+ * record queued since its last write into one group, writes the group with a
+ * single flush, and completes the group's future.
+ */
+public class GroupCommitWriter {
+    // Attributes
+    private final WriteAheadLog log;                 // Log the records are written to
+    private final FlushPolicy policy;                // When queued records are written
+    private final Object lock = new Object();        // Guards the queue and flags below
+    private List<String> types;                      // Queued record types
+    private List<String> payloads;                   // Queued record payloads
+    private CompletableFuture<Void> groupFuture;     // Completes when the queued group is written
+    private CompletableFuture<Void> lastFuture;      // Future of the most recently queued record
+    private long firstQueuedAt;                      // Time the oldest queued record arrived
+    private boolean flushRequested;                  // Write the queue now, whatever the policy
+    private boolean closed;                          // Stop once the queue is empty
+    private Thread thread;                           // Background writer thread
+
+    /**
+     * Constructor - Creates a writer and starts its background thread
+     * @param log Log to append to
+     * @param policy When queued records are written
+     */
+    public GroupCommitWriter(WriteAheadLog log, FlushPolicy policy) {
+        this.log = log;
+        this.policy = policy;
+        this.types = new ArrayList<>();
+        this.payloads = new ArrayList<>();
+        this.lastFuture = CompletableFuture.completedFuture(null);
+        this.thread = new Thread(this::writeLoop, "group-commit-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a record to be written
+     * @param type Record type
+     * @param payload Record payload
+     * @return Future that completes when the record has been written
+     */
+    public CompletableFuture<Void> submit(String type, String payload) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Writer is closed");
+            }
+            if (types.isEmpty()) {
+                firstQueuedAt = System.currentTimeMillis();
+                groupFuture = new CompletableFuture<>();
+            }
+            types.add(type);
+            payloads.add(payload);
+            lastFuture = groupFuture;
+            lock.notifyAll();
+            return groupFuture;
+        }
+    }
+
+    /**
+     * Asks the writer to write everything queued so far, whatever the policy
+     * @return Future that completes when every queued record has been written
+     */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            if (!types.isEmpty()) {
+                flushRequested = true;
+                lock.notifyAll();
+            }
+            return lastFuture;
+        }
+    }
+
+    /**
+     * Gets the future of the most recently queued record
+     * @return Future that completes when that record (and all before it) is written
+     */
+    public CompletableFuture<Void> lastCommit() {
+        synchronized (lock) {
+            return lastFuture;
+        }
+    }
+
+    /**
+     * Writes everything still queued and stops the background thread
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop: waits for the policy to call for a write, then writes the whole queue
+     */
+    private void writeLoop() {
+        while (true) {
+            List<String> groupTypes;
+            List<String> groupPayloads;
+            CompletableFuture<Void> future;
+            synchronized (lock) {
+                try {
+                    long wait;
+                    while ((wait = millisUntilWrite()) != 0) {
+                        if (closed && types.isEmpty()) {
+                            return;
+                        }
+                        lock.wait(Math.max(wait, 0));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                groupTypes = types;
+                groupPayloads = payloads;
+                future = groupFuture;
+                types = new ArrayList<>();
+                payloads = new ArrayList<>();
+                groupFuture = null;
+                flushRequested = false;
+            }
+
+            try {
+                log.appendAll(groupTypes, groupPayloads);
+                future.complete(null);
+            } catch (IOException e) {
+                System.err.println("Error writing log: " + e.getMessage());
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Works out how long to wait before the next write
+     * Must be called while holding the lock.
+     * @return 0 to write now, a positive number of milliseconds to wait, or -1 to wait for a signal
+     */
+    private long millisUntilWrite() {
+        if (types.isEmpty()) {
+            return -1;
+        }
+        if (closed || flushRequested) {
+            return 0;
+        }
+        switch (policy.getMode()) {
+            case INTERVAL: {
+                long remaining = firstQueuedAt + policy.getIntervalMillis() - System.currentTimeMillis();
+                return remaining <= 0 ? 0 : remaining;
+            }
+            case BATCH:
+                return types.size() >= policy.getBatchSize() ? 0 : -1;
+            default:
+                return 0;
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,23 @@
 /**
  * Material Class
  * Represents a 3D printing material with cost tracking capabilities.
- * Stores material name, cost per gram, and total volume purchased.
+ * Stores material name, cost per gram, total volume purchased, and
+ * optionally the density used to turn filament length into grams.
+ * The infill density and shell thickness describe how a model is printed,
+ * so a model's volume can be turned into an estimated gram count.
  */
 public class Material {
     // Attributes
     private String name;
-    private double costPerGram;
-    private double totalVolume;
+    private volatile long costPerGram;      // Cost per gram in Money micro-cents (volatile: read without locks)
+    private volatile double totalVolume;
+    private double density;         // Density in g/cm³ (0 if unknown)
+    private double infillDensity = DEFAULT_INFILL_DENSITY;      // Share of the interior filled (0 to 1)
+    private double shellThickness = DEFAULT_SHELL_THICKNESS;    // Solid wall thickness in mm
+    
+    // Print settings assumed when none are set
+    public static final double DEFAULT_INFILL_DENSITY = 0.2;
+    public static final double DEFAULT_SHELL_THICKNESS = 1.2;
     
     /**
      * Constructor - calculates cost per gram based on total cost and volume
@@ -29,21 +39,34 @@ public class Material {
      */
     public Material(String name, double costPerGram, double totalVolume, boolean isPerGram) {
         this.name = name;
-        this.costPerGram = costPerGram;
+        this.costPerGram = Money.of(costPerGram);
         this.totalVolume = totalVolume;
     }
     
+    /**
+     * Creates a material with an exact cost per gram
+     * @param name Name of the material
+     * @param costPerGram Cost per gram in Money micro-cents
+     * @param totalVolume Total volume/weight in grams
+     * @return Material object
+     */
+    public static Material ofCostPerGram(String name, long costPerGram, double totalVolume) {
+        Material material = new Material(name, 0, totalVolume, true);
+        material.costPerGram = costPerGram;
+        return material;
+    }
+    
     /**
      * Calculates cost per gram from total cost and volume
      * @param totalCost Total amount paid
      * @param totalVolume Total weight in grams
-     * @return Cost per gram
+     * @return Cost per gram in Money micro-cents
      */
-    private double calculateCostPerGram(double totalCost, double totalVolume) {
+    private long calculateCostPerGram(double totalCost, double totalVolume) {
         if (totalVolume <= 0) {
             throw new IllegalArgumentException("Total volume must be greater than 0");
         }
-        return totalCost / totalVolume;
+        return Money.divide(Money.of(totalCost), totalVolume);
     }
     
     /**
@@ -51,17 +74,93 @@ public class Material {
      * @return Cost per gram
      */
     public double getCostPerGram() {
+        return Money.toDouble(costPerGram);
+    }
+    
+    /**
+     * Gets the exact cost per gram of the material
+     * @return Cost per gram in Money micro-cents
+     */
+    public long getCostPerGramMicros() {
         return costPerGram;
     }
     
+    /**
+     * Gets the density of the material
+     * @return Density in g/cm³, or 0 if unknown
+     */
+    public double getDensity() {
+        return density;
+    }
+    
+    /**
+     * Sets the density of the material
+     * @param density Density in g/cm³ (0 if unknown)
+     */
+    public void setDensity(double density) {
+        if (!(density >= 0) || Double.isInfinite(density)) {
+            throw new IllegalArgumentException("Density must be a positive number");
+        }
+        this.density = density;
+    }
+    
+    /**
+     * Gets the infill density used when printing with this material
+     * @return Share of a model's interior that is filled (0 to 1)
+     */
+    public double getInfillDensity() {
+        return infillDensity;
+    }
+    
+    /**
+     * Sets the infill density used when printing with this material
+     * @param infillDensity Share of a model's interior that is filled (0 to 1)
+     */
+    public void setInfillDensity(double infillDensity) {
+        if (!(infillDensity >= 0 && infillDensity <= 1)) {
+            throw new IllegalArgumentException("Infill density must be a fraction between 0 and 1 (0.2 is 20%)");
+        }
+        this.infillDensity = infillDensity;
+    }
+    
+    /**
+     * Gets the thickness of the solid walls printed around a model
+     * @return Shell thickness in mm
+     */
+    public double getShellThickness() {
+        return shellThickness;
+    }
+    
+    /**
+     * Sets the thickness of the solid walls printed around a model
+     * @param shellThickness Shell thickness in mm
+     */
+    public void setShellThickness(double shellThickness) {
+        if (!(shellThickness >= 0) || Double.isInfinite(shellThickness)) {
+            throw new IllegalArgumentException("Shell thickness must be a positive number");
+        }
+        this.shellThickness = shellThickness;
+    }
+    
+    /**
+     * Checks whether the print settings differ from the defaults
+     * @return True if the infill density or shell thickness has been changed
+     */
+    private boolean hasPrintSettings() {
+        return infillDensity != DEFAULT_INFILL_DENSITY || shellThickness != DEFAULT_SHELL_THICKNESS;
+    }
+    
     /**
      * Updates the cost of the material based on new purchase
      * @param newTotalCost New total cost paid
      * @param newTotalVolume New total volume purchased
+     * @throws IllegalArgumentException if the volume is not positive or the cost is out of range
      */
     public void updateCost(double newTotalCost, double newTotalVolume) {
+        // Calculated first, so a rejected cost leaves the material unchanged
+        long newCostPerGram = calculateCostPerGram(newTotalCost, newTotalVolume);
         this.totalVolume = newTotalVolume;
-        this.costPerGram = calculateCostPerGram(newTotalCost, newTotalVolume);
+        this.costPerGram = newCostPerGram;
     }
     
     /**
@@ -82,27 +181,64 @@ public class Material {
     
     /**
      * Converts material object to a formatted string representation
-     * Used for database storage and display
-     * @return String representation in format: name|costPerGram|totalVolume
+     * Used for database storage; the cost per gram is stored exactly
+     * The density and print settings are only written when set, so older files keep their format
+     * @return String representation in format: name|costPerGram|totalVolume[|density[|infill|shell]]
      */
     public String toDatabaseString() {
-        return String.format("%s|%.4f|%.2f", name, costPerGram, totalVolume);
+        StringBuilder sb = new StringBuilder(name.length() + 32).append(name).append('|');
+        Money.appendExact(sb, costPerGram, 4).append('|');
+        Money.appendQuantity(sb, totalVolume, 2);
+        if (density > 0 || hasPrintSettings()) {
+            Money.appendQuantity(sb.append('|'), density, 2);
+        }
+        if (hasPrintSettings()) {
+            Money.appendQuantity(sb.append('|'), infillDensity, 4);
+            Money.appendQuantity(sb.append('|'), shellThickness, 2);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Converts material object to a string for the write-ahead log
+     * Database strings are already exact, so this is the same format
+     * @return String representation in format: name|costPerGram|totalVolume[|density[|infill|shell]]
+     */
+    public String toLogString() {
+        return toDatabaseString();
     }
     
     /**
      * Creates a Material object from a database string
-     * @param dbString Database string in format: name|costPerGram|totalVolume
+     * @param dbString Database string in format: name|costPerGram|totalVolume[|density[|infill|shell]]
      * @return Material object
      */
     public static Material fromDatabaseString(String dbString) {
-        String[] parts = dbString.split("\\|");
-        if (parts.length != 3) {
+        return fromRecord(new RecordCodec().reset(dbString));
+    }
+    
+    /**
+     * Creates a Material object from a record already split by a RecordCodec
+     * @param record Codec positioned on a record in format: name|costPerGram|totalVolume[|density[|infill|shell]]
+     * @return Material object
+     */
+    public static Material fromRecord(RecordCodec record) {
+        int fields = record.fieldCount();
+        if (fields != 3 && fields != 4 && fields != 6) {
             throw new IllegalArgumentException("Invalid database string format");
         }
-        String name = parts[0];
-        double costPerGram = Double.parseDouble(parts[1]);
-        double totalVolume = Double.parseDouble(parts[2]);
-        return new Material(name, costPerGram, totalVolume, true);
+        String name = record.getString(0);
+        long costPerGram = record.getFixed(1, Money.DECIMALS);
+        double totalVolume = record.getDouble(2);
+        Material material = ofCostPerGram(name, costPerGram, totalVolume);
+        if (fields >= 4) {
+            material.setDensity(record.getDouble(3));
+        }
+        if (fields == 6) {
+            material.setInfillDensity(record.getDouble(4));
+            material.setShellThickness(record.getDouble(5));
+        }
+        return material;
     }
     
     /**
@@ -111,7 +247,14 @@ public class Material {
      */
     @Override
     public String toString() {
-        return String.format("Material: %s | Cost per gram: $%.4f | Total volume: %.2fg", 
-                           name, costPerGram, totalVolume);
+        String text = String.format("Material: %s | Cost per gram: $%s | Total volume: %.2fg", 
+                                    name, Money.format(costPerGram, 4), totalVolume);
+        if (density > 0) {
+            text += String.format(" | Density: %.2fg/cm³", density);
+        }
+        if (hasPrintSettings()) {
+            text += String.format(" | Infill: %.0f%% | Shell: %.2fmm", infillDensity * 100, shellThickness);
+        }
+        return text;
     }
 }
\ No newline at end of file
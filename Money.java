@@ -0,0 +1,243 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money Class
+ * Fixed-point money arithmetic on plain long values, so costs are exact and
+ * no objects are created while calculating.
+ * An amount is a long number of micro-cents (1/100,000,000 of a dollar).
+ * Quantities such as hours and grams stay doubles, and are rounded to
+ * millionths before they are multiplied with an amount. Results are rounded
+ * half away from zero. A result that does not fit in an amount, or a division
+ * by a quantity that rounds to zero, throws IllegalArgumentException like any
+ * other out-of-range input.
+ */
+public final class Money {
+    // Decimal places in an amount, and micro-cents per dollar
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    // Decimal places kept from a quantity, and units per whole quantity
+    public static final int QUANTITY_DECIMALS = 6;
+    public static final long QUANTITY_SCALE = 1_000_000L;
+
+    // Largest number of dollars that fits in an amount
+    private static final double MAX_DOLLARS = Long.MAX_VALUE / (double) SCALE;
+
+    // Powers of ten that fit in a long
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Private constructor - this class only has static methods
+     */
+    private Money() {
+    }
+
+    // ==================== CONVERSION ====================
+
+    /**
+     * Converts dollars to an amount
+     * Any decimal with up to 8 places converts exactly.
+     * @param dollars Dollars as a double
+     * @return Amount in micro-cents
+     */
+    public static long of(double dollars) {
+        if (Double.isNaN(dollars) || Math.abs(dollars) >= MAX_DOLLARS) {
+            throw new IllegalArgumentException("Amount out of range: " + dollars);
+        }
+        return Math.round(dollars * SCALE);
+    }
+
+    /**
+     * Converts an amount to dollars
+     * @param amount Amount in micro-cents
+     * @return Dollars as a double (nearest double to the exact amount)
+     */
+    public static double toDouble(long amount) {
+        return amount / (double) SCALE;
+    }
+
+    /**
+     * Rounds a quantity to the precision used in cost calculations
+     * @param quantity Quantity such as hours or grams
+     * @return Quantity in millionths
+     */
+    public static long quantity(double quantity) {
+        if (Double.isNaN(quantity) || Math.abs(quantity) >= Long.MAX_VALUE / (double) QUANTITY_SCALE) {
+            throw new IllegalArgumentException("Quantity out of range: " + quantity);
+        }
+        return Math.round(quantity * QUANTITY_SCALE);
+    }
+
+    // ==================== ARITHMETIC ====================
+
+    /**
+     * Multiplies a price by a quantity, such as a rate per hour by hours
+     * @param amount Price in micro-cents
+     * @param quantity Quantity (rounded to millionths first)
+     * @return Cost in micro-cents
+     */
+    public static long times(long amount, double quantity) {
+        return timesMillionths(amount, quantity(quantity));
+    }
+
+    /**
+     * Multiplies an amount by a number of millionths, such as a percentage in parts per million
+     * @param amount Amount in micro-cents
+     * @param units Factor in millionths (1,000,000 is 1)
+     * @return Result in micro-cents
+     */
+    public static long timesMillionths(long amount, long units) {
+        long product = amount * units;
+        long magnitude = Math.abs(product) + QUANTITY_SCALE / 2;
+        if (Math.multiplyHigh(amount, units) != (product >> 63) || magnitude < 0) {
+            return multiplyDivide(amount, units, QUANTITY_SCALE);
+        }
+        // Round the magnitude half up, dividing with a floating-point estimate that is
+        // off by at most one and then corrected without branches, since the rounding
+        // direction is unpredictable and a long division is slow
+        long result = (long) (magnitude * (1.0 / QUANTITY_SCALE));
+        long remainder = magnitude - result * QUANTITY_SCALE;
+        result += remainder >> 63;                                  // Estimate too high
+        result -= (QUANTITY_SCALE - 1 - remainder) >> 63;           // Estimate too low
+        return product < 0 ? -result : result;
+    }
+
+    /**
+     * Adds two amounts
+     * @param first First amount in micro-cents
+     * @param second Second amount in micro-cents
+     * @return Sum in micro-cents
+     * @throws IllegalArgumentException if the sum does not fit in an amount
+     */
+    public static long add(long first, long second) {
+        long sum = first + second;
+        if (((first ^ sum) & (second ^ sum)) < 0) {
+            throw new IllegalArgumentException("Amount out of range");
+        }
+        return sum;
+    }
+    
+    /**
+     * Divides an amount by a quantity, such as a total cost by grams
+     * @param amount Amount in micro-cents
+     * @param quantity Quantity (rounded to millionths first, must not be 0)
+     * @return Amount per unit in micro-cents
+     */
+    public static long divide(long amount, double quantity) {
+        long units = quantity(quantity);
+        if (units == 0) {
+            throw new IllegalArgumentException("Quantity too small to divide by: " + quantity);
+        }
+        return multiplyDivide(amount, QUANTITY_SCALE, units);
+    }
+
+    /**
+     * Computes value * multiplier / divisor with a single rounding.
+     * Uses long arithmetic unless the product overflows, which only happens
+     * for very large amounts.
+     * @param value First factor
+     * @param multiplier Second factor
+     * @param divisor Divisor (must not be 0)
+     * @return Rounded result
+     * @throws IllegalArgumentException if the result does not fit in a long
+     */
+    public static long multiplyDivide(long value, long multiplier, long divisor) {
+        long product = value * multiplier;
+        if (Math.multiplyHigh(value, multiplier) != (product >> 63)) {
+            try {
+                return BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(multiplier))
+                                 .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                                 .longValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Amount out of range");
+            }
+        }
+        long quotient = product / divisor;
+        long remainder = Math.abs(product % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (product < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    // ==================== FORMATTING ====================
+
+    /**
+     * Formats an amount rounded to a number of decimal places, for display
+     * @param amount Amount in micro-cents
+     * @param decimals Decimal places to show (0 to 8)
+     * @return Formatted amount, e.g. "12.50"
+     */
+    public static String format(long amount, int decimals) {
+        long step = POWERS_OF_TEN[DECIMALS - decimals];
+        long rounded = multiplyDivide(amount, 1, step);
+        return appendFixed(new StringBuilder(24), rounded, decimals, decimals).toString();
+    }
+
+    /**
+     * Appends an amount exactly, with trailing zeros dropped below a minimum
+     * number of decimal places. Used for storage, so reading it back gives
+     * the same amount.
+     * @param sb Builder to append to
+     * @param amount Amount in micro-cents
+     * @param minDecimals Decimal places to always show
+     * @return The builder
+     */
+    public static StringBuilder appendExact(StringBuilder sb, long amount, int minDecimals) {
+        return appendFixed(sb, amount, DECIMALS, minDecimals);
+    }
+
+    /**
+     * Appends a quantity rounded to millionths, with trailing zeros dropped below
+     * a minimum number of decimal places. This is the precision used for costs,
+     * so a stored quantity gives the same costs when it is read back.
+     * @param sb Builder to append to
+     * @param quantity Quantity such as hours or grams
+     * @param minDecimals Decimal places to always show
+     * @return The builder
+     */
+    public static StringBuilder appendQuantity(StringBuilder sb, double quantity, int minDecimals) {
+        return appendFixed(sb, quantity(quantity), QUANTITY_DECIMALS, minDecimals);
+    }
+
+    /**
+     * Appends a fixed-point number in plain decimal notation
+     * @param sb Builder to append to
+     * @param value Number in units of 10^-scale
+     * @param scale Decimal places held by the value
+     * @param minDecimals Decimal places to always show
+     * @return The builder
+     */
+    private static StringBuilder appendFixed(StringBuilder sb, long value, int scale, int minDecimals) {
+        long divisor = POWERS_OF_TEN[scale];
+        long whole = value / divisor;
+        long fraction = Math.abs(value % divisor);
+        if (value < 0 && whole == 0) {
+            sb.append('-');
+        }
+        sb.append(whole);
+
+        // Drop trailing zeros, but keep the minimum number of places
+        int places = scale;
+        while (places > minDecimals && fraction % 10 == 0) {
+            fraction /= 10;
+            places--;
+        }
+        if (places > 0) {
+            sb.append('.');
+            for (long digit = POWERS_OF_TEN[places - 1]; digit > 1 && fraction < digit; digit /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb;
+    }
+}
\ No newline at end of file
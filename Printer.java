@@ -0,0 +1,124 @@
+import java.util.*;
+
+/**
+ * Printer Class
+ * One printer in a print farm: its name, the materials it can print and
+ * the material currently loaded.
+ */
+public class Printer {
+    // Attributes
+    private String name;
+    private String loadedMaterial;              // Name of the loaded material (null if empty)
+    private Set<String> supportedMaterials;     // Material names it can print (empty for any)
+
+    /**
+     * Constructor - Creates a printer that can print any material
+     * @param name Name of the printer
+     * @param loadedMaterial Name of the loaded material, or null if none is loaded
+     */
+    public Printer(String name, String loadedMaterial) {
+        this(name, loadedMaterial, Collections.emptySet());
+    }
+
+    /**
+     * Constructor - Creates a printer limited to some materials
+     * @param name Name of the printer
+     * @param loadedMaterial Name of the loaded material, or null if none is loaded
+     * @param supportedMaterials Names of the materials it can print (empty for any)
+     */
+    public Printer(String name, String loadedMaterial, Collection<String> supportedMaterials) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Printer name is required");
+        }
+        this.name = name;
+        this.loadedMaterial = loadedMaterial;
+        this.supportedMaterials = new TreeSet<>(supportedMaterials);
+        if (loadedMaterial != null && !canPrint(loadedMaterial)) {
+            throw new IllegalArgumentException("Printer " + name + " cannot print its loaded material "
+                                               + loadedMaterial);
+        }
+    }
+
+    /**
+     * Gets the name of the printer
+     * @return Printer name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the loaded material
+     * @return Material name, or null if none is loaded
+     */
+    public String getLoadedMaterial() {
+        return loadedMaterial;
+    }
+
+    /**
+     * Sets the loaded material
+     * @param loadedMaterial Material name, or null if none is loaded
+     */
+    public void setLoadedMaterial(String loadedMaterial) {
+        this.loadedMaterial = loadedMaterial;
+    }
+
+    /**
+     * Gets the materials the printer is limited to
+     * @return Material names, or an empty set if it can print any material
+     */
+    public Set<String> getSupportedMaterials() {
+        return Collections.unmodifiableSet(supportedMaterials);
+    }
+
+    /**
+     * Checks whether the printer can print any material
+     * @return True if it is not limited to some materials
+     */
+    public boolean printsAnyMaterial() {
+        return supportedMaterials.isEmpty();
+    }
+
+    /**
+     * Checks whether the printer can print a material
+     * @param materialName Material name
+     * @return True if the material is supported
+     */
+    public boolean canPrint(String materialName) {
+        return supportedMaterials.isEmpty() || supportedMaterials.contains(materialName);
+    }
+
+    /**
+     * Creates a printer from a text description
+     * @param spec Description in format: name[:loadedMaterial[:material+material...]]
+     * @return Printer object
+     */
+    public static Printer parse(String spec) {
+        String[] parts = spec.split(":", -1);
+        if (parts.length > 3 || parts[0].trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid printer: " + spec
+                                               + " (use name[:loadedMaterial[:material+material...]])");
+        }
+        String loaded = parts.length > 1 && !parts[1].trim().isEmpty() ? parts[1].trim() : null;
+        List<String> supported = new ArrayList<>();
+        if (parts.length > 2) {
+            for (String material : parts[2].split("\\+")) {
+                if (!material.trim().isEmpty()) {
+                    supported.add(material.trim());
+                }
+            }
+        }
+        return new Printer(parts[0].trim(), loaded, supported);
+    }
+
+    /**
+     * String representation for display purposes
+     * @return Formatted string with printer information
+     */
+    @Override
+    public String toString() {
+        return String.format("Printer: %s | Loaded: %s | Materials: %s", name,
+                             loadedMaterial == null ? "none" : loadedMaterial,
+                             supportedMaterials.isEmpty() ? "any" : String.join(", ", supportedMaterials));
+    }
+}
\ No newline at end of file
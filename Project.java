@@ -9,10 +9,10 @@ public class Project {
     private double designTime;      // Hours spent on design
     private double printTime;       // Hours spent printing
     private double materialUsed;    // Grams of material used
-    private Material materialType;  // Type of material used
-    private double hourlyRate;      // Cost per hour of design work
-    private double printRate;       // Cost per hour of printer operation
-    private double totalCost;       // Calculated total cost
+    private volatile Material materialType; // Type of material used (volatile: repriced while shared)
+    private long hourlyRate;        // Cost per hour of design work (Money micro-cents)
+    private long printRate;         // Cost per hour of printer operation (Money micro-cents)
+    private volatile long totalCost; // Calculated total cost (Money micro-cents)
     
     /**
      * Constructor - Creates a new project with all necessary parameters
@@ -32,9 +32,9 @@ public class Project {
         this.printTime = printTime;
         this.materialUsed = materialUsed;
         this.materialType = materialType;
-        this.hourlyRate = hourlyRate;
-        this.printRate = printRate;
-        this.totalCost = calculateCost();
+        this.hourlyRate = Money.of(hourlyRate);
+        this.printRate = Money.of(printRate);
+        this.totalCost = calculateCostMicros();
     }
     
     /**
@@ -43,10 +43,18 @@ public class Project {
      * @return Total project cost
      */
     public double calculateCost() {
-        double designCost = calculateDesignCost();
-        double printCost = calculatePrintCost();
-        double materialCost = calculateMaterialCost();
-        totalCost = designCost + printCost + materialCost;
+        return Money.toDouble(calculateCostMicros());
+    }
+    
+    /**
+     * Calculates the exact total cost of the project
+     * Each part is rounded to a micro-cent and the parts are added exactly
+     * @return Total project cost in Money micro-cents
+     */
+    public long calculateCostMicros() {
+        totalCost = Money.add(Money.add(Money.times(hourlyRate, designTime),
+                                        Money.times(printRate, printTime)),
+                              Money.times(materialType.getCostPerGramMicros(), materialUsed));
         return totalCost;
     }
     
@@ -55,7 +63,7 @@ public class Project {
      * @return Design cost (design time * hourly rate)
      */
     public double calculateDesignCost() {
-        return designTime * hourlyRate;
+        return Money.toDouble(Money.times(hourlyRate, designTime));
     }
     
     /**
@@ -63,7 +71,7 @@ public class Project {
      * @return Print cost (print time * print rate)
      */
     public double calculatePrintCost() {
-        return printTime * printRate;
+        return Money.toDouble(Money.times(printRate, printTime));
     }
     
     /**
@@ -71,7 +79,7 @@ public class Project {
      * @return Material cost (material used * cost per gram)
      */
     public double calculateMaterialCost() {
-        return materialUsed * materialType.getCostPerGram();
+        return Money.toDouble(Money.times(materialType.getCostPerGramMicros(), materialUsed));
     }
     
     /**
@@ -87,6 +95,14 @@ public class Project {
      * @return Total project cost
      */
     public double getTotalCost() {
+        return Money.toDouble(totalCost);
+    }
+    
+    /**
+     * Gets the exact total cost
+     * @return Total project cost in Money micro-cents
+     */
+    public long getTotalCostMicros() {
         return totalCost;
     }
     
@@ -127,6 +143,14 @@ public class Project {
      * @return Designer's hourly rate
      */
     public double getHourlyRate() {
+        return Money.toDouble(hourlyRate);
+    }
+    
+    /**
+     * Gets the exact hourly rate
+     * @return Designer's hourly rate in Money micro-cents
+     */
+    public long getHourlyRateMicros() {
         return hourlyRate;
     }
     
@@ -135,6 +159,14 @@ public class Project {
      * @return Printer operation cost per hour
      */
     public double getPrintRate() {
+        return Money.toDouble(printRate);
+    }
+    
+    /**
+     * Gets the exact print rate
+     * @return Printer operation cost per hour in Money micro-cents
+     */
+    public long getPrintRateMicros() {
         return printRate;
     }
     
@@ -152,7 +184,7 @@ public class Project {
      */
     public void setDesignTime(double designTime) {
         this.designTime = designTime;
-        calculateCost();
+        calculateCostMicros();
     }
     
     /**
@@ -161,7 +193,7 @@ public class Project {
      */
     public void setPrintTime(double printTime) {
         this.printTime = printTime;
-        calculateCost();
+        calculateCostMicros();
     }
     
     /**
@@ -170,17 +202,42 @@ public class Project {
      */
     public void setMaterialUsed(double materialUsed) {
         this.materialUsed = materialUsed;
-        calculateCost();
+        calculateCostMicros();
+    }
+    
+    /**
+     * Sets the material type and recalculates cost
+     * @param materialType New Material object
+     */
+    public void setMaterialType(Material materialType) {
+        this.materialType = materialType;
+        calculateCostMicros();
     }
     
     /**
      * Converts project to database string format
+     * The total cost is stored for people reading the file; it is recalculated
+     * from the material when the record is loaded.
      * @return String representation for database storage
      */
     public String toDatabaseString() {
-        return String.format("%s|%.2f|%.2f|%.2f|%s|%.2f|%.2f|%.2f",
-                           projectName, designTime, printTime, materialUsed,
-                           materialType.getName(), hourlyRate, printRate, totalCost);
+        StringBuilder sb = new StringBuilder(projectName.length() + 64).append(projectName).append('|');
+        Money.appendQuantity(sb, designTime, 2).append('|');
+        Money.appendQuantity(sb, printTime, 2).append('|');
+        Money.appendQuantity(sb, materialUsed, 2).append('|');
+        sb.append(materialType.getName()).append('|');
+        Money.appendExact(sb, hourlyRate, 2).append('|');
+        Money.appendExact(sb, printRate, 2).append('|');
+        return Money.appendExact(sb, totalCost, 2).toString();
+    }
+    
+    /**
+     * Converts project to a string for the write-ahead log
+     * Database strings are already exact, so this is the same format
+     * @return String representation for log storage
+     */
+    public String toLogString() {
+        return toDatabaseString();
     }
     
     /**
@@ -191,21 +248,53 @@ public class Project {
      * @return Project object
      */
     public static Project fromDatabaseString(String dbString, Material material) {
-        String[] parts = dbString.split("\\|");
-        if (parts.length != 8) {
+        return fromRecord(new RecordCodec().reset(dbString), material);
+    }
+    
+    /**
+     * Creates a Project object from a record already split by a RecordCodec
+     * Requires a Material object to be passed in (looked up by name)
+     * @param record Codec positioned on a project database record
+     * @param material Material object for this project
+     * @return Project object
+     */
+    public static Project fromRecord(RecordCodec record, Material material) {
+        if (record.fieldCount() != 8) {
             throw new IllegalArgumentException("Invalid database string format");
         }
         
-        String projectName = parts[0];
-        double designTime = Double.parseDouble(parts[1]);
-        double printTime = Double.parseDouble(parts[2]);
-        double materialUsed = Double.parseDouble(parts[3]);
-        // parts[4] is material name - already have the Material object
-        double hourlyRate = Double.parseDouble(parts[5]);
-        double printRate = Double.parseDouble(parts[6]);
+        String projectName = record.getString(0);
+        double designTime = record.getDouble(1);
+        double printTime = record.getDouble(2);
+        double materialUsed = record.getDouble(3);
+        // field 4 is material name - already have the Material object
+        long hourlyRate = record.getFixed(5, Money.DECIMALS);
+        long printRate = record.getFixed(6, Money.DECIMALS);
         
-        return new Project(projectName, designTime, printTime, materialUsed,
-                         material, hourlyRate, printRate);
+        return ofRates(projectName, designTime, printTime, materialUsed,
+                       material, hourlyRate, printRate);
+    }
+    
+    /**
+     * Creates a project with exact rates
+     * @param projectName Name of the project
+     * @param designTime Hours spent on design
+     * @param printTime Hours spent printing
+     * @param materialUsed Grams of material used
+     * @param materialType Material object representing the filament used
+     * @param hourlyRate Designer's hourly rate in Money micro-cents
+     * @param printRate Printer operation cost per hour in Money micro-cents
+     * @return Project object
+     */
+    public static Project ofRates(String projectName, double designTime, double printTime,
+                                  double materialUsed, Material materialType,
+                                  long hourlyRate, long printRate) {
+        Project project = new Project(projectName, designTime, printTime, materialUsed,
+                                      materialType, 0, 0);
+        project.hourlyRate = hourlyRate;
+        project.printRate = printRate;
+        project.calculateCostMicros();
+        return project;
     }
     
     /**
@@ -218,15 +307,18 @@ public class Project {
         sb.append("=====================================\n");
         sb.append("PROJECT: ").append(projectName).append("\n");
         sb.append("=====================================\n");
-        sb.append(String.format("Design Time: %.2f hours @ $%.2f/hr = $%.2f\n", 
-                  designTime, hourlyRate, calculateDesignCost()));
-        sb.append(String.format("Print Time: %.2f hours @ $%.2f/hr = $%.2f\n", 
-                  printTime, printRate, calculatePrintCost()));
-        sb.append(String.format("Material: %.2fg of %s @ $%.4f/g = $%.2f\n", 
+        sb.append(String.format("Design Time: %.2f hours @ $%s/hr = $%s\n", 
+                  designTime, Money.format(hourlyRate, 2), 
+                  Money.format(Money.times(hourlyRate, designTime), 2)));
+        sb.append(String.format("Print Time: %.2f hours @ $%s/hr = $%s\n", 
+                  printTime, Money.format(printRate, 2), 
+                  Money.format(Money.times(printRate, printTime), 2)));
+        sb.append(String.format("Material: %.2fg of %s @ $%s/g = $%s\n", 
                   materialUsed, materialType.getName(), 
-                  materialType.getCostPerGram(), calculateMaterialCost()));
+                  Money.format(materialType.getCostPerGramMicros(), 4), 
+                  Money.format(Money.times(materialType.getCostPerGramMicros(), materialUsed), 2)));
         sb.append("-------------------------------------\n");
-        sb.append(String.format("TOTAL COST: $%.2f\n", totalCost));
+        sb.append("TOTAL COST: $").append(Money.format(totalCost, 2)).append("\n");
         sb.append("=====================================");
         return sb.toString();
     }
@@ -236,6 +328,6 @@ public class Project {
      * @return Simple project summary
      */
     public String toSimpleString() {
-        return String.format("%s: $%.2f", projectName, totalCost);
+        return projectName + ": $" + Money.format(totalCost, 2);
     }
 }
\ No newline at end of file
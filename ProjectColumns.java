@@ -0,0 +1,385 @@
+import java.util.*;
+
+/**
+ * ProjectColumns Class
+ * Column-oriented copy of project data for aggregate reporting.
+ * Each numeric project field is kept in its own primitive array, and the
+ * material of each row is stored as an integer id, so totals and averages
+ * are computed with straight loops over contiguous memory.
+ */
+public class ProjectColumns {
+    /**
+     * Numeric project fields that can be scanned and aggregated
+     */
+    public enum Column {
+        DESIGN_TIME, PRINT_TIME, MATERIAL_USED, HOURLY_RATE, PRINT_RATE, TOTAL_COST
+    }
+
+    // Attributes
+    private String[] projectNames;                  // Project name of each row
+    private double[] designTime;                    // Hours spent on design
+    private double[] printTime;                     // Hours spent printing
+    private double[] materialUsed;                  // Grams of material used
+    private double[] hourlyRate;                    // Designer's hourly rate
+    private double[] printRate;                     // Printer operation cost per hour
+    private double[] totalCost;                     // Calculated total cost
+    private int[] materialIds;                      // Material id of each row
+    private List<String> materialNames;             // Material name of each id
+    private Map<String, Integer> materialIdsByName; // Material id of each name
+    private int size;                               // Number of rows in use
+
+    /**
+     * Constructor - Creates an empty column store
+     * @param initialCapacity Number of rows to allocate up front
+     */
+    public ProjectColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.projectNames = new String[capacity];
+        this.designTime = new double[capacity];
+        this.printTime = new double[capacity];
+        this.materialUsed = new double[capacity];
+        this.hourlyRate = new double[capacity];
+        this.printRate = new double[capacity];
+        this.totalCost = new double[capacity];
+        this.materialIds = new int[capacity];
+        this.materialNames = new ArrayList<>();
+        this.materialIdsByName = new HashMap<>();
+        this.size = 0;
+    }
+
+    /**
+     * Builds a column store from a collection of projects
+     * @param projects Projects to copy
+     * @return Column store with one row per project
+     */
+    public static ProjectColumns from(Collection<Project> projects) {
+        ProjectColumns columns = new ProjectColumns(projects.size());
+        for (Project project : projects) {
+            columns.add(project);
+        }
+        return columns;
+    }
+
+    /**
+     * Appends a project as a new row
+     * @param project Project to copy
+     * @return Row number of the new row
+     */
+    public int add(Project project) {
+        if (size == projectNames.length) {
+            grow();
+        }
+        String materialName = project.getMaterialType().getName();
+        Integer materialId = materialIdsByName.get(materialName);
+        if (materialId == null) {
+            materialId = materialNames.size();
+            materialNames.add(materialName);
+            materialIdsByName.put(materialName, materialId);
+        }
+
+        int row = size++;
+        projectNames[row] = project.getProjectName();
+        designTime[row] = project.getDesignTime();
+        printTime[row] = project.getPrintTime();
+        materialUsed[row] = project.getMaterialUsed();
+        hourlyRate[row] = project.getHourlyRate();
+        printRate[row] = project.getPrintRate();
+        totalCost[row] = project.getTotalCost();
+        materialIds[row] = materialId;
+        return row;
+    }
+
+    /**
+     * Doubles the capacity of every column
+     */
+    private void grow() {
+        int capacity = projectNames.length * 2;
+        projectNames = Arrays.copyOf(projectNames, capacity);
+        designTime = Arrays.copyOf(designTime, capacity);
+        printTime = Arrays.copyOf(printTime, capacity);
+        materialUsed = Arrays.copyOf(materialUsed, capacity);
+        hourlyRate = Arrays.copyOf(hourlyRate, capacity);
+        printRate = Arrays.copyOf(printRate, capacity);
+        totalCost = Arrays.copyOf(totalCost, capacity);
+        materialIds = Arrays.copyOf(materialIds, capacity);
+    }
+
+    /**
+     * Gets the backing array of a column
+     * @param column Column to get
+     * @return Backing array (only the first size() entries are in use)
+     */
+    private double[] values(Column column) {
+        switch (column) {
+            case DESIGN_TIME:
+                return designTime;
+            case PRINT_TIME:
+                return printTime;
+            case MATERIAL_USED:
+                return materialUsed;
+            case HOURLY_RATE:
+                return hourlyRate;
+            case PRINT_RATE:
+                return printRate;
+            default:
+                return totalCost;
+        }
+    }
+
+    // ==================== ROW ACCESS ====================
+
+    /**
+     * Gets the number of rows
+     * @return Number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a single value
+     * @param column Column to read
+     * @param row Row number
+     * @return Value stored in that row
+     */
+    public double get(Column column, int row) {
+        checkRow(row);
+        return values(column)[row];
+    }
+
+    /**
+     * Gets the project name of a row
+     * @param row Row number
+     * @return Project name
+     */
+    public String getProjectName(int row) {
+        checkRow(row);
+        return projectNames[row];
+    }
+
+    /**
+     * Gets the material id of a row
+     * @param row Row number
+     * @return Material id
+     */
+    public int getMaterialId(int row) {
+        checkRow(row);
+        return materialIds[row];
+    }
+
+    /**
+     * Gets the number of distinct materials
+     * @return Number of material ids
+     */
+    public int getMaterialCount() {
+        return materialNames.size();
+    }
+
+    /**
+     * Gets the material name for a material id
+     * @param materialId Material id
+     * @return Material name
+     */
+    public String getMaterialName(int materialId) {
+        return materialNames.get(materialId);
+    }
+
+    /**
+     * Gets the material id for a material name
+     * @param materialName Material name
+     * @return Material id, or -1 if no row uses that material
+     */
+    public int getMaterialId(String materialName) {
+        Integer materialId = materialIdsByName.get(materialName);
+        return materialId == null ? -1 : materialId;
+    }
+
+    /**
+     * Validates a row number
+     * @param row Row number
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for " + size + " rows");
+        }
+    }
+
+    // ==================== AGGREGATES ====================
+
+    /**
+     * Sums a column
+     * @param column Column to sum
+     * @return Sum of all rows
+     */
+    public double sum(Column column) {
+        double[] values = values(column);
+        // Four independent accumulators keep the loop from waiting on each addition
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < size; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Averages a column
+     * @param column Column to average
+     * @return Average of all rows, or 0 if there are no rows
+     */
+    public double average(Column column) {
+        return size == 0 ? 0 : sum(column) / size;
+    }
+
+    /**
+     * Finds the smallest value in a column
+     * @param column Column to scan
+     * @return Smallest value, or NaN if there are no rows
+     */
+    public double min(Column column) {
+        double[] values = values(column);
+        double min = size == 0 ? Double.NaN : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Finds the largest value in a column
+     * @param column Column to scan
+     * @return Largest value, or NaN if there are no rows
+     */
+    public double max(Column column) {
+        double[] values = values(column);
+        double max = size == 0 ? Double.NaN : Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Sums the product of two columns row by row
+     * For example DESIGN_TIME x HOURLY_RATE gives total design revenue
+     * @param first First column
+     * @param second Second column
+     * @return Sum of first[row] * second[row]
+     */
+    public double sumProduct(Column first, Column second) {
+        double[] a = values(first);
+        double[] b = values(second);
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the rows whose value falls in a range
+     * @param column Column to test
+     * @param low Lowest value to count (inclusive)
+     * @param high Highest value to count (inclusive)
+     * @return Number of matching rows
+     */
+    public int count(Column column, double low, double high) {
+        double[] values = values(column);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            double value = values[i];
+            if (value >= low && value <= high) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums one column over the rows where another column falls in a range
+     * @param sumColumn Column to sum
+     * @param filterColumn Column to test
+     * @param low Lowest filter value (inclusive)
+     * @param high Highest filter value (inclusive)
+     * @return Sum over matching rows
+     */
+    public double sumWhere(Column sumColumn, Column filterColumn, double low, double high) {
+        double[] values = values(sumColumn);
+        double[] filter = values(filterColumn);
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            double value = filter[i];
+            if (value >= low && value <= high) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the rows whose value falls in a range
+     * @param column Column to test
+     * @param low Lowest value to select (inclusive)
+     * @param high Highest value to select (inclusive)
+     * @return Row numbers of matching rows, in row order
+     */
+    public int[] select(Column column, double low, double high) {
+        double[] values = values(column);
+        int[] rows = new int[count(column, low, high)];
+        int next = 0;
+        for (int i = 0; i < size && next < rows.length; i++) {
+            double value = values[i];
+            if (value >= low && value <= high) {
+                rows[next++] = i;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sums a column per material
+     * @param column Column to sum
+     * @return Array of sums indexed by material id
+     */
+    public double[] sumByMaterial(Column column) {
+        double[] values = values(column);
+        double[] sums = new double[materialNames.size()];
+        for (int i = 0; i < size; i++) {
+            sums[materialIds[i]] += values[i];
+        }
+        return sums;
+    }
+
+    /**
+     * Counts rows per material
+     * @return Array of row counts indexed by material id
+     */
+    public int[] countByMaterial() {
+        int[] counts = new int[materialNames.size()];
+        for (int i = 0; i < size; i++) {
+            counts[materialIds[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Sums a column per material, keyed by material name
+     * For example TOTAL_COST gives revenue by material
+     * @param column Column to sum
+     * @return Map of material name to sum
+     */
+    public Map<String, Double> totalsByMaterial(Column column) {
+        double[] sums = sumByMaterial(column);
+        Map<String, Double> totals = new HashMap<>();
+        for (int id = 0; id < sums.length; id++) {
+            totals.put(materialNames.get(id), sums[id]);
+        }
+        return totals;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,23 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 
 /**
  * ProjectDB Class
@@ -8,11 +25,25 @@ import java.util.Map;
  * Provides CRUD operations and file-based persistence.
  */
 public class ProjectDB {
+    // Chunk size limits for parallel loading
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final long MAX_CHUNK_BYTES = 1 << 26;
+    
     // Attributes
     private Map<String, Project> projects;           // Dictionary of projects (key: project name)
     private Map<String, Material> materials;         // Dictionary of materials (key: material name)
+    private Map<String, Set<Project>> projectsByMaterial; // Projects using each material (key: material name)
+    private Map<ProjectIndex.Field, ProjectIndex> indexes; // Sorted indexes of projects by field
     private String projectDatabaseFile;              // Path to projects database file
     private String materialDatabaseFile;             // Path to materials database file
+    private DatabaseOptions options;                 // Storage settings
+    private WriteAheadLog log;                       // Change log (null unless enabled in options)
+    private GroupCommitWriter logWriter;             // Background log writer (null unless async commit is enabled)
+    private int logRecords;                          // Log records written since the last checkpoint
+    private BinarySnapshot snapshot;                 // Mapped snapshot with records not yet decoded
+    private BitSet resolved;                         // Snapshot records already decoded or removed
+    private RecordCodec codec;                       // Reused record reader for loading
+    private Material lastMaterial;                   // Material of the last project record loaded
     
     /**
      * Constructor - Initializes the database with file paths
@@ -20,14 +51,51 @@ public class ProjectDB {
      * @param materialDatabaseFile Path to materials database file
      */
     public ProjectDB(String projectDatabaseFile, String materialDatabaseFile) {
+        this(projectDatabaseFile, materialDatabaseFile, new DatabaseOptions());
+    }
+    
+    /**
+     * Constructor - Initializes the database with file paths and storage options
+     * When the write-ahead log is enabled, the log file is the projects database
+     * file name with ".log" appended, and it is replayed after the files are loaded.
+     * When the binary snapshot is enabled, the snapshot file is the projects database
+     * file name with ".bin" appended; it is used instead of the text files once it exists.
+     * @param projectDatabaseFile Path to projects database file
+     * @param materialDatabaseFile Path to materials database file
+     * @param options Storage settings
+     */
+    public ProjectDB(String projectDatabaseFile, String materialDatabaseFile, DatabaseOptions options) {
         this.projects = new HashMap<>();
         this.materials = new HashMap<>();
+        this.projectsByMaterial = new HashMap<>();
+        this.indexes = new EnumMap<>(ProjectIndex.Field.class);
+        for (ProjectIndex.Field field : ProjectIndex.Field.values()) {
+            indexes.put(field, new ProjectIndex(field));
+        }
         this.projectDatabaseFile = projectDatabaseFile;
         this.materialDatabaseFile = materialDatabaseFile;
+        this.options = options;
+        this.codec = new RecordCodec();
         
         // Load existing data from files
-        loadMaterials();
-        loadProjects();
+        if (!options.isBinarySnapshot() || !openSnapshot()) {
+            loadMaterials();
+            loadProjects();
+        }
+        
+        // Apply changes made since the last checkpoint
+        if (options.isWriteAheadLog() || options.getFlushPolicy() != null) {
+            log = new WriteAheadLog(projectDatabaseFile + ".log");
+            log.setForceWrites(options.getSyncPolicy() == DatabaseOptions.SyncPolicy.EVERY_WRITE);
+            try {
+                logRecords = log.recover(this::applyLogRecord);
+            } catch (IOException e) {
+                System.err.println("Error repairing log: " + e.getMessage());
+            }
+            if (options.getFlushPolicy() != null) {
+                logWriter = new GroupCommitWriter(log, options.getFlushPolicy());
+            }
+        }
     }
     
     /**
@@ -43,13 +111,15 @@ public class ProjectDB {
      * Adds a new material to the database
      * @param material Material object to add
      * @return true if successful, false if material already exists
+     * @throws IllegalArgumentException if the name cannot be stored
      */
     public boolean addMaterial(Material material) {
+        RecordCodec.checkName("Material", material.getName());
         if (materials.containsKey(material.getName())) {
             return false; // Material already exists
         }
         materials.put(material.getName(), material);
-        saveMaterials();
+        persistMaterials(WriteAheadLog.ADD_MATERIAL, material.toLogString());
         return true;
     }
     
@@ -72,12 +142,15 @@ public class ProjectDB {
             return false;
         }
         materials.remove(materialName);
-        saveMaterials();
+        persistMaterials(WriteAheadLog.DELETE_MATERIAL, materialName);
         return true;
     }
     
     /**
      * Updates an existing material's cost information
+     * Only projects already in memory are repriced. The projects file is not
+     * rewritten, since a project's total is recalculated from its material
+     * whenever it is loaded.
      * @param materialName Name of material to update
      * @param newTotalCost New total cost paid
      * @param newTotalVolume New total volume purchased
@@ -89,10 +162,36 @@ public class ProjectDB {
             return false;
         }
         material.updateCost(newTotalCost, newTotalVolume);
-        saveMaterials();
+        
+        // Projects cache their total, so the ones using this material are recalculated
+        repriceProjects(material);
+        persistMaterials(WriteAheadLog.UPDATE_MATERIAL, 
+                         materialName + "|" + newTotalCost + "|" + newTotalVolume);
         return true;
     }
     
+    /**
+     * Recalculates the cost of every project that uses a material
+     * Only the projects in the material's index entry are touched. Projects
+     * still in the binary snapshot share the Material object, so they get the
+     * new cost when they are decoded.
+     * @param material Material whose cost changed
+     */
+    private void repriceProjects(Material material) {
+        Set<Project> affected = projectsByMaterial.get(material.getName());
+        if (affected == null) {
+            return;
+        }
+        for (Project project : affected) {
+            if (project.getMaterialType() != material) {
+                project.setMaterialType(material);
+            } else {
+                project.calculateCostMicros();
+            }
+            indexes.get(ProjectIndex.Field.TOTAL_COST).add(project);
+        }
+    }
+    
     /**
      * Gets all materials in the database
      * @return Map of all materials
@@ -124,13 +223,16 @@ public class ProjectDB {
      * Adds a new project to the database
      * @param project Project object to save
      * @return true if successful, false if project already exists
+     * @throws IllegalArgumentException if the name cannot be stored
      */
     public boolean addProject(Project project) {
+        RecordCodec.checkName("Project", project.getProjectName());
+        resolve(project.getProjectName());
         if (projects.containsKey(project.getProjectName())) {
             return false; // Project already exists
         }
-        projects.put(project.getProjectName(), project);
-        saveProjects();
+        putProject(project);
+        persistProjects(WriteAheadLog.ADD_PROJECT, project.toLogString());
         return true;
     }
     
@@ -140,6 +242,7 @@ public class ProjectDB {
      * @return Project object or null if not found
      */
     public Project getProject(String projectName) {
+        resolve(projectName);
         return projects.get(projectName);
     }
     
@@ -149,11 +252,12 @@ public class ProjectDB {
      * @return true if successful, false if project doesn't exist
      */
     public boolean deleteProject(String projectName) {
+        resolve(projectName);
         if (!projects.containsKey(projectName)) {
             return false;
         }
-        projects.remove(projectName);
-        saveProjects();
+        removeProject(projectName);
+        persistProjects(WriteAheadLog.DELETE_PROJECT, projectName);
         return true;
     }
     
@@ -162,14 +266,18 @@ public class ProjectDB {
      * @param projectName Name of project to update
      * @param updatedProject Updated Project object
      * @return true if successful, false if project doesn't exist
+     * @throws IllegalArgumentException if the new name cannot be stored
      */
     public boolean updateProject(String projectName, Project updatedProject) {
+        RecordCodec.checkName("Project", updatedProject.getProjectName());
+        resolve(projectName);
+        resolve(updatedProject.getProjectName());
         if (!projects.containsKey(projectName)) {
             return false;
         }
-        projects.remove(projectName);
-        projects.put(updatedProject.getProjectName(), updatedProject);
-        saveProjects();
+        removeProject(projectName);
+        putProject(updatedProject);
+        persistProjects(WriteAheadLog.UPDATE_PROJECT, projectName + "|" + updatedProject.toLogString());
         return true;
     }
     
@@ -178,14 +286,101 @@ public class ProjectDB {
      * @return Map of all projects
      */
     public Map<String, Project> getAllProjects() {
+        resolveAll();
         return new HashMap<>(projects);
     }
     
+    /**
+     * Gets the projects that use a material
+     * @param materialName Name of the material
+     * @return List of projects using that material (empty if none)
+     */
+    public List<Project> getProjectsUsingMaterial(String materialName) {
+        resolveAll();
+        Set<Project> using = projectsByMaterial.get(materialName);
+        return using == null ? new ArrayList<>() : new ArrayList<>(using);
+    }
+    
+    /**
+     * Counts the projects that use a material
+     * @param materialName Name of the material
+     * @return Number of projects using that material
+     */
+    public int countProjectsUsingMaterial(String materialName) {
+        resolveAll();
+        Set<Project> using = projectsByMaterial.get(materialName);
+        return using == null ? 0 : using.size();
+    }
+    
+    // ==================== PROJECT QUERIES ====================
+    // Projects changed through their setters must be saved with updateProject
+    // so that the indexes see the new values.
+    
+    /**
+     * Finds the projects whose field value falls in a range
+     * For example TOTAL_COST between 50 and 200
+     * @param field Indexed field to search
+     * @param low Lowest value (inclusive)
+     * @param high Highest value (inclusive)
+     * @return Matching projects in ascending order of the field
+     */
+    public List<Project> findProjectsInRange(ProjectIndex.Field field, double low, double high) {
+        resolveAll();
+        return indexes.get(field).range(low, high);
+    }
+    
+    /**
+     * Counts the projects whose field value falls in a range
+     * @param field Indexed field to search
+     * @param low Lowest value (inclusive)
+     * @param high Highest value (inclusive)
+     * @return Number of matching projects
+     */
+    public int countProjectsInRange(ProjectIndex.Field field, double low, double high) {
+        resolveAll();
+        return indexes.get(field).count(low, high);
+    }
+    
+    /**
+     * Finds the projects with the largest field values
+     * For example the 10 most expensive projects
+     * @param field Indexed field to rank by
+     * @param k Maximum number of projects to return
+     * @return Up to k projects in descending order of the field
+     */
+    public List<Project> findTopProjects(ProjectIndex.Field field, int k) {
+        resolveAll();
+        return indexes.get(field).top(k);
+    }
+    
+    /**
+     * Copies all projects into a column store for aggregate reporting
+     * The copy does not change when the database changes
+     * @return Column store with one row per project
+     */
+    public ProjectColumns buildColumns() {
+        resolveAll();
+        return ProjectColumns.from(projects.values());
+    }
+    
+    /**
+     * Works out what total revenue would be for a grid of candidate rates
+     * Stored projects are not changed.
+     * @param hourlyRates Candidate hourly design rates
+     * @param printRates Candidate print rates per hour
+     * @return Revenue tables over the grid
+     */
+    public RateSweep.Table sweepRates(double[] hourlyRates, double[] printRates) {
+        resolveAll();
+        return new RateSweep(projects.values()).sweep(hourlyRates, printRates);
+    }
+    
     /**
      * Lists all projects with their basic information
      * @return Formatted string of all projects
      */
     public String listProjects() {
+        resolveAll();
         if (projects.isEmpty()) {
             return "No projects in database.";
         }
@@ -198,17 +393,474 @@ public class ProjectDB {
         return sb.toString();
     }
     
+    /**
+     * Adds a project to the projects map, the material index and the sorted indexes
+     * Replaces any project with the same name
+     * @param project Project to add
+     */
+    private void putProject(Project project) {
+        Project previous = projects.put(project.getProjectName(), project);
+        if (previous != null) {
+            unindexProject(previous);
+        }
+        projectsByMaterial.computeIfAbsent(project.getMaterialType().getName(), name -> new HashSet<>())
+                          .add(project);
+        for (ProjectIndex index : indexes.values()) {
+            index.add(project);
+        }
+    }
+    
+    /**
+     * Removes a project from the projects map, the material index and the sorted indexes
+     * @param projectName Name of the project
+     */
+    private void removeProject(String projectName) {
+        Project removed = projects.remove(projectName);
+        if (removed != null) {
+            unindexProject(removed);
+        }
+    }
+    
+    /**
+     * Removes a project from the material index and the sorted indexes
+     * @param project Project to remove
+     */
+    private void unindexProject(Project project) {
+        for (ProjectIndex index : indexes.values()) {
+            index.remove(project);
+        }
+        String materialName = project.getMaterialType().getName();
+        Set<Project> using = projectsByMaterial.get(materialName);
+        if (using != null) {
+            using.remove(project);
+            if (using.isEmpty()) {
+                projectsByMaterial.remove(materialName);
+            }
+        }
+    }
+    
+    // ==================== BULK OPERATIONS ====================
+    
+    /**
+     * Result of a bulk import
+     * Records how many rows were added and why any rows were rejected
+     */
+    public static class ImportResult {
+        private int materialsImported;   // Materials added to the database
+        private int projectsImported;    // Projects added to the database
+        private List<String> failures;   // One message per rejected row
+        
+        private ImportResult() {
+            this.failures = new ArrayList<>();
+        }
+        
+        /**
+         * Gets the number of materials added
+         * @return Number of materials imported
+         */
+        public int getMaterialsImported() {
+            return materialsImported;
+        }
+        
+        /**
+         * Gets the number of projects added
+         * @return Number of projects imported
+         */
+        public int getProjectsImported() {
+            return projectsImported;
+        }
+        
+        /**
+         * Gets the messages for rejected rows
+         * @return List of failure messages, in row order
+         */
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+        
+        /**
+         * Checks whether every row was imported
+         * @return true if no rows were rejected
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Imported %d materials and %d projects (%d rows rejected)",
+                               materialsImported, projectsImported, failures.size());
+        }
+    }
+    
+    /**
+     * Adds many materials and projects, then saves the database once.
+     * Rows that duplicate an existing name (in the database or earlier in the
+     * import), or projects whose material is not in the database, are rejected
+     * and reported; the remaining rows are still imported.
+     * Materials are imported first, so projects may use materials from the same import.
+     * @param newMaterials Materials to add
+     * @param newProjects Projects to add
+     * @return Counts of imported rows and a message for each rejected row
+     */
+    public ImportResult importRecords(Iterable<Material> newMaterials, Iterable<Project> newProjects) {
+        ImportResult result = new ImportResult();
+        
+        int row = 0;
+        for (Material material : newMaterials) {
+            row++;
+            if (material == null) {
+                result.failures.add("Material row " + row + ": Missing material");
+            } else if (!isStorableName(material.getName())) {
+                result.failures.add("Material row " + row + ": Material name cannot contain '|' or line breaks");
+            } else if (materials.containsKey(material.getName())) {
+                result.failures.add("Material row " + row + ": Material '" + material.getName() 
+                                  + "' already exists");
+            } else {
+                materials.put(material.getName(), material);
+                result.materialsImported++;
+            }
+        }
+        
+        row = 0;
+        for (Project project : newProjects) {
+            row++;
+            if (project == null) {
+                result.failures.add("Project row " + row + ": Missing project");
+                continue;
+            }
+            String projectName = project.getProjectName();
+            if (!isStorableName(projectName)) {
+                result.failures.add("Project row " + row + ": Project name cannot contain '|' or line breaks");
+                continue;
+            }
+            resolve(projectName);
+            if (projects.containsKey(projectName)) {
+                result.failures.add("Project row " + row + ": Project '" + projectName 
+                                  + "' already exists");
+            } else if (project.getMaterialType() == null 
+                       || !materials.containsKey(project.getMaterialType().getName())) {
+                result.failures.add("Project row " + row + ": Material for project '" + projectName 
+                                  + "' not found");
+            } else {
+                putProject(project);
+                result.projectsImported++;
+            }
+        }
+        
+        // Persist everything with a single write per file
+        if (log != null || options.isBinarySnapshot()) {
+            if (result.materialsImported > 0 || result.projectsImported > 0) {
+                checkpoint();
+            }
+        } else {
+            if (result.materialsImported > 0) {
+                saveMaterials();
+            }
+            if (result.projectsImported > 0) {
+                saveProjects();
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Checks whether a name can be stored in a record
+     * @param name Material or project name
+     * @return true if RecordCodec.checkName accepts it
+     */
+    private static boolean isStorableName(String name) {
+        try {
+            RecordCodec.checkName("Record", name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Adds many projects, then saves the database once
+     * @param newProjects Stream of projects to add
+     * @return Counts of imported rows and a message for each rejected row
+     */
+    public ImportResult importProjects(Stream<Project> newProjects) {
+        return importRecords(Collections.emptyList(), newProjects::iterator);
+    }
+    
     // ==================== FILE PERSISTENCE OPERATIONS ====================
     
+    /**
+     * Records a material change, either as a log record or by rewriting the materials file
+     * @param type Log record type
+     * @param payload Log record payload
+     */
+    private void persistMaterials(String type, String payload) {
+        if (log == null) {
+            saveMaterials();
+        } else {
+            appendLog(type, payload);
+        }
+    }
+    
+    /**
+     * Records a project change, either as a log record or by rewriting the projects file
+     * @param type Log record type
+     * @param payload Log record payload
+     */
+    private void persistProjects(String type, String payload) {
+        if (log == null) {
+            saveProjects();
+        } else {
+            appendLog(type, payload);
+        }
+    }
+    
+    /**
+     * Appends a record to the write-ahead log and checkpoints when the log is full
+     * @param type Log record type
+     * @param payload Log record payload
+     */
+    private void appendLog(String type, String payload) {
+        if (logWriter != null) {
+            logWriter.submit(type, payload);
+        } else {
+            try {
+                log.append(type, payload);
+            } catch (IOException e) {
+                System.err.println("Error writing log: " + e.getMessage());
+            }
+        }
+        logRecords++;
+        if (logRecords >= options.getCheckpointInterval()) {
+            checkpoint();
+        }
+    }
+    
+    /**
+     * Gets a future for the durability of every change made so far.
+     * With asynchronous commit, the future completes once the background writer
+     * has written the last change; otherwise changes are written before each
+     * method returns and the future is already complete.
+     * @return Future that completes when all changes so far are written
+     */
+    public CompletableFuture<Void> whenDurable() {
+        if (logWriter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return logWriter.lastCommit();
+    }
+    
+    /**
+     * Asks the background writer to write queued changes now, whatever its flush policy
+     * @return Future that completes when all changes so far are written
+     */
+    public CompletableFuture<Void> flush() {
+        if (logWriter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return logWriter.flush();
+    }
+    
+    /**
+     * Applies one write-ahead log record to the in-memory maps
+     * @param type Log record type
+     * @param payload Log record payload
+     */
+    private void applyLogRecord(String type, String payload) {
+        switch (type) {
+            case WriteAheadLog.ADD_MATERIAL: {
+                Material material = Material.fromDatabaseString(payload);
+                materials.putIfAbsent(material.getName(), material);
+                break;
+            }
+            case WriteAheadLog.UPDATE_MATERIAL: {
+                codec.reset(payload);
+                if (codec.fieldCount() != 3) {
+                    throw new IllegalArgumentException("Invalid log record format");
+                }
+                Material material = materials.get(codec.getString(0));
+                if (material != null) {
+                    material.updateCost(codec.getDouble(1), codec.getDouble(2));
+                    repriceProjects(material);
+                }
+                break;
+            }
+            case WriteAheadLog.DELETE_MATERIAL:
+                materials.remove(payload);
+                break;
+            case WriteAheadLog.ADD_PROJECT:
+                loadProjectLine(payload);
+                break;
+            case WriteAheadLog.UPDATE_PROJECT: {
+                int separator = payload.indexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid log record format");
+                }
+                resolve(payload.substring(0, separator));
+                removeProject(payload.substring(0, separator));
+                loadProjectLine(payload.substring(separator + 1));
+                break;
+            }
+            case WriteAheadLog.DELETE_PROJECT:
+                resolve(payload);
+                removeProject(payload);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown log record type: " + type);
+        }
+    }
+    
+    /**
+     * Writes both database files and empties the write-ahead log
+     */
+    public void checkpoint() {
+        // Let the background writer finish before the log is truncated
+        if (logWriter != null) {
+            try {
+                logWriter.flush().join();
+            } catch (RuntimeException e) {
+                System.err.println("Error writing log: " + e.getMessage());
+            }
+        }
+        if (options.isBinarySnapshot()) {
+            saveSnapshot();
+        } else {
+            saveMaterials();
+            saveProjects();
+        }
+        if (log != null) {
+            try {
+                log.truncate();
+            } catch (IOException e) {
+                System.err.println("Error truncating log: " + e.getMessage());
+            }
+            logRecords = 0;
+        }
+    }
+    
+    /**
+     * Checkpoints and closes the write-ahead log, if one is in use
+     * With asynchronous commit this must be called before exit, or queued changes are lost.
+     */
+    public void close() {
+        if (log != null) {
+            checkpoint();
+            if (logWriter != null) {
+                logWriter.close();
+                logWriter = null;
+            }
+            log.close();
+        }
+    }
+    
+    /**
+     * Opens the binary snapshot file, if it exists.
+     * Materials are decoded immediately; projects stay in the mapped file until needed.
+     * @return true if the snapshot was opened
+     */
+    private boolean openSnapshot() {
+        File file = new File(projectDatabaseFile + ".bin");
+        if (!file.exists()) {
+            return false;
+        }
+        
+        try {
+            snapshot = BinarySnapshot.open(file.getPath());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error opening snapshot: " + e.getMessage());
+            return false;
+        }
+        for (Material material : snapshot.getMaterials()) {
+            materials.put(material.getName(), material);
+        }
+        resolved = new BitSet(snapshot.getProjectCount());
+        return true;
+    }
+    
+    /**
+     * Decodes a project from the binary snapshot the first time its name is used
+     * @param projectName Name of the project
+     */
+    private void resolve(String projectName) {
+        if (snapshot == null) {
+            return;
+        }
+        int record = snapshot.findProject(projectName);
+        if (record >= 0 && !resolved.get(record)) {
+            resolved.set(record);
+            if (!projects.containsKey(projectName)) {
+                putProject(readSnapshotProject(record));
+            }
+        }
+    }
+    
+    /**
+     * Decodes a project from the binary snapshot, priced with the current material.
+     * The snapshot's materials are the ones in the materials map, so their price
+     * changes already apply; a material that was deleted and added again since
+     * the snapshot was opened is swapped in here.
+     * @param record Record number
+     * @return Decoded project
+     */
+    private Project readSnapshotProject(int record) {
+        Project project = snapshot.readProject(record);
+        Material current = materials.get(project.getMaterialType().getName());
+        if (current != null && current != project.getMaterialType()) {
+            project.setMaterialType(current);
+        }
+        return project;
+    }
+    
+    /**
+     * Decodes every project still in the binary snapshot and releases the snapshot
+     */
+    private void resolveAll() {
+        if (snapshot == null) {
+            return;
+        }
+        for (int record = resolved.nextClearBit(0); record < snapshot.getProjectCount();
+             record = resolved.nextClearBit(record + 1)) {
+            Project project = readSnapshotProject(record);
+            if (!projects.containsKey(project.getProjectName())) {
+                putProject(project);
+            }
+        }
+        snapshot = null;
+        resolved = null;
+    }
+    
+    /**
+     * Saves all materials and projects to the binary snapshot file
+     */
+    private void saveSnapshot() {
+        resolveAll();
+        try {
+            BinarySnapshot.write(projectDatabaseFile + ".bin", materials.values(), projects.values(),
+                                 forceSnapshots());
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Checks whether snapshot writes must be forced to disk under the sync policy
+     * @return true unless the sync policy is NONE
+     */
+    private boolean forceSnapshots() {
+        return options.getSyncPolicy() != DatabaseOptions.SyncPolicy.NONE;
+    }
+    
     /**
      * Saves all materials to the database file
      */
     private void saveMaterials() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(materialDatabaseFile))) {
-            for (Material material : materials.values()) {
-                writer.write(material.toDatabaseString());
-                writer.newLine();
-            }
+        if (options.isBinarySnapshot()) {
+            saveSnapshot();
+            return;
+        }
+        try {
+            AtomicFileWriter.writeLines(materialDatabaseFile, forceSnapshots(),
+                    materials.values().stream().map(Material::toDatabaseString)::iterator);
         } catch (IOException e) {
             System.err.println("Error saving materials: " + e.getMessage());
         }
@@ -223,11 +875,11 @@ public class ProjectDB {
             return; // No file to load from
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(materialDatabaseFile))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(materialDatabaseFile, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (!line.trim().isEmpty()) {
-                    Material material = Material.fromDatabaseString(line);
+                    Material material = Material.fromRecord(codec.reset(line));
                     materials.put(material.getName(), material);
                 }
             }
@@ -240,11 +892,13 @@ public class ProjectDB {
      * Saves all projects to the database file
      */
     private void saveProjects() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(projectDatabaseFile))) {
-            for (Project project : projects.values()) {
-                writer.write(project.toDatabaseString());
-                writer.newLine();
-            }
+        if (options.isBinarySnapshot()) {
+            saveSnapshot();
+            return;
+        }
+        try {
+            AtomicFileWriter.writeLines(projectDatabaseFile, forceSnapshots(),
+                    projects.values().stream().map(Project::toDatabaseString)::iterator);
         } catch (IOException e) {
             System.err.println("Error saving projects: " + e.getMessage());
         }
@@ -258,37 +912,205 @@ public class ProjectDB {
         if (!file.exists()) {
             return; // No file to load from
         }
+        if (options.isParallelLoad()) {
+            loadProjectsParallel();
+            return;
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(projectDatabaseFile))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(projectDatabaseFile, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (!line.trim().isEmpty()) {
-                    // Parse the database string to get material name
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 5) {
-                        String materialName = parts[4];
-                        Material material = materials.get(materialName);
-                        
-                        if (material != null) {
-                            Project project = Project.fromDatabaseString(line, material);
-                            projects.put(project.getProjectName(), project);
-                        } else {
-                            System.err.println("Warning: Material '" + materialName + 
-                                             "' not found for project. Skipping project.");
-                        }
-                    }
+                    loadProjectLine(line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading projects: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads all projects by parsing chunks of the database file in parallel.
+     * The file is split into byte ranges that start at line boundaries, each range
+     * is parsed on the common fork-join pool, and the results are merged in file
+     * order so later lines still replace earlier ones with the same name.
+     */
+    private void loadProjectsParallel() {
+        try (FileChannel channel = FileChannel.open(Paths.get(projectDatabaseFile), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = Math.max(ForkJoinPool.getCommonPoolParallelism() * 4L, size / MAX_CHUNK_BYTES + 1);
+            chunks = Math.max(1, Math.min(chunks, size / MIN_CHUNK_BYTES));
+            
+            long[] bounds = new long[(int) chunks + 1];
+            bounds[(int) chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = nextLineStart(channel, Math.max(size * i / chunks, bounds[i - 1]), size);
+            }
+            
+            List<ForkJoinTask<List<Project>>> tasks = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                if (start < end) {
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> parseProjectChunk(channel, start, end)));
+                }
+            }
+            for (ForkJoinTask<List<Project>> task : tasks) {
+                for (Project project : task.get()) {
+                    putProject(project);
                 }
             }
         } catch (IOException e) {
             System.err.println("Error loading projects: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error loading projects: interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            System.err.println("Error loading projects: " + e.getCause().getMessage());
+        }
+    }
+    
+    /**
+     * Finds the start of the first line after a position in the file
+     * @param channel Open database file
+     * @param position Position to search from
+     * @param size Size of the file
+     * @return Position just after the next newline, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Parses the project records in one byte range of the database file.
+     * Runs on a worker thread; it only reads the materials map, which does not
+     * change while projects are loading.
+     * @param channel Open database file
+     * @param start Start of the range (a line start)
+     * @param end End of the range (a line start or the end of the file)
+     * @return Parsed projects, in file order
+     * @throws IOException if the file cannot be read
+     */
+    private List<Project> parseProjectChunk(FileChannel channel, long start, long end) throws IOException {
+        byte[] data = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        
+        RecordCodec record = new RecordCodec();
+        List<Project> parsed = new ArrayList<>();
+        Material last = null;
+        int lineStart = 0;
+        for (int i = 0; i <= data.length; i++) {
+            if (i < data.length && data[i] != '\n') {
+                continue;
+            }
+            if (!isBlank(data, lineStart, i)) {
+                record.reset(data, lineStart, i - lineStart);
+                if (record.fieldCount() >= 5) {
+                    Material material = last != null && record.fieldEquals(4, last.getName())
+                                      ? last : materials.get(record.getString(4));
+                    if (material != null) {
+                        last = material;
+                        parsed.add(Project.fromRecord(record, material));
+                    } else {
+                        System.err.println("Warning: Material '" + record.getString(4) + 
+                                         "' not found for project. Skipping project.");
+                    }
+                }
+            }
+            lineStart = i + 1;
+        }
+        return parsed;
+    }
+    
+    /**
+     * Checks whether a byte range holds only whitespace
+     * @param data Bytes to check
+     * @param start Start of the range
+     * @param end End of the range (exclusive)
+     * @return true if every byte is whitespace or a control character
+     */
+    private static boolean isBlank(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((data[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Parses one project record and adds it to the projects map
+     * @param line Project database string
+     */
+    private void loadProjectLine(String line) {
+        // Split the line once; the material name is field 4
+        codec.reset(line);
+        if (codec.fieldCount() >= 5) {
+            if (snapshot != null) {
+                resolve(codec.getString(0));
+            }
+            Material material = lookupMaterial(codec);
+            
+            if (material != null) {
+                Project project = Project.fromRecord(codec, material);
+                putProject(project);
+            } else {
+                System.err.println("Warning: Material '" + codec.getString(4) + 
+                                 "' not found for project. Skipping project.");
+            }
         }
     }
     
+    /**
+     * Looks up the material named in field 4 of a project record
+     * Consecutive records usually share a material, so the last match is checked first
+     * @param record Codec positioned on a project record
+     * @return Material object or null if not found
+     */
+    private Material lookupMaterial(RecordCodec record) {
+        if (lastMaterial != null && record.fieldEquals(4, lastMaterial.getName())
+                && materials.get(lastMaterial.getName()) == lastMaterial) {
+            return lastMaterial;
+        }
+        Material material = materials.get(record.getString(4));
+        if (material != null) {
+            lastMaterial = material;
+        }
+        return material;
+    }
+    
     /**
      * Gets the number of projects in the database
      * @return Number of projects
      */
     public int getProjectCount() {
+        if (snapshot != null) {
+            return projects.size() + snapshot.getProjectCount() - resolved.cardinality();
+        }
         return projects.size();
     }
     
@@ -305,7 +1127,17 @@ public class ProjectDB {
      */
     public void clearAllProjects() {
         projects.clear();
-        saveProjects();
+        projectsByMaterial.clear();
+        for (ProjectIndex index : indexes.values()) {
+            index.clear();
+        }
+        snapshot = null;
+        resolved = null;
+        if (log == null) {
+            saveProjects();
+        } else {
+            checkpoint();
+        }
     }
     
     /**
@@ -313,6 +1145,10 @@ public class ProjectDB {
      */
     public void clearAllMaterials() {
         materials.clear();
-        saveMaterials();
+        if (log == null) {
+            saveMaterials();
+        } else {
+            checkpoint();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,368 @@
+import java.util.*;
+
+/**
+ * ProjectIndex Class
+ * Sorted index of projects by one numeric field.
+ * Supports range, top-K and count queries without scanning every project.
+ * The indexed value is captured when a project is added, so a project whose
+ * value changes must be added again to move it to its new position.
+ *
+ * Entries are kept in a treap (a binary search tree balanced by random node
+ * priorities) in which every node knows the size of its subtree, so a count
+ * takes O(log N) and a range or top-K query O(log N + k).
+ */
+public class ProjectIndex {
+    /**
+     * Project fields that can be indexed
+     */
+    public enum Field {
+        TOTAL_COST, PRINT_TIME, MATERIAL_USED;
+
+        /**
+         * Reads this field from a project
+         * @param project Project to read
+         * @return Field value
+         */
+        public double valueOf(Project project) {
+            switch (this) {
+                case TOTAL_COST:
+                    return project.getTotalCost();
+                case PRINT_TIME:
+                    return project.getPrintTime();
+                default:
+                    return project.getMaterialUsed();
+            }
+        }
+    }
+
+    /**
+     * Index entry holding the value a project had when it was indexed
+     */
+    private static class Entry {
+        private final double key;
+        private final String projectName;
+        private final Project project;
+
+        private Entry(double key, String projectName, Project project) {
+            this.key = key;
+            this.projectName = projectName;
+            this.project = project;
+        }
+    }
+
+    /**
+     * Tree node holding one entry and the size of its subtree
+     */
+    private static class Node {
+        private final Entry entry;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size;
+
+        private Node(Entry entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+            this.size = 1;
+        }
+    }
+
+    // Entries are ordered by value, then by project name
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byKey = Double.compare(a.key, b.key);
+        return byKey != 0 ? byKey : a.projectName.compareTo(b.projectName);
+    };
+
+    // Attributes
+    private Field field;                      // Field this index is sorted by
+    private Node root;                        // Root of the entry tree (null when empty)
+    private Random priorities;                // Source of node priorities
+    private Map<Project, Entry> entryOf;      // Current entry of each indexed project
+
+    /**
+     * Constructor - Creates an empty index
+     * @param field Field to sort projects by
+     */
+    public ProjectIndex(Field field) {
+        this.field = field;
+        this.root = null;
+        this.priorities = new Random();
+        this.entryOf = new IdentityHashMap<>();
+    }
+
+    /**
+     * Gets the field this index is sorted by
+     * @return Indexed field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Adds a project, or moves it if it is already indexed
+     * @param project Project to index
+     */
+    public void add(Project project) {
+        remove(project);
+        Entry entry = new Entry(field.valueOf(project), project.getProjectName(), project);
+        root = insert(root, new Node(entry, priorities.nextInt()));
+        entryOf.put(project, entry);
+    }
+
+    /**
+     * Removes a project from the index
+     * @param project Project to remove
+     */
+    public void remove(Project project) {
+        Entry entry = entryOf.remove(project);
+        if (entry != null) {
+            root = delete(root, entry);
+        }
+    }
+
+    /**
+     * Removes every project from the index
+     */
+    public void clear() {
+        root = null;
+        entryOf.clear();
+    }
+
+    /**
+     * Gets the number of indexed projects
+     * @return Number of projects
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Finds the projects whose value falls in a range
+     * @param low Lowest value (inclusive)
+     * @param high Highest value (inclusive)
+     * @return Matching projects in ascending order
+     */
+    public List<Project> range(double low, double high) {
+        List<Project> found = new ArrayList<>();
+        ascend(low, high, Integer.MAX_VALUE, found);
+        return found;
+    }
+
+    /**
+     * Counts the projects whose value falls in a range
+     * @param low Lowest value (inclusive)
+     * @param high Highest value (inclusive)
+     * @return Number of matching projects
+     */
+    public int count(double low, double high) {
+        if (Double.compare(low, high) > 0) {
+            return 0;
+        }
+        return countBelow(high, true) - countBelow(low, false);
+    }
+
+    /**
+     * Finds the projects with the largest values
+     * @param k Maximum number of projects to return
+     * @return Up to k projects in descending order
+     */
+    public List<Project> top(int k) {
+        List<Project> found = new ArrayList<>(Math.max(0, Math.min(k, size())));
+        Deque<Node> path = new ArrayDeque<>();
+        pushRightEdge(root, path);
+        while (found.size() < k && !path.isEmpty()) {
+            Node node = path.pop();
+            found.add(node.entry.project);
+            pushRightEdge(node.left, path);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the projects with the smallest values
+     * @param k Maximum number of projects to return
+     * @return Up to k projects in ascending order
+     */
+    public List<Project> bottom(int k) {
+        List<Project> found = new ArrayList<>(Math.max(0, Math.min(k, size())));
+        // NaN sorts last, so no value is above it
+        ascend(Double.NEGATIVE_INFINITY, Double.NaN, k, found);
+        return found;
+    }
+
+    // ==================== TREE OPERATIONS ====================
+
+    /**
+     * Counts the entries whose value is below a limit
+     * @param limit Value to compare with
+     * @param inclusive true to also count entries equal to the limit
+     * @return Number of entries
+     */
+    private int countBelow(double limit, boolean inclusive) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int comparison = Double.compare(node.entry.key, limit);
+            if (comparison < 0 || (inclusive && comparison == 0)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collects projects in ascending order, starting at the first value not below low
+     * @param low Lowest value (inclusive)
+     * @param high Highest value (inclusive)
+     * @param limit Most projects to collect
+     * @param found List the projects are added to
+     */
+    private void ascend(double low, double high, int limit, List<Project> found) {
+        // The path holds the nodes still to visit, smallest on top
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null) {
+            if (Double.compare(node.entry.key, low) >= 0) {
+                path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        int collected = 0;
+        while (collected < limit && !path.isEmpty()) {
+            node = path.pop();
+            if (Double.compare(node.entry.key, high) > 0) {
+                break;
+            }
+            found.add(node.entry.project);
+            collected++;
+            for (Node next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+    }
+
+    /**
+     * Pushes a node and its chain of right children, so the largest is on top
+     * @param node First node (may be null)
+     * @param path Nodes still to visit in descending order
+     */
+    private static void pushRightEdge(Node node, Deque<Node> path) {
+        for (; node != null; node = node.right) {
+            path.push(node);
+        }
+    }
+
+    /**
+     * Inserts a node into a subtree
+     * @param tree Subtree root (may be null)
+     * @param node Node to insert
+     * @return New subtree root
+     */
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            // The new node becomes the root of this subtree
+            Node[] parts = new Node[2];
+            split(tree, node.entry, parts);
+            node.left = parts[0];
+            node.right = parts[1];
+            return resize(node);
+        }
+        if (ORDER.compare(node.entry, tree.entry) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return resize(tree);
+    }
+
+    /**
+     * Removes an entry from a subtree
+     * @param tree Subtree root (may be null)
+     * @param entry Entry to remove
+     * @return New subtree root
+     */
+    private static Node delete(Node tree, Entry entry) {
+        if (tree == null) {
+            return null;
+        }
+        int comparison = ORDER.compare(entry, tree.entry);
+        if (comparison == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (comparison < 0) {
+            tree.left = delete(tree.left, entry);
+        } else {
+            tree.right = delete(tree.right, entry);
+        }
+        return resize(tree);
+    }
+
+    /**
+     * Splits a subtree into the entries before an entry and the rest
+     * @param tree Subtree root (may be null)
+     * @param entry Entry to split at
+     * @param parts Receives the two subtrees: [0] before the entry, [1] the rest
+     */
+    private static void split(Node tree, Entry entry, Node[] parts) {
+        if (tree == null) {
+            parts[0] = null;
+            parts[1] = null;
+        } else if (ORDER.compare(tree.entry, entry) < 0) {
+            split(tree.right, entry, parts);
+            tree.right = parts[0];
+            parts[0] = resize(tree);
+        } else {
+            split(tree.left, entry, parts);
+            tree.left = parts[1];
+            parts[1] = resize(tree);
+        }
+    }
+
+    /**
+     * Joins two subtrees, where every entry of the first comes before the second
+     * @param first Subtree with the smaller entries (may be null)
+     * @param second Subtree with the larger entries (may be null)
+     * @return Root of the joined tree
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return resize(first);
+        }
+        second.left = merge(first, second.left);
+        return resize(second);
+    }
+
+    /**
+     * Recomputes a node's subtree size from its children
+     * @param node Node to update
+     * @return The node
+     */
+    private static Node resize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    /**
+     * Gets the size of a subtree
+     * @param node Subtree root (may be null)
+     * @return Number of entries in the subtree
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,535 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * QuoteServer Class
+ * Embedded HTTP service for quotes and project/material management.
+ * Runs on the JDK's built-in HTTP server over a shared ConcurrentProjectDB,
+ * handling each request on its own virtual thread when the JVM supports them.
+ *
+ * Endpoints (parameters come from the query string or a form-encoded body):
+ *   GET    /quote?material=PLA&grams=120&printHours=5[&designHours=&hourlyRate=&printRate=]
+ *          (totalCost is the base cost; price adds every component of the cost pipeline)
+ *   GET    /projects                 GET /projects/{name}
+ *   POST   /projects                 name, designHours, printHours, grams, material, hourlyRate, printRate
+ *   PUT    /projects/{name}          any of name, designHours, printHours, grams
+ *   DELETE /projects/{name}           (gives back reserved filament)
+ *   POST   /projects/{name}/complete  (uses up reserved filament)
+ *   GET    /materials                GET /materials/{name}
+ *   POST   /materials                name, totalCost, totalVolume, [density], [shellThickness] (mm),
+ *                                     [infillDensity] (fraction from 0 to 1: 0.2 is 20%, not a percentage)
+ *   PUT    /materials/{name}         totalCost, totalVolume
+ *   DELETE /materials/{name}
+ *   GET    /inventory                GET /inventory/{material}
+ *   POST   /inventory/{material}     [grams] (added to stock), [threshold] (low-stock grams)
+ * When the database has a FilamentInventory, creating a project reserves its
+ * filament and fails with 409 when there is not enough.
+ */
+public class QuoteServer {
+    // Attributes
+    private ConcurrentProjectDB database;     // Shared database
+    private CostPipeline pipeline;            // Prices quotes
+    private HttpServer server;                // Underlying HTTP server
+    private ExecutorService executor;         // Runs request handlers
+
+    /**
+     * Thrown when a request is missing a parameter or has an invalid one
+     */
+    private static class BadRequestException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Constructor - Creates a server bound to a port (not yet started)
+     * Quotes are priced with the standard cost components and no extra parameters.
+     * @param database Shared database
+     * @param port Port to listen on (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public QuoteServer(ConcurrentProjectDB database, int port) throws IOException {
+        this(database, CostPipeline.load(new CostParameters()), port);
+    }
+
+    /**
+     * Constructor - Creates a server bound to a port (not yet started)
+     * @param database Shared database
+     * @param pipeline Cost pipeline used to price quotes
+     * @param port Port to listen on (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public QuoteServer(ConcurrentProjectDB database, CostPipeline pipeline, int port) throws IOException {
+        this.database = database;
+        this.pipeline = pipeline;
+        this.server = HttpServer.create(new InetSocketAddress(port), 4096);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/quote", this::handleQuote);
+        server.createContext("/projects", this::handleProjects);
+        server.createContext("/materials", this::handleMaterials);
+        server.createContext("/inventory", this::handleInventory);
+    }
+
+    /**
+     * Creates a virtual-thread-per-request executor, or a cached thread pool on
+     * JVMs that do not have virtual threads
+     * @return Executor for request handlers
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and shuts down the handler threads
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server is listening on
+     * @return Port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ==================== HANDLERS ====================
+
+    /**
+     * Handles /quote: prices a print without saving a project
+     * @param exchange HTTP exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            Map<String, String> params = readParams(exchange);
+            Material material = database.getMaterial(required(params, "material"));
+            if (material == null) {
+                send(exchange, 404, error("Material not found"));
+                return;
+            }
+            Project quote = new Project("quote",
+                                        number(params, "designHours", 0.0),
+                                        number(params, "printHours", null),
+                                        number(params, "grams", null),
+                                        material,
+                                        number(params, "hourlyRate", 0.0),
+                                        number(params, "printRate", 0.0));
+            send(exchange, 200, String.format(Locale.ROOT,
+                 "{\"material\":%s,\"designCost\":%s,\"printCost\":%s,\"materialCost\":%s,\"totalCost\":%s,"
+                 + "\"price\":%s}",
+                 quoted(material.getName()), Money.format(Money.of(quote.calculateDesignCost()), 2),
+                 Money.format(Money.of(quote.calculatePrintCost()), 2),
+                 Money.format(Money.of(quote.calculateMaterialCost()), 2),
+                 Money.format(quote.getTotalCostMicros(), 2),
+                 Money.format(pipeline.price(quote), 2)));
+        } catch (IllegalArgumentException e) {
+            // Bad parameters, values the model rejects such as a zero volume or a bad
+            // name, and amounts too large to calculate
+            send(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles /projects and /projects/{name}
+     * @param exchange HTTP exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleProjects(HttpExchange exchange) throws IOException {
+        try {
+            String name = pathName(exchange, "/projects");
+            String method = exchange.getRequestMethod();
+            if (name == null && method.equals("GET")) {
+                StringJoiner list = new StringJoiner(",", "[", "]");
+                for (Project project : database.getAllProjects().values()) {
+                    list.add(projectJson(project));
+                }
+                send(exchange, 200, list.toString());
+            } else if (name == null && method.equals("POST")) {
+                Map<String, String> params = readParams(exchange);
+                Material material = database.getMaterial(required(params, "material"));
+                if (material == null) {
+                    send(exchange, 404, error("Material not found"));
+                    return;
+                }
+                Project project = new Project(required(params, "name"),
+                                              number(params, "designHours", null),
+                                              number(params, "printHours", null),
+                                              number(params, "grams", null),
+                                              material,
+                                              number(params, "hourlyRate", null),
+                                              number(params, "printRate", null));
+                if (database.addProject(project)) {
+                    send(exchange, 201, projectJson(project));
+                } else {
+                    send(exchange, 409, error("Project with this name already exists"));
+                }
+            } else if (name != null && name.endsWith("/complete") && method.equals("POST")) {
+                String projectName = name.substring(0, name.length() - "/complete".length());
+                if (database.getProject(projectName) == null) {
+                    send(exchange, 404, error("Project not found"));
+                } else if (database.completeProject(projectName)) {
+                    send(exchange, 200, projectJson(database.getProject(projectName)));
+                } else {
+                    send(exchange, 409, error("Project has no reserved filament"));
+                }
+            } else if (name != null && method.equals("GET")) {
+                Project project = database.getProject(name);
+                if (project == null) {
+                    send(exchange, 404, error("Project not found"));
+                } else {
+                    send(exchange, 200, projectJson(project));
+                }
+            } else if (name != null && method.equals("PUT")) {
+                Project old = database.getProject(name);
+                if (old == null) {
+                    send(exchange, 404, error("Project not found"));
+                    return;
+                }
+                Map<String, String> params = readParams(exchange);
+                Project updated = new Project(params.getOrDefault("name", old.getProjectName()),
+                                              number(params, "designHours", old.getDesignTime()),
+                                              number(params, "printHours", old.getPrintTime()),
+                                              number(params, "grams", old.getMaterialUsed()),
+                                              old.getMaterialType(),
+                                              old.getHourlyRate(),
+                                              old.getPrintRate());
+                if (database.updateProject(name, updated)) {
+                    send(exchange, 200, projectJson(updated));
+                } else {
+                    send(exchange, 404, error("Project not found"));
+                }
+            } else if (name != null && method.equals("DELETE")) {
+                if (database.deleteProject(name)) {
+                    send(exchange, 204, null);
+                } else {
+                    send(exchange, 404, error("Project not found"));
+                }
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (FilamentInventory.OutOfStockException e) {
+            send(exchange, 409, error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // Bad parameters, values the model rejects such as a zero volume or a bad
+            // name, and amounts too large to calculate
+            send(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles /materials and /materials/{name}
+     * @param exchange HTTP exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleMaterials(HttpExchange exchange) throws IOException {
+        try {
+            String name = pathName(exchange, "/materials");
+            String method = exchange.getRequestMethod();
+            if (name == null && method.equals("GET")) {
+                StringJoiner list = new StringJoiner(",", "[", "]");
+                for (Material material : database.getAllMaterials().values()) {
+                    list.add(materialJson(material));
+                }
+                send(exchange, 200, list.toString());
+            } else if (name == null && method.equals("POST")) {
+                Map<String, String> params = readParams(exchange);
+                Material material = new Material(required(params, "name"),
+                                                 number(params, "totalCost", null),
+                                                 number(params, "totalVolume", null));
+                material.setDensity(number(params, "density", 0.0));
+                material.setInfillDensity(number(params, "infillDensity", Material.DEFAULT_INFILL_DENSITY));
+                material.setShellThickness(number(params, "shellThickness", Material.DEFAULT_SHELL_THICKNESS));
+                if (database.addMaterial(material)) {
+                    send(exchange, 201, materialJson(material));
+                } else {
+                    send(exchange, 409, error("Material with this name already exists"));
+                }
+            } else if (name != null && method.equals("GET")) {
+                Material material = database.getMaterial(name);
+                if (material == null) {
+                    send(exchange, 404, error("Material not found"));
+                } else {
+                    send(exchange, 200, materialJson(material));
+                }
+            } else if (name != null && method.equals("PUT")) {
+                Map<String, String> params = readParams(exchange);
+                if (database.updateMaterial(name, number(params, "totalCost", null),
+                                            number(params, "totalVolume", null))) {
+                    send(exchange, 200, materialJson(database.getMaterial(name)));
+                } else {
+                    send(exchange, 404, error("Material not found"));
+                }
+            } else if (name != null && method.equals("DELETE")) {
+                if (database.deleteMaterial(name)) {
+                    send(exchange, 204, null);
+                } else {
+                    send(exchange, 404, error("Material not found"));
+                }
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (IllegalArgumentException e) {
+            // Bad parameters, values the model rejects such as a zero volume or a bad
+            // name, and amounts too large to calculate
+            send(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles /inventory and /inventory/{material}
+     * @param exchange HTTP exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleInventory(HttpExchange exchange) throws IOException {
+        try {
+            FilamentInventory inventory = database.getInventory();
+            if (inventory == null) {
+                send(exchange, 404, error("Inventory is not tracked"));
+                return;
+            }
+            String name = pathName(exchange, "/inventory");
+            String method = exchange.getRequestMethod();
+            if (name == null && method.equals("GET")) {
+                StringJoiner list = new StringJoiner(",", "[", "]");
+                for (String materialName : inventory.getMaterialNames()) {
+                    list.add(stockJson(inventory, materialName));
+                }
+                send(exchange, 200, list.toString());
+            } else if (name != null && !inventory.getMaterialNames().contains(name)) {
+                send(exchange, 404, error("Material not in inventory"));
+            } else if (name != null && method.equals("GET")) {
+                send(exchange, 200, stockJson(inventory, name));
+            } else if (name != null && method.equals("POST")) {
+                Map<String, String> params = readParams(exchange);
+                double grams = number(params, "grams", 0.0);
+                if (grams > 0) {
+                    inventory.restock(name, grams);
+                }
+                if (params.containsKey("threshold")) {
+                    inventory.setLowStockThreshold(name, number(params, "threshold", null));
+                }
+                inventory.save();
+                send(exchange, 200, stockJson(inventory, name));
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (IllegalArgumentException e) {
+            // Bad parameters, values the model rejects such as a zero volume or a bad
+            // name, and amounts too large to calculate
+            send(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    // ==================== REQUEST HELPERS ====================
+
+    /**
+     * Gets the record name after a context path, as in /projects/{name}
+     * @param exchange HTTP exchange
+     * @param context Context path
+     * @return Decoded name, or null if the request is for the whole collection
+     */
+    private static String pathName(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getRawPath();
+        if (path.length() <= context.length() + 1) {
+            return null;
+        }
+        return URLDecoder.decode(path.substring(context.length() + 1), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the query string and any form-encoded request body
+     * @param exchange HTTP exchange
+     * @return Map of parameter names to values
+     * @throws IOException if the body cannot be read
+     */
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream body = exchange.getRequestBody()) {
+            parseForm(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    /**
+     * Parses form-encoded text (a=1&b=2) into a map
+     * @param form Form-encoded text (may be null)
+     * @param params Map to add the parameters to
+     */
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8).trim());
+            }
+        }
+    }
+
+    /**
+     * Gets a required text parameter
+     * @param params Request parameters
+     * @param name Parameter name
+     * @return Parameter value
+     */
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequestException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Gets a non-negative number parameter
+     * @param params Request parameters
+     * @param name Parameter name
+     * @param defaultValue Value to use when the parameter is absent, or null if it is required
+     * @return Parameter value
+     */
+    private static double number(Map<String, String> params, String name, Double defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            if (defaultValue == null) {
+                throw new BadRequestException("Missing parameter: " + name);
+            }
+            return defaultValue;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            if (number < 0 || Double.isNaN(number) || Double.isInfinite(number)) {
+                throw new BadRequestException("Parameter must be a positive number: " + name);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Parameter must be a number: " + name);
+        }
+    }
+
+    /**
+     * Sends a JSON response
+     * @param exchange HTTP exchange
+     * @param status HTTP status code
+     * @param json Response body, or null for no body
+     * @throws IOException if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // ==================== JSON HELPERS ====================
+
+    /**
+     * Converts a project to JSON
+     * @param project Project to convert
+     * @return JSON object text
+     */
+    private static String projectJson(Project project) {
+        return String.format(Locale.ROOT,
+               "{\"name\":%s,\"designHours\":%.2f,\"printHours\":%.2f,\"grams\":%.2f,\"material\":%s,"
+               + "\"hourlyRate\":%s,\"printRate\":%s,\"totalCost\":%s}",
+               quoted(project.getProjectName()), project.getDesignTime(), project.getPrintTime(),
+               project.getMaterialUsed(), quoted(project.getMaterialType().getName()),
+               Money.format(project.getHourlyRateMicros(), 2), Money.format(project.getPrintRateMicros(), 2),
+               Money.format(project.getTotalCostMicros(), 2));
+    }
+
+    /**
+     * Converts a material's stock to JSON
+     * @param inventory Inventory holding the stock
+     * @param materialName Material name
+     * @return JSON object text
+     */
+    private static String stockJson(FilamentInventory inventory, String materialName) {
+        return String.format(Locale.ROOT, "{\"material\":%s,\"onHand\":%.2f,\"reserved\":%.2f,\"available\":%.2f,"
+                             + "\"threshold\":%.2f}",
+                             quoted(materialName), inventory.getOnHandGrams(materialName),
+                             inventory.getReservedGrams(materialName), inventory.getAvailableGrams(materialName),
+                             inventory.getLowStockThreshold(materialName));
+    }
+
+    /**
+     * Converts a material to JSON
+     * @param material Material to convert
+     * @return JSON object text
+     */
+    private static String materialJson(Material material) {
+        return String.format(Locale.ROOT, "{\"name\":%s,\"costPerGram\":%s,\"totalVolume\":%.2f,\"density\":%.2f,"
+                             + "\"infillDensity\":%.4f,\"shellThickness\":%.2f}",
+                             quoted(material.getName()), Money.format(material.getCostPerGramMicros(), 4),
+                             material.getTotalVolume(), material.getDensity(),
+                             material.getInfillDensity(), material.getShellThickness());
+    }
+
+    /**
+     * Builds a JSON error object
+     * @param message Error message
+     * @return JSON object text
+     */
+    private static String error(String message) {
+        return "{\"error\":" + quoted(message) + "}";
+    }
+
+    /**
+     * Quotes and escapes a JSON string
+     * @param text Text to quote
+     * @return JSON string literal
+     */
+    private static String quoted(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
\ No newline at end of file
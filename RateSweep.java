@@ -0,0 +1,376 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * RateSweep Class
+ * What-if pricing: total revenue over a set of projects for every combination
+ * of candidate hourly and print rates.
+ * A project costs design hours * hourly rate + print hours * print rate +
+ * material cost, which is linear in the two rates. Instead of repricing every
+ * project at every grid point, one parallel pass on the common fork-join pool
+ * sums the design hours, print hours and material cost per material, and each
+ * grid point is then worked out from those sums. Projects are only read.
+ *
+ * Each rate term is rounded once over the summed hours, so a total can differ
+ * from adding up per-project calculateDesignCost/calculatePrintCost values by
+ * at most half a micro-cent per project. Material costs are summed exactly.
+ */
+public class RateSweep {
+    // Projects summed by one fork-join leaf task
+    private static final int LEAF_SIZE = 4096;
+
+    // Attributes
+    private final Project[] projects;    // Projects to sweep (never modified)
+
+    /**
+     * Constructor - Creates a sweep over a set of projects
+     * @param projects Projects to sweep (copied; the projects themselves are only read)
+     */
+    public RateSweep(Collection<Project> projects) {
+        this.projects = projects.toArray(new Project[0]);
+    }
+
+    /**
+     * Works out revenue for every pair of candidate rates
+     * @param hourlyRates Candidate hourly design rates
+     * @param printRates Candidate print rates per hour
+     * @return Revenue tables over the grid
+     */
+    public Table sweep(double[] hourlyRates, double[] printRates) {
+        long[] hourly = toAmounts(hourlyRates, "Hourly rate");
+        long[] print = toAmounts(printRates, "Print rate");
+        Map<String, Sums> sums = ForkJoinPool.commonPool().invoke(new SumTask(projects, 0, projects.length));
+        return new Table(hourlyRates.clone(), printRates.clone(), hourly, print, sums);
+    }
+
+    /**
+     * Builds an evenly spaced list of candidate rates
+     * For example range(20, 60, 5) gives 20, 25, ..., 60
+     * @param from First rate
+     * @param to Last rate (included when the steps land on it)
+     * @param step Distance between rates
+     * @return Candidate rates
+     */
+    public static double[] range(double from, double to, double step) {
+        if (!(step > 0) || !(to >= from)) {
+            throw new IllegalArgumentException("Invalid rate range " + from + ":" + to + ":" + step);
+        }
+        // A small tolerance keeps "to" in the list despite rounding in the step
+        int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] rates = new double[count];
+        for (int i = 0; i < count; i++) {
+            rates[i] = Money.toDouble(Money.of(from + i * step));
+        }
+        return rates;
+    }
+
+    /**
+     * Converts candidate rates to Money amounts
+     * @param rates Rates in dollars
+     * @param label Name used in error messages
+     * @return Rates in Money micro-cents
+     */
+    private static long[] toAmounts(double[] rates, String label) {
+        if (rates.length == 0) {
+            throw new IllegalArgumentException(label + " list is empty");
+        }
+        long[] amounts = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            if (!(rates[i] >= 0)) {
+                throw new IllegalArgumentException(label + " must be a positive number: " + rates[i]);
+            }
+            amounts[i] = Money.of(rates[i]);
+        }
+        return amounts;
+    }
+
+    /**
+     * Sums - rate-independent totals for one material
+     */
+    private static class Sums {
+        long designHours;       // Design hours in millionths
+        long printHours;        // Print hours in millionths
+        long materialCost;      // Material cost in Money micro-cents
+        long currentCost;       // Stored total cost in Money micro-cents
+        int projects;           // Number of projects
+
+        /**
+         * Adds one project
+         * @param project Project to add
+         */
+        void add(Project project) {
+            designHours += Money.quantity(project.getDesignTime());
+            printHours += Money.quantity(project.getPrintTime());
+            materialCost += Money.times(project.getMaterialType().getCostPerGramMicros(),
+                                        project.getMaterialUsed());
+            currentCost += project.getTotalCostMicros();
+            projects++;
+        }
+
+        /**
+         * Adds the totals of another set of projects
+         * @param other Totals to add
+         */
+        void add(Sums other) {
+            designHours += other.designHours;
+            printHours += other.printHours;
+            materialCost += other.materialCost;
+            currentCost += other.currentCost;
+            projects += other.projects;
+        }
+
+        /**
+         * Works out revenue at one pair of rates
+         * @param hourlyRate Hourly rate in Money micro-cents
+         * @param printRate Print rate in Money micro-cents
+         * @return Revenue in Money micro-cents
+         */
+        long revenue(long hourlyRate, long printRate) {
+            return Money.timesMillionths(hourlyRate, designHours)
+                 + Money.timesMillionths(printRate, printHours)
+                 + materialCost;
+        }
+    }
+
+    /**
+     * SumTask - sums a range of projects by material, splitting it in half until it is small
+     */
+    private static class SumTask extends RecursiveTask<Map<String, Sums>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Project[] projects;
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructor - Creates a task for a range of projects
+         * @param projects All projects
+         * @param start First project in the range
+         * @param end End of the range (exclusive)
+         */
+        SumTask(Project[] projects, int start, int end) {
+            this.projects = projects;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Map<String, Sums> compute() {
+            if (end - start > LEAF_SIZE) {
+                int middle = (start + end) >>> 1;
+                SumTask right = new SumTask(projects, middle, end);
+                right.fork();
+                Map<String, Sums> left = new SumTask(projects, start, middle).compute();
+                for (Map.Entry<String, Sums> entry : right.join().entrySet()) {
+                    Sums sums = left.get(entry.getKey());
+                    if (sums == null) {
+                        left.put(entry.getKey(), entry.getValue());
+                    } else {
+                        sums.add(entry.getValue());
+                    }
+                }
+                return left;
+            }
+
+            Map<String, Sums> byMaterial = new HashMap<>();
+            // Projects usually share Material objects, so most rows skip the map lookup
+            Material lastMaterial = null;
+            Sums sums = null;
+            for (int i = start; i < end; i++) {
+                Project project = projects[i];
+                if (project.getMaterialType() != lastMaterial) {
+                    lastMaterial = project.getMaterialType();
+                    sums = byMaterial.computeIfAbsent(lastMaterial.getName(), name -> new Sums());
+                }
+                sums.add(project);
+            }
+            return byMaterial;
+        }
+    }
+
+    /**
+     * Table - revenue over a grid of hourly rates (rows) and print rates (columns)
+     */
+    public static class Table {
+        // Attributes
+        private final double[] hourlyRates;         // Candidate hourly rates (rows)
+        private final double[] printRates;          // Candidate print rates (columns)
+        private final long[] hourlyAmounts;         // Hourly rates in Money micro-cents
+        private final long[] printAmounts;          // Print rates in Money micro-cents
+        private final long[][] revenue;             // Total revenue of each grid point
+        private final Map<String, Sums> materials;  // Totals by material name
+        private final Sums total;                   // Totals over all projects
+
+        /**
+         * Constructor - Works out the revenue table from the project totals
+         * @param hourlyRates Candidate hourly rates
+         * @param printRates Candidate print rates
+         * @param hourlyAmounts Hourly rates in Money micro-cents
+         * @param printAmounts Print rates in Money micro-cents
+         * @param materials Project totals by material name
+         */
+        private Table(double[] hourlyRates, double[] printRates, long[] hourlyAmounts, long[] printAmounts,
+                      Map<String, Sums> materials) {
+            this.hourlyRates = hourlyRates;
+            this.printRates = printRates;
+            this.hourlyAmounts = hourlyAmounts;
+            this.printAmounts = printAmounts;
+            this.materials = new TreeMap<>(materials);
+            this.total = new Sums();
+            for (Sums sums : materials.values()) {
+                total.add(sums);
+            }
+
+            // Revenue is design(row) + print(column) + material, so each term is worked out once
+            long[] design = new long[hourlyAmounts.length];
+            for (int i = 0; i < design.length; i++) {
+                design[i] = Money.timesMillionths(hourlyAmounts[i], total.designHours);
+            }
+            long[] print = new long[printAmounts.length];
+            for (int j = 0; j < print.length; j++) {
+                print[j] = Money.timesMillionths(printAmounts[j], total.printHours);
+            }
+            this.revenue = new long[design.length][print.length];
+            for (int i = 0; i < design.length; i++) {
+                for (int j = 0; j < print.length; j++) {
+                    revenue[i][j] = design[i] + print[j] + total.materialCost;
+                }
+            }
+        }
+
+        /**
+         * Gets the candidate hourly rates (the table rows)
+         * @return Hourly rates
+         */
+        public double[] getHourlyRates() {
+            return hourlyRates.clone();
+        }
+
+        /**
+         * Gets the candidate print rates (the table columns)
+         * @return Print rates
+         */
+        public double[] getPrintRates() {
+            return printRates.clone();
+        }
+
+        /**
+         * Gets the number of projects swept
+         * @return Number of projects
+         */
+        public int getProjectCount() {
+            return total.projects;
+        }
+
+        /**
+         * Gets total revenue at one grid point
+         * @param row Hourly rate index
+         * @param column Print rate index
+         * @return Revenue
+         */
+        public double getRevenue(int row, int column) {
+            return Money.toDouble(revenue[row][column]);
+        }
+
+        /**
+         * Gets exact total revenue at one grid point
+         * @param row Hourly rate index
+         * @param column Print rate index
+         * @return Revenue in Money micro-cents
+         */
+        public long getRevenueMicros(int row, int column) {
+            return revenue[row][column];
+        }
+
+        /**
+         * Gets the change from current revenue at one grid point
+         * @param row Hourly rate index
+         * @param column Print rate index
+         * @return Revenue minus the stored total cost of all projects
+         */
+        public double getChange(int row, int column) {
+            return Money.toDouble(revenue[row][column] - total.currentCost);
+        }
+
+        /**
+         * Gets current revenue (the stored total cost of all projects)
+         * @return Current revenue
+         */
+        public double getCurrentRevenue() {
+            return Money.toDouble(total.currentCost);
+        }
+
+        /**
+         * Gets design revenue at one hourly rate
+         * @param row Hourly rate index
+         * @return Design revenue
+         */
+        public double getDesignRevenue(int row) {
+            return Money.toDouble(Money.timesMillionths(hourlyAmounts[row], total.designHours));
+        }
+
+        /**
+         * Gets print revenue at one print rate
+         * @param column Print rate index
+         * @return Print revenue
+         */
+        public double getPrintRevenue(int column) {
+            return Money.toDouble(Money.timesMillionths(printAmounts[column], total.printHours));
+        }
+
+        /**
+         * Gets material cost, which does not depend on the rates
+         * @return Material cost over all projects
+         */
+        public double getMaterialCost() {
+            return Money.toDouble(total.materialCost);
+        }
+
+        /**
+         * Gets the names of the materials used by the swept projects
+         * @return Material names in alphabetical order
+         */
+        public List<String> getMaterialNames() {
+            return new ArrayList<>(materials.keySet());
+        }
+
+        /**
+         * Gets revenue from the projects using one material at one grid point
+         * @param materialName Material name
+         * @param row Hourly rate index
+         * @param column Print rate index
+         * @return Revenue, or 0 if no project uses the material
+         */
+        public double getMaterialRevenue(String materialName, int row, int column) {
+            Sums sums = materials.get(materialName);
+            return sums == null ? 0 : Money.toDouble(sums.revenue(hourlyAmounts[row], printAmounts[column]));
+        }
+
+        /**
+         * Formats the revenue table
+         * @return Revenue table with hourly rates down the side and print rates across the top
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("=== RATE SWEEP (").append(total.projects).append(" projects) ===\n");
+            sb.append("Current revenue: $").append(Money.format(total.currentCost, 2)).append("\n");
+            sb.append("Material cost:   $").append(Money.format(total.materialCost, 2)).append("\n");
+            sb.append("Revenue by hourly rate (rows) and print rate (columns):\n");
+            sb.append(String.format("%12s", "hourly\\print"));
+            for (long printRate : printAmounts) {
+                sb.append(String.format(" %14s", "$" + Money.format(printRate, 2)));
+            }
+            sb.append("\n");
+            for (int i = 0; i < hourlyRates.length; i++) {
+                sb.append(String.format("%12s", "$" + Money.format(hourlyAmounts[i], 2)));
+                for (int j = 0; j < printRates.length; j++) {
+                    sb.append(String.format(" %14s", Money.format(revenue[i][j], 2)));
+                }
+                sb.append("\n");
+            }
+            return sb.toString();
+        }
+    }
+}
\ No newline at end of file
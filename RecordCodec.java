@@ -0,0 +1,335 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RecordCodec Class
+ * Reusable reader for pipe-delimited database records.
+ * A record is split into fields once when it is reset, and fields are then
+ * read straight from the original characters or bytes; numbers are parsed in
+ * place without creating substrings.
+ */
+public class RecordCodec {
+    // Largest mantissa that a double holds exactly (2^53)
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // Powers of ten that a double holds exactly
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Attributes
+    private CharSequence chars;          // Current record when reading characters
+    private byte[] bytes;                // Current record when reading bytes
+    private int[] fieldStarts;           // Start of each field
+    private int[] fieldEnds;             // End of each field (exclusive)
+    private int fieldCount;              // Number of fields in the current record
+
+    /**
+     * Constructor - Creates a codec with room for a typical record
+     */
+    public RecordCodec() {
+        this.fieldStarts = new int[8];
+        this.fieldEnds = new int[8];
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Checks that a name can be stored as a field of a record
+     * Names may not contain the field separator or a line break, which would
+     * split the record when it is read back.
+     * @param kind What the name is for, used in the message (for example "Project")
+     * @param name Name to check
+     * @return The name
+     */
+    public static String checkName(String kind, String name) {
+        if (name.indexOf('|') >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException(kind + " name cannot contain '|' or line breaks: "
+                                               + name.replace("\r", "\\r").replace("\n", "\\n"));
+        }
+        return name;
+    }
+
+    /**
+     * Starts reading a record held in characters
+     * @param line Record text
+     * @return This codec
+     */
+    public RecordCodec reset(CharSequence line) {
+        this.chars = line;
+        this.bytes = null;
+        tokenize(0, line.length());
+        return this;
+    }
+
+    /**
+     * Starts reading a record held in UTF-8 bytes
+     * A trailing carriage return is ignored.
+     * @param buffer Bytes containing the record
+     * @param offset Start of the record
+     * @param length Length of the record in bytes
+     * @return This codec
+     */
+    public RecordCodec reset(byte[] buffer, int offset, int length) {
+        this.chars = null;
+        this.bytes = buffer;
+        int end = offset + length;
+        if (end > offset && buffer[end - 1] == '\r') {
+            end--;
+        }
+        tokenize(offset, end);
+        return this;
+    }
+
+    /**
+     * Records the start and end of every field
+     * @param start Start of the record
+     * @param end End of the record (exclusive)
+     */
+    private void tokenize(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (at(i) == '|') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    /**
+     * Adds a field position, growing the arrays when needed
+     * @param start Start of the field
+     * @param end End of the field (exclusive)
+     */
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Gets a character of the current record
+     * @param index Position in the record source
+     * @return Character (or byte value) at that position
+     */
+    private char at(int index) {
+        return bytes != null ? (char) (bytes[index] & 0xFF) : chars.charAt(index);
+    }
+
+    /**
+     * Gets the number of fields in the current record
+     * @return Number of fields
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets the length of a field
+     * @param field Field number
+     * @return Length in characters (or bytes)
+     */
+    public int fieldLength(int field) {
+        checkField(field);
+        return fieldEnds[field] - fieldStarts[field];
+    }
+
+    /**
+     * Reads a field as text
+     * @param field Field number
+     * @return Field text
+     */
+    public String getString(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (bytes != null) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+        return chars.subSequence(start, end).toString();
+    }
+
+    /**
+     * Compares a field with a string without creating a substring
+     * @param field Field number
+     * @param value String to compare with
+     * @return true if the field holds exactly that text
+     */
+    public boolean fieldEquals(int field, String value) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (bytes != null) {
+            // Compare bytes directly only for ASCII text
+            if (length != value.length()) {
+                return getString(field).equals(value);
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    return getString(field).equals(value);
+                }
+                if (bytes[start + i] != c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field as a decimal number.
+     * Plain decimals such as "12.50" or "-3" are parsed in place and give exactly
+     * the same result as Double.parseDouble; anything else is handed to Double.parseDouble.
+     * @param field Field number
+     * @return Parsed value
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (at(i) == '-' || at(i) == '+')) {
+            negative = at(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = at(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return Double.parseDouble(getString(field));
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Double.parseDouble(getString(field));
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field));
+        }
+
+        // Both operands are exact, so a single division is correctly rounded
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field as a fixed-point number, such as a Money amount.
+     * Plain decimals are parsed in place; extra decimal places are rounded
+     * half away from zero. Anything else (exponents, very long numbers) is
+     * parsed with BigDecimal.
+     * @param field Field number
+     * @param decimals Decimal places in the result (the value is returned in units of 10^-decimals)
+     * @return Parsed value
+     * @throws NumberFormatException if the field is not a number
+     */
+    public long getFixed(int field, int decimals) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (at(i) == '-' || at(i) == '+')) {
+            negative = at(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = at(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fractionDigits < decimals) {
+                    if (value > (Long.MAX_VALUE - 9) / 10) {
+                        return parseFixed(field, decimals);
+                    }
+                    value = value * 10 + (c - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (fractionDigits == decimals) {
+                    // First digit past the kept places decides the rounding
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return parseFixed(field, decimals);
+            }
+        }
+        if (digits == 0) {
+            return parseFixed(field, decimals);
+        }
+
+        // Scale up to the requested number of places
+        for (int places = Math.max(fractionDigits, 0); places < decimals; places++) {
+            if (value > Long.MAX_VALUE / 10) {
+                return parseFixed(field, decimals);
+            }
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a fixed-point field the slow way, for numbers getFixed cannot parse in place
+     * @param field Field number
+     * @param decimals Decimal places in the result
+     * @return Parsed value
+     * @throws NumberFormatException if the field is not a number or does not fit in a long
+     */
+    private long parseFixed(int field, int decimals) {
+        try {
+            return new BigDecimal(getString(field)).setScale(decimals, RoundingMode.HALF_UP)
+                                                   .unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Number out of range: " + getString(field));
+        }
+    }
+
+    /**
+     * Validates a field number
+     * @param field Field number
+     */
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IllegalArgumentException("Invalid database string format");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,785 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RegressionTests Class
+ * Plain regression suite for failures that have been fixed before: damaged
+ * logs, names that break records, file encoding, number parsing, out-of-range amounts,
+ * sorted indexes, concurrent repricing, inventory reservations, fleet
+ * replanning, farm simulation, G-code chunk joining and file hashing.
+ * Each test works in its own temporary directory.
+ *
+ * Usage: java RegressionTests [--filter name]
+ * Exits with status 1 if any test fails.
+ */
+public class RegressionTests {
+    /**
+     * A single test body
+     */
+    private interface Test {
+        /**
+         * Runs the test
+         * @param directory Empty temporary directory for the test's files
+         * @throws Exception if the test fails
+         */
+        void run(File directory) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = args.length == 2 && args[0].equals("--filter") ? args[1] : "";
+
+        Map<String, Test> tests = new LinkedHashMap<>();
+        tests.put("WriteAheadLog.tornTailIsRemoved", RegressionTests::tornTailIsRemoved);
+        tests.put("AnalysisCache.tornIndexIsRepaired", RegressionTests::tornIndexIsRepaired);
+        tests.put("ProjectDB.unstorableNamesAreRejected", RegressionTests::unstorableNamesAreRejected);
+        tests.put("ProjectDB.filesAreUtf8", RegressionTests::filesAreUtf8);
+        tests.put("RecordCodec.parsesLikeTheJdk", RegressionTests::recordCodecParsesLikeTheJdk);
+        tests.put("Money.roundsHalfAwayFromZero", RegressionTests::moneyRoundsHalfAwayFromZero);
+        tests.put("BatchRunner.reportsOutOfRangeAmounts", RegressionTests::batchReportsOutOfRangeAmounts);
+        tests.put("ProjectIndex.matchesSortedList", RegressionTests::indexMatchesSortedList);
+        tests.put("ConcurrentProjectDB.insertsSeeNewPrices", RegressionTests::insertsSeeNewPrices);
+        tests.put("FilamentInventory.neverOversells", RegressionTests::inventoryNeverOversells);
+        tests.put("FleetScheduler.matchesFullReplan", RegressionTests::schedulerMatchesFullReplan);
+        tests.put("FleetScheduler.freedPrinterTakesLaterJobs", RegressionTests::freedPrinterTakesLaterJobs);
+        tests.put("FleetScheduler.spoolChangeIsNotPushedBack", RegressionTests::spoolChangeIsNotPushedBack);
+        tests.put("FarmSimulator.replayMatchesHandTrace", RegressionTests::farmReplayMatchesHandTrace);
+        tests.put("FarmSimulator.runsAreRepeatable", RegressionTests::farmRunsAreRepeatable);
+        tests.put("GcodeAnalyzer.chunksAreJoined", RegressionTests::gcodeChunksAreJoined);
+        tests.put("AnalysisCache.hashMatchesXxh64", RegressionTests::hashMatchesXxh64);
+
+        int failed = 0;
+        for (Map.Entry<String, Test> test : tests.entrySet()) {
+            if (!test.getKey().contains(filter)) {
+                continue;
+            }
+            File directory = Files.createTempDirectory("projectdb-test").toFile();
+            try {
+                test.getValue().run(directory);
+                System.out.println("PASS " + test.getKey());
+            } catch (Exception | AssertionError e) {
+                System.out.println("FAIL " + test.getKey() + ": " + e);
+                failed++;
+            } finally {
+                deleteDirectory(directory);
+            }
+        }
+        if (failed > 0) {
+            System.out.println(failed + " test(s) failed");
+            System.exit(1);
+        }
+    }
+
+    // ==================== STORAGE ====================
+
+    /**
+     * A record cut short by a crash must not swallow the next record appended after it
+     * @param directory Temporary directory
+     */
+    private static void tornTailIsRemoved(File directory) {
+        String projectFile = new File(directory, "projects.db").getPath();
+        String materialFile = new File(directory, "materials.db").getPath();
+        DatabaseOptions options = new DatabaseOptions().setWriteAheadLog(true);
+
+        ProjectDB db = new ProjectDB(projectFile, materialFile, options);
+        db.addMaterial(new Material("PLA", 20, 1000));
+        db.addProject(new Project("A", 1, 2, 10, db.getMaterial("PLA"), 25, 1.5));
+        db.close();
+
+        appendBytes(projectFile + ".log", "P+|B|1.0|2");
+        db = new ProjectDB(projectFile, materialFile, options);
+        check(db.getProject("B") == null, "half-written project was applied");
+        db.addProject(new Project("C", 1, 2, 10, db.getMaterial("PLA"), 25, 1.5));
+
+        // Reopen without closing, so C is only in the log
+        db = new ProjectDB(projectFile, materialFile, options);
+        check(db.getProject("A") != null && db.getProject("C") != null,
+              "projects after restart: " + db.getAllProjects().keySet());
+        db.close();
+    }
+
+    /**
+     * The analysis cache index is a log too, and must be repaired the same way
+     * @param directory Temporary directory
+     * @throws IOException if the files cannot be written
+     */
+    private static void tornIndexIsRepaired(File directory) throws IOException {
+        String indexFile = new File(directory, "cache.idx").getPath();
+        File gcode = new File(directory, "part.gcode");
+        writeLines(gcode, Arrays.asList("G21", "G90", "M83", "G1 X10 E1 F600"));
+
+        AnalysisCache cache = new AnalysisCache(indexFile);
+        cache.analyzeGcode(gcode.getPath(), new GcodeAnalyzer());
+        cache.close();
+        long goodLength = new File(indexFile).length();
+
+        appendBytes(indexFile, "G+|half");
+        cache = new AnalysisCache(indexFile);
+        check(new File(indexFile).length() == goodLength, "damaged end was not removed");
+        cache.analyzeGcode(gcode.getPath(), new GcodeAnalyzer());
+        check(cache.getHits() == 1, "entry written before the damage was lost");
+        cache.close();
+    }
+
+    /**
+     * Names holding the field separator or a line break would split their record
+     * @param directory Temporary directory
+     * @throws IOException if the files cannot be read
+     */
+    private static void unstorableNamesAreRejected(File directory) throws IOException {
+        String projectFile = new File(directory, "projects.db").getPath();
+        String materialFile = new File(directory, "materials.db").getPath();
+
+        ProjectDB db = new ProjectDB(projectFile, materialFile);
+        db.addMaterial(new Material("PLA", 20, 1000));
+        Material pla = db.getMaterial("PLA");
+        expectRejected(() -> db.addMaterial(new Material("PETG\nX", 20, 1000)));
+        expectRejected(() -> db.addProject(new Project("a|b", 1, 2, 10, pla, 25, 1.5)));
+        db.addProject(new Project("ok", 1, 2, 10, pla, 25, 1.5));
+        expectRejected(() -> db.updateProject("ok", new Project("ok\r", 1, 2, 10, pla, 25, 1.5)));
+
+        ConcurrentProjectDB shared = new ConcurrentProjectDB(projectFile, materialFile);
+        expectRejected(() -> shared.addMaterial(new Material("A|B", 20, 1000)));
+        expectRejected(() -> shared.addProject(new Project("x\ny", 1, 2, 10, pla, 25, 1.5)));
+
+        check(Files.readAllLines(new File(materialFile).toPath()).size() == 1, "materials file changed");
+        check(Files.readAllLines(new File(projectFile).toPath()).size() == 1, "projects file changed");
+        ProjectDB reopened = new ProjectDB(projectFile, materialFile);
+        check(reopened.getProjectCount() == 1 && reopened.getProject("ok") != null, "projects changed");
+    }
+
+    /**
+     * Names outside ASCII are stored as UTF-8 whatever the platform charset,
+     * so the sequential and the parallel loader read back the same records
+     * @param directory Temporary directory
+     * @throws IOException if the files cannot be read
+     */
+    private static void filesAreUtf8(File directory) throws IOException {
+        String projectFile = new File(directory, "projects.db").getPath();
+        String materialFile = new File(directory, "materials.db").getPath();
+
+        ProjectDB db = new ProjectDB(projectFile, materialFile);
+        db.addMaterial(new Material("Café", 20, 1000));
+        db.addProject(new Project("Bücher", 1, 2, 10, db.getMaterial("Café"), 25, 1.5));
+
+        String line = new String(Files.readAllBytes(new File(projectFile).toPath()), StandardCharsets.UTF_8);
+        check(line.startsWith("Bücher|") && line.contains("|Café|"), "projects file is not UTF-8: " + line);
+
+        ProjectDB sequential = new ProjectDB(projectFile, materialFile);
+        ProjectDB parallel = new ProjectDB(projectFile, materialFile, new DatabaseOptions().setParallelLoad(true));
+        for (ProjectDB reopened : List.of(sequential, parallel)) {
+            Project project = reopened.getProject("Bücher");
+            check(project != null, "project lost on reload");
+            check(project.getMaterialType() == reopened.getMaterial("Café"), "material not bound on reload");
+        }
+    }
+
+    // ==================== NUMBERS ====================
+
+    /**
+     * Fields parsed in place give exactly what Double.parseDouble gives
+     * @param directory Temporary directory (not used)
+     */
+    private static void recordCodecParsesLikeTheJdk(File directory) {
+        String[] numbers = {"0", "-0", "12.50", "0.1", "0.3", "123456.789", "-3", "+7.25", "1e3",
+                            "9007199254740993", "0.000000000000000000000001", "3.14159265358979323846"};
+        RecordCodec codec = new RecordCodec();
+        for (String number : numbers) {
+            double parsed = codec.reset("x|" + number).getDouble(1);
+            check(Double.compare(parsed, Double.parseDouble(number)) == 0, "getDouble(" + number + ") = " + parsed);
+            byte[] bytes = ("x|" + number + "\r").getBytes(StandardCharsets.UTF_8);
+            check(Double.compare(codec.reset(bytes, 0, bytes.length).getDouble(1), parsed) == 0,
+                  "byte record differs for " + number);
+        }
+
+        check(codec.reset("12.345678905").getFixed(0, 8) == 1_234_567_891L, "fixed rounding up");
+        check(codec.reset("12.345678904").getFixed(0, 8) == 1_234_567_890L, "fixed rounding down");
+        check(codec.reset("-0.000000005").getFixed(0, 8) == -1L, "negative rounding");
+        check(codec.reset("1e3").getFixed(0, 8) == 100_000_000_000L, "exponent");
+        check(codec.reset("5").getFixed(0, 8) == 500_000_000L, "whole number");
+        try {
+            codec.reset("99999999999999999999").getFixed(0, 8);
+            throw new AssertionError("out of range number was accepted");
+        } catch (NumberFormatException e) {
+            // Expected
+        }
+        expectRejected(() -> codec.reset("a|b").getString(2));
+    }
+
+    /**
+     * Money arithmetic is exact and rounds half away from zero
+     * @param directory Temporary directory (not used)
+     */
+    private static void moneyRoundsHalfAwayFromZero(File directory) {
+        check(Money.of(12.5) == 1_250_000_000L, "Money.of");
+        check(Money.of(0.1) + Money.of(0.2) == Money.of(0.3), "exact decimals");
+        check(Money.timesMillionths(1, 500_000) == 1, "half rounds up");
+        check(Money.timesMillionths(-1, 500_000) == -1, "negative half rounds down");
+        check(Money.timesMillionths(3, 499_999) == 1, "below half rounds down");
+        check(Money.timesMillionths(Long.MAX_VALUE / 2, 2_000_000) == Long.MAX_VALUE - 1, "large product");
+        check(Money.divide(Money.of(20), 1000) == 2_000_000L, "divide");
+        check(Money.format(Money.of(2.005), 2).equals("2.01"), "format rounds half up");
+        check(Money.format(Money.of(-2.005), 2).equals("-2.01"), "format negative");
+        check(Money.appendExact(new StringBuilder(), Money.of(-0.5), 2).toString().equals("-0.50"), "appendExact");
+        expectRejected(() -> Money.of(Double.NaN));
+        expectRejected(() -> Money.of(1e12));
+        expectRejected(() -> Money.divide(Money.of(10), 0.0000001));
+        expectRejected(() -> Money.add(Long.MAX_VALUE, 1));
+        expectRejected(() -> Money.times(Long.MAX_VALUE / 2, 1000));
+
+        Material material = new Material("PLA", 19.99, 1000);
+        material.setDensity(1.24);
+        material.setInfillDensity(0.15);
+        Material read = Material.fromDatabaseString(material.toDatabaseString());
+        check(read.getCostPerGramMicros() == material.getCostPerGramMicros()
+              && read.toDatabaseString().equals(material.toDatabaseString()), "material round trip");
+        Project project = new Project("Bracket", 1.25, 3.333333, 42.123456, material, 25, 1.5);
+        Project readProject = Project.fromDatabaseString(project.toDatabaseString(), read);
+        check(readProject.getTotalCostMicros() == project.getTotalCostMicros(), "project round trip");
+    }
+
+    /**
+     * Amounts too large to calculate and volumes that round to zero fail their
+     * batch line instead of ending the run
+     * @param directory Temporary directory
+     * @throws IOException if the script cannot be run
+     */
+    private static void batchReportsOutOfRangeAmounts(File directory) throws IOException {
+        ProjectDB db = new ProjectDB(new File(directory, "projects.db").getPath(),
+                                     new File(directory, "materials.db").getPath());
+        StringWriter out = new StringWriter();
+        String script = "add-material PLA 20 1000\n"
+                      + "add-project P 1000000000000 0 0 PLA 1000 0\n"
+                      + "add-material X 10 0.0000001\n"
+                      + "update-material PLA 20 0.0000001\n"
+                      + "add-project Q 1 2 10 PLA 25 1.5\n";
+        int errors = new BatchRunner(db, out).run(new BufferedReader(new StringReader(script)));
+        check(errors == 3, "errors: " + errors + "\n" + out);
+        check(db.getProject("P") == null && db.getMaterial("X") == null, "rejected records were stored");
+        check(db.getMaterial("PLA").getTotalVolume() == 1000, "rejected update changed the material");
+        check(db.getProject("Q") != null, "lines after the errors did not run");
+    }
+
+    /**
+     * Range, count and top-K queries agree with a sorted copy through random changes
+     * @param directory Temporary directory (not used)
+     */
+    private static void indexMatchesSortedList(File directory) {
+        Random random = new Random(7);
+        Material pla = new Material("PLA", 20, 1000);
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            projects.add(new Project("P" + i, 1, random.nextInt(40), 10, pla, 25, 1.5));
+        }
+        ProjectIndex index = new ProjectIndex(ProjectIndex.Field.PRINT_TIME);
+        Set<Project> indexed = new HashSet<>();
+        Comparator<Project> order = Comparator.comparingDouble(Project::getPrintTime)
+                                              .thenComparing(Project::getProjectName);
+
+        for (int step = 0; step < 20_000; step++) {
+            Project project = projects.get(random.nextInt(projects.size()));
+            if (random.nextInt(3) == 0) {
+                index.remove(project);
+                indexed.remove(project);
+            } else {
+                project.setPrintTime(random.nextInt(40));
+                index.add(project);
+                indexed.add(project);
+            }
+            if (step % 100 == 0) {
+                List<Project> sorted = new ArrayList<>(indexed);
+                sorted.sort(order);
+                double low = random.nextInt(44) - 2;
+                double high = random.nextInt(44) - 2;
+                List<Project> inRange = new ArrayList<>();
+                for (Project candidate : sorted) {
+                    if (candidate.getPrintTime() >= low && candidate.getPrintTime() <= high) {
+                        inRange.add(candidate);
+                    }
+                }
+                check(index.range(low, high).equals(inRange), "range " + low + " to " + high);
+                check(index.count(low, high) == inRange.size(), "count " + low + " to " + high);
+                int k = random.nextInt(10);
+                check(index.bottom(k).equals(sorted.subList(0, Math.min(k, sorted.size()))), "bottom " + k);
+                Collections.reverse(sorted);
+                check(index.top(k).equals(sorted.subList(0, Math.min(k, sorted.size()))), "top " + k);
+                check(index.size() == indexed.size(), "size");
+            }
+        }
+    }
+
+    // ==================== CONCURRENCY ====================
+
+    /**
+     * A project added while its material is repriced is stored with the new price
+     * @param directory Temporary directory
+     * @throws Exception if a worker fails
+     */
+    private static void insertsSeeNewPrices(File directory) throws Exception {
+        ConcurrentProjectDB db = new ConcurrentProjectDB(new File(directory, "projects.db").getPath(),
+                                                         new File(directory, "materials.db").getPath());
+        db.addMaterial(new Material("PLA", 20, 1000));
+        Material caller = new Material("PLA", 20, 1000); // A caller's own copy with the old price
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                int first = t * 1000;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        Material material = i % 2 == 0 ? caller : db.getMaterial("PLA");
+                        db.addProject(new Project("P" + (first + i), 1, 2, 10, material, 25, 1.5));
+                    }
+                }));
+            }
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    db.updateMaterial("PLA", 20 + i, 1000);
+                }
+            }));
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // Also after every price change, which does not depend on thread timing
+        db.addProject(new Project("Late", 1, 2, 10, caller, 25, 1.5));
+
+        Material current = db.getMaterial("PLA");
+        long expected = new Project("check", 1, 2, 10, current, 25, 1.5).getTotalCostMicros();
+        check(db.getProjectCount() == 601, "projects: " + db.getProjectCount());
+        for (Project project : db.getAllProjects().values()) {
+            check(project.getMaterialType() == current && project.getTotalCostMicros() == expected,
+                  project.getProjectName() + " has a stale price");
+        }
+    }
+
+    /**
+     * Reservations from several threads never take more than the stock
+     * @param directory Temporary directory
+     * @throws Exception if a worker fails
+     */
+    private static void inventoryNeverOversells(File directory) throws Exception {
+        FilamentInventory inventory = new FilamentInventory(new File(directory, "inventory.db").getPath());
+        Material pla = new Material("PLA", 20, 1000);
+        inventory.track(pla);
+        inventory.setLowStockThreshold("PLA", 100);
+        AtomicInteger alerts = new AtomicInteger();
+        inventory.addLowStockListener((material, available, threshold) -> alerts.incrementAndGet());
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger names = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                workers.add(pool.submit(() -> {
+                    while (inventory.reserve(new Project("J" + names.incrementAndGet(), 0, 1, 0.37, pla, 0, 0))) {
+                        reserved.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        check(reserved.get() == 2702, "reservations: " + reserved.get()); // floor(1000 / 0.37)
+        check(inventory.getAvailableGrams("PLA") >= 0, "stock went negative");
+        check(alerts.get() == 1, "low stock alerts: " + alerts.get());
+
+        // Names are handed out before a reservation can fail, so find two that hold one
+        List<String> holders = new ArrayList<>();
+        for (int i = 1; holders.size() < 2; i++) {
+            if (inventory.hasReservation("J" + i)) {
+                holders.add("J" + i);
+            }
+        }
+        double available = inventory.getAvailableGrams("PLA");
+        double onHand = inventory.getOnHandGrams("PLA");
+        check(inventory.release(holders.get(0)) && inventory.getAvailableGrams("PLA") > available,
+              "released grams were not given back");
+        check(inventory.consume(holders.get(1)) && inventory.getOnHandGrams("PLA") < onHand,
+              "consumed grams were not used up");
+        inventory.save();
+        FilamentInventory loaded = new FilamentInventory(new File(directory, "inventory.db").getPath());
+        check(loaded.getAvailableGrams("PLA") == inventory.getAvailableGrams("PLA")
+              && loaded.getReservedGrams("PLA") == inventory.getReservedGrams("PLA"), "saved stock differs");
+    }
+
+    // ==================== SCHEDULING ====================
+
+    /**
+     * As jobs arrive, start, finish early or late and are cancelled, the kept
+     * plan is the one found by planning the whole queue again from the printers' state
+     * @param directory Temporary directory (not used)
+     */
+    private static void schedulerMatchesFullReplan(File directory) {
+        Material[] materials = {new Material("PLA", 20, 1000), new Material("PETG", 25, 1000),
+                                new Material("ABS", 22, 1000), new Material("TPU", 40, 1000)};
+        double changeHours = 0.25;
+        for (String policyName : List.of("lpt", "edf", "material")) {
+            List<Printer> fleet = List.of(new Printer("A", null), new Printer("B", "PLA"),
+                                          new Printer("C", "PETG", List.of("PLA", "PETG")),
+                                          new Printer("D", "ABS", List.of("ABS", "TPU")),
+                                          new Printer("E", null), new Printer("F", "PLA"),
+                                          new Printer("G", null, List.of("TPU")));
+            AssignmentPolicy policy = StandardAssignmentPolicies.byName(policyName);
+            FleetScheduler scheduler = new FleetScheduler(fleet, policy, changeHours);
+            Random random = new Random(42);
+
+            // More jobs than one saved printer state covers, so states are kept and moved
+            List<Project> projects = new ArrayList<>();
+            for (int i = 0; i < 2500; i++) {
+                projects.add(new Project("J" + i, 0, 0.5 + random.nextInt(40) * 0.25, 10,
+                                         materials[random.nextInt(materials.length)], 0, 1));
+            }
+            List<FleetScheduler.Job> added = new ArrayList<>(scheduler.addJobs(projects));
+            double[] busy = new double[fleet.size()];
+
+            for (int step = 0; step < 150; step++) {
+                List<FleetScheduler.Job> running = new ArrayList<>();
+                List<FleetScheduler.Job> queued = new ArrayList<>();
+                for (FleetScheduler.Job job : added) {
+                    if (scheduler.getJob(job.getName()) == job) {
+                        (job.isRunning() ? running : queued).add(job);
+                    }
+                }
+                int action = random.nextInt(4);
+                if (action == 0 || running.isEmpty()) {
+                    scheduler.advanceTo(scheduler.getNow() + random.nextDouble() * 3);
+                    for (int p = 0; p < fleet.size(); p++) {
+                        List<FleetScheduler.Job> plan = scheduler.getPlan(fleet.get(p).getName());
+                        if (!plan.isEmpty() && plan.get(0).isRunning()) {
+                            busy[p] = plan.get(0).getEnd();
+                        }
+                    }
+                } else if (action == 1) {
+                    Project project = new Project("K" + step, 0, 0.5 + random.nextInt(40) * 0.25, 10,
+                                                  materials[random.nextInt(materials.length)], 0, 1);
+                    added.add(scheduler.addJob(project, scheduler.getNow() + random.nextInt(200)));
+                } else if (action == 2 && !queued.isEmpty()) {
+                    check(scheduler.cancelJob(queued.get(random.nextInt(queued.size())).getName()), "cancel failed");
+                } else {
+                    FleetScheduler.Job job = running.get(random.nextInt(running.size()));
+                    double time = job.getStart() + random.nextDouble() * 1.5 * (job.getEnd() - job.getStart());
+                    busy[fleet.indexOf(job.getPrinter())] = time;
+                    scheduler.finishJob(job.getName(), time);
+                }
+                checkAgainstFullReplan(scheduler, fleet, added, busy, changeHours, policyName + " step " + step);
+            }
+        }
+    }
+
+    /**
+     * A printer freed early takes queued jobs planned on another printer, even when
+     * the first of them is far down the queue and the plan before it is kept
+     * @param directory Temporary directory (not used)
+     */
+    private static void freedPrinterTakesLaterJobs(File directory) {
+        Material pla = new Material("PLA", 20, 1000);
+        Material tpu = new Material("TPU", 40, 1000);
+        List<Printer> fleet = List.of(new Printer("A", "PLA"), new Printer("B", "TPU", List.of("TPU")),
+                                      new Printer("G", "TPU", List.of("TPU")));
+        FleetScheduler scheduler = new FleetScheduler(fleet, StandardAssignmentPolicies.byName("lpt"), 0.25);
+
+        // Longest first: the long TPU print goes to B, then 1500 PLA prints to A, then short TPU prints
+        List<Project> projects = new ArrayList<>();
+        projects.add(new Project("long", 0, 100, 10, tpu, 0, 1));
+        for (int i = 0; i < 1500; i++) {
+            projects.add(new Project("PLA" + i, 0, 10, 10, pla, 0, 1));
+        }
+        for (int i = 0; i < 30; i++) {
+            projects.add(new Project("TPU" + i, 0, 1, 10, tpu, 0, 1));
+        }
+        List<FleetScheduler.Job> added = new ArrayList<>(scheduler.addJobs(projects));
+        double[] busy = new double[fleet.size()];
+        check(scheduler.getJob("long").getPrinter() == fleet.get(1)
+              && scheduler.getJob("TPU0").getPrinter() == fleet.get(2), "unexpected first plan");
+
+        // One job starts on each printer, the TPU one from far down the queue
+        List<FleetScheduler.Job> started = scheduler.advanceTo(0.1);
+        check(started.size() == 3, "started " + started);
+        busy[0] = 10;
+        busy[1] = 100;
+        busy[2] = 1;
+        checkAgainstFullReplan(scheduler, fleet, added, busy, 0.25, "after start");
+
+        busy[1] = 0.5;
+        scheduler.finishJob("long", 0.5);
+        checkAgainstFullReplan(scheduler, fleet, added, busy, 0.25, "after early finish");
+        check(scheduler.getJob("TPU1").getPrinter() == fleet.get(1), "freed printer left idle");
+    }
+
+    /**
+     * Plans the queued jobs from scratch and checks the scheduler gave each the same printer and start
+     * @param scheduler Scheduler under test
+     * @param fleet Its printers, whose loaded materials it keeps up to date
+     * @param added Every job added, in the order added
+     * @param busy When each printer's last started job finishes
+     * @param changeHours Time to swap spools
+     * @param label Where the check is made, for the failure message
+     */
+    private static void checkAgainstFullReplan(FleetScheduler scheduler, List<Printer> fleet,
+                                               List<FleetScheduler.Job> added, double[] busy,
+                                               double changeHours, String label) {
+        List<FleetScheduler.Job> queue = new ArrayList<>();
+        Map<FleetScheduler.Job, Integer> addedOrder = new HashMap<>();
+        for (FleetScheduler.Job job : added) {
+            if (scheduler.getJob(job.getName()) == job && !job.isRunning()) {
+                queue.add(job);
+                addedOrder.put(job, addedOrder.size());
+            }
+        }
+        queue.sort(scheduler.getPolicy().thenComparingInt(addedOrder::get));
+
+        double penalty = scheduler.getPolicy().getChangePenalty(changeHours);
+        double[] free = new double[fleet.size()];
+        String[] loaded = new String[fleet.size()];
+        for (int p = 0; p < fleet.size(); p++) {
+            free[p] = Math.max(busy[p], scheduler.getNow());
+            loaded[p] = fleet.get(p).getLoadedMaterial();
+        }
+        for (FleetScheduler.Job job : queue) {
+            String material = job.getMaterialName();
+            int best = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int p = 0; p < fleet.size(); p++) {
+                boolean swap = !material.equals(loaded[p]);
+                double cost = free[p] + (swap ? changeHours + penalty : 0);
+                if ((!swap || fleet.get(p).canPrint(material)) && cost < bestCost) {
+                    best = p;
+                    bestCost = cost;
+                }
+            }
+            double start = free[best] + (material.equals(loaded[best]) ? 0 : changeHours);
+            if (job.getPrinter() != fleet.get(best) || job.getStart() != start) {
+                throw new AssertionError(label + ": " + job + ", expected " + fleet.get(best).getName() + " at " + start);
+            }
+            free[best] = start + job.getPrintHours();
+            loaded[best] = material;
+        }
+    }
+
+    /**
+     * Moving the clock through a spool change in small steps does not push the job back
+     * @param directory Temporary directory (not used)
+     */
+    private static void spoolChangeIsNotPushedBack(File directory) {
+        FleetScheduler scheduler = new FleetScheduler(List.of(new Printer("P1", "PLA")),
+                                                      StandardAssignmentPolicies.byName("lpt"), 0.25);
+        scheduler.addJob(new Project("swap", 0, 1, 10, new Material("PETG", 25, 1000), 0, 1));
+        List<FleetScheduler.Job> started = new ArrayList<>();
+        for (int i = 1; i <= 13; i++) {
+            started.addAll(scheduler.advanceTo(i * 0.1));
+        }
+        check(started.size() == 1 && started.get(0).getStart() == 0.25, "job started " + started);
+        check(scheduler.getCompletedCount() == 1, "job not finished by 1.3 h");
+    }
+
+    // ==================== SIMULATION ====================
+
+    /**
+     * A short replayed order stream gives the times worked out by hand: a busy
+     * fleet queues orders, a freed printer takes the oldest one and swaps spools
+     * for it, and a print finished after the shift waits for the next operator
+     * @param directory Temporary directory (not used)
+     */
+    private static void farmReplayMatchesHandTrace(File directory) {
+        Material pla = new Material("PLA", 20, 1000);
+        Material petg = new Material("PETG", 25, 1000);
+        CostPipeline pricing = CostPipeline.load(new CostParameters());
+        List<Project> orders = List.of(new Project("o1", 0, 2, 10, pla, 0, 1), new Project("o2", 0, 3, 10, petg, 0, 1),
+                                       new Project("o3", 0, 1, 10, pla, 0, 1), new Project("o4", 0, 1, 10, petg, 0, 1));
+
+        // P1 prints o1 0-2 and o3 2-3, then swaps to PETG and prints o4 3.5-4.5; P2 prints o2 0-3
+        FarmSimulator simulator = new FarmSimulator(List.of(new Printer("P1", "PLA"), new Printer("P2", "PETG")),
+                                                    pricing, new CostParameters());
+        simulator.setMaterialChangeHours(0.5);
+        simulator.setShift(0, 24, 7);
+        FarmSimulator.Report report = simulator.replay(orders, new double[] {0, 0, 1, 1.5}, 1);
+        long revenue = 0;
+        for (Project order : orders) {
+            revenue += pricing.price(order);
+        }
+        check(report.getCompleted() == 4 && report.getBacklog() == 0 && report.getFailures() == 0,
+              "completed " + report.getCompleted());
+        check(report.getMaterialChanges() == 1, "changes " + report.getMaterialChanges());
+        check(report.getMeanWait() == 0.625, "mean wait " + report.getMeanWait());
+        check(report.getMeanLeadTime() == 2.5 && report.getMaxLeadTime() == 3, "lead time " + report.getMeanLeadTime());
+        check(report.getUtilization() == 7.0 / (24 * 2), "utilization " + report.getUtilization());
+        check(report.getRevenueMicros() == revenue && report.getGramsUsed() == 40, "revenue " + report.getRevenueMicros());
+
+        // Arrives at night, starts with the shift at 8, ends at 20 and is cleared at 8 the next day
+        simulator = new FarmSimulator(List.of(new Printer("P1", "PLA")), pricing, new CostParameters());
+        simulator.setShift(8, 18, 7);
+        report = simulator.replay(List.of(new Project("night", 0, 12, 10, pla, 0, 1)), new double[] {0}, 2);
+        check(report.getCompleted() == 1 && report.getMeanWait() == 8 && report.getMaxLeadTime() == 32,
+              "wait " + report.getMeanWait() + ", lead time " + report.getMaxLeadTime());
+        check(report.getUtilization() == 12.0 / 48, "utilization " + report.getUtilization());
+    }
+
+    /**
+     * Runs with the same seed repeat exactly, and fleets of different sizes see the same orders
+     * @param directory Temporary directory (not used)
+     */
+    private static void farmRunsAreRepeatable(File directory) {
+        Material pla = new Material("PLA", 20, 1000);
+        Material petg = new Material("PETG", 25, 1000);
+        List<Project> catalog = List.of(new Project("small", 0, 2, 10, pla, 0, 1),
+                                        new Project("large", 0, 9, 40, petg, 0, 1));
+        CostParameters failureRates = new CostParameters().set(StandardCostComponents.FAILURE_RATE, 0.2);
+        CostPipeline pricing = CostPipeline.load(new CostParameters());
+
+        List<FarmSimulator.Report> reports = new ArrayList<>();
+        for (int printers : new int[] {2, 2, 4}) {
+            List<Printer> fleet = new ArrayList<>();
+            for (int p = 1; p <= printers; p++) {
+                fleet.add(new Printer("P" + p, p % 2 == 0 ? "PETG" : "PLA"));
+            }
+            FarmSimulator simulator = new FarmSimulator(fleet, pricing, failureRates);
+            simulator.setSeed(7);
+            reports.add(simulator.simulate(catalog, 12, 60));
+        }
+        FarmSimulator.Report first = reports.get(0);
+        FarmSimulator.Report again = reports.get(1);
+        check(first.getFailures() > 0 && first.getCompleted() > 0, "no failures or completions");
+        check(again.getArrived() == first.getArrived() && again.getCompleted() == first.getCompleted()
+              && again.getFailures() == first.getFailures() && again.getRevenueMicros() == first.getRevenueMicros()
+              && again.getMeanLeadTime() == first.getMeanLeadTime(), "same seed gave another run");
+        check(reports.get(2).getArrived() == first.getArrived(), "a larger fleet saw other orders");
+        for (FarmSimulator.Report report : reports) {
+            check(report.getCompleted() + report.getBacklog() == report.getArrived(), "orders lost");
+        }
+    }
+
+    // ==================== FILE ANALYSIS ====================
+
+    /**
+     * Moves that span chunk boundaries are measured as if the file were read in one pass
+     * @param directory Temporary directory
+     * @throws IOException if the file cannot be written or read
+     */
+    private static void gcodeChunksAreJoined(File directory) throws IOException {
+        // Absolute positions and extrusion, so every chunk needs the state left by the one before it
+        int moves = 300_000;
+        List<String> lines = new ArrayList<>(moves + 4);
+        lines.add("G21");
+        lines.add("G90");
+        lines.add("M82");
+        lines.add("G1 X0 Y0 F1200");
+        for (int i = 1; i <= moves; i++) {
+            lines.add("G1 X" + (i % 2 == 0 ? 0 : 10) + " Y0 E" + (i * 0.5));
+        }
+        File gcode = new File(directory, "long.gcode");
+        writeLines(gcode, lines);
+        check(gcode.length() > 4 * 1024 * 1024, "file too small to be split");
+
+        GcodeAnalyzer.Result result = new GcodeAnalyzer().analyze(gcode.getPath());
+        check(Math.abs(result.getFilamentLength() - moves * 0.5) < 1e-6, "filament " + result.getFilamentLength());
+        check(Math.abs(result.getExtrudeDistance() - moves * 10.0) < 1e-6, "distance " + result.getExtrudeDistance());
+        check(Math.abs(result.getPrintSeconds() - moves * 10.0 / 1200 * 60) < 1e-6, "time " + result.getPrintSeconds());
+    }
+
+    /**
+     * The content hash gives the published XXH64 values
+     * @param directory Temporary directory
+     * @throws IOException if the files cannot be written or read
+     */
+    private static void hashMatchesXxh64(File directory) throws IOException {
+        String[][] vectors = {
+            {"", "ef46db3751d8e999"},
+            {"abc", "44bc2cf5ad770999"},
+            {"Nobody inspects the spammish repetition", "fbcea83c8a378bf1"}
+        };
+        for (String[] vector : vectors) {
+            File file = new File(directory, "hash.bin");
+            Files.write(file.toPath(), vector[0].getBytes(StandardCharsets.UTF_8));
+            String hash = String.format("%016x", AnalysisCache.hashFile(file.getPath()));
+            check(hash.equals(vector[1]), "XXH64(\"" + vector[0] + "\") = " + hash);
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Fails the current test unless a condition holds
+     * @param condition Condition to check
+     * @param message Description of the failure
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails the current test unless an action is rejected with IllegalArgumentException
+     * @param action Action to run
+     */
+    private static void expectRejected(Runnable action) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("expected IllegalArgumentException");
+    }
+
+    /**
+     * Appends raw text to a file without a line break, as a crash mid-write would leave it
+     * @param file Path to the file
+     * @param text Text to append
+     */
+    private static void appendBytes(String file, String text) {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new AssertionError("cannot write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes lines to a file
+     * @param file File to write
+     * @param lines Lines to write
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeLines(File file, List<String> lines) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            for (String line : lines) {
+                out.print(line);
+                out.print('\n');
+            }
+        }
+    }
+
+    /**
+     * Deletes a test directory and the files in it
+     * @param directory Directory to delete
+     */
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+/**
+ * StandardAssignmentPolicies Class
+ * The built-in printer assignment policies:
+ *   lpt        longest print first, which keeps the makespan short
+ *   edf        earliest deadline first, which keeps jobs on time
+ *   material   jobs grouped by material, avoiding spool changes
+ */
+public class StandardAssignmentPolicies {
+    /**
+     * Private constructor - this class only holds the policy classes
+     */
+    private StandardAssignmentPolicies() {
+    }
+
+    /**
+     * Finds a standard policy by its short name
+     * @param name lpt, edf or material
+     * @return Policy
+     */
+    public static AssignmentPolicy byName(String name) {
+        switch (name) {
+            case "lpt":
+                return new LongestFirst();
+            case "edf":
+                return new EarliestDeadlineFirst();
+            case "material":
+                return new FewestMaterialChanges();
+            default:
+                throw new IllegalArgumentException("Unknown scheduling policy: " + name + " (use lpt, edf or material)");
+        }
+    }
+
+    /**
+     * Longest processing time first: long prints are placed while every printer
+     * is still open, and short ones fill in the gaps at the end.
+     */
+    public static class LongestFirst implements AssignmentPolicy {
+        @Override
+        public String getName() {
+            return "Longest print first";
+        }
+
+        @Override
+        public double getChangePenalty(double materialChangeHours) {
+            return 0;
+        }
+
+        @Override
+        public int compare(FleetScheduler.Job a, FleetScheduler.Job b) {
+            return Double.compare(b.getPrintHours(), a.getPrintHours());
+        }
+    }
+
+    /**
+     * Earliest deadline first; jobs without a deadline go last, longest first
+     */
+    public static class EarliestDeadlineFirst implements AssignmentPolicy {
+        @Override
+        public String getName() {
+            return "Earliest deadline first";
+        }
+
+        @Override
+        public double getChangePenalty(double materialChangeHours) {
+            return 0;
+        }
+
+        @Override
+        public int compare(FleetScheduler.Job a, FleetScheduler.Job b) {
+            int order = Double.compare(a.getDeadline(), b.getDeadline());
+            return order != 0 ? order : Double.compare(b.getPrintHours(), a.getPrintHours());
+        }
+    }
+
+    /**
+     * Jobs of the same material are placed together, longest first, and a
+     * printer that already has the material loaded is preferred unless another
+     * printer would finish the job more than the penalty sooner.
+     */
+    public static class FewestMaterialChanges implements AssignmentPolicy {
+        // Penalty for a change when none is given, as a multiple of the change time
+        public static final double DEFAULT_PENALTY_FACTOR = 8;
+
+        // Attributes
+        private final double penaltyFactor;    // Penalty as a multiple of the change time
+
+        /**
+         * Constructor - Creates the policy with the default penalty
+         */
+        public FewestMaterialChanges() {
+            this(DEFAULT_PENALTY_FACTOR);
+        }
+
+        /**
+         * Constructor - Creates the policy
+         * @param penaltyFactor Penalty for a change, as a multiple of the change time
+         */
+        public FewestMaterialChanges(double penaltyFactor) {
+            if (!(penaltyFactor >= 0) || Double.isInfinite(penaltyFactor)) {
+                throw new IllegalArgumentException("Penalty factor must be a positive number");
+            }
+            this.penaltyFactor = penaltyFactor;
+        }
+
+        @Override
+        public String getName() {
+            return "Fewest material changes";
+        }
+
+        @Override
+        public double getChangePenalty(double materialChangeHours) {
+            return materialChangeHours * penaltyFactor;
+        }
+
+        @Override
+        public int compare(FleetScheduler.Job a, FleetScheduler.Job b) {
+            int order = a.getMaterialName().compareTo(b.getMaterialName());
+            return order != 0 ? order : Double.compare(b.getPrintHours(), a.getPrintHours());
+        }
+    }
+}
\ No newline at end of file
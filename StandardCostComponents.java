@@ -0,0 +1,224 @@
+/**
+ * StandardCostComponents Class
+ * The built-in cost components. Each one is listed in
+ * META-INF/services/CostComponent so ServiceLoader finds it.
+ * Components whose parameters are not set add nothing, so with empty
+ * parameters a pipeline prices a project exactly like Project.calculateCost.
+ *
+ * Parameters (per material overrides allowed):
+ *   electricity.pricePerKwh, printer.watts          electricity while printing
+ *   machine.cost, machine.lifetimeHours             printer depreciation per print hour
+ *   failure.rate                                    share of prints that fail and are reprinted
+ *   postprocessing.perPrint                         fixed finishing cost per print
+ *   markup.rate                                     markup on the total
+ */
+public class StandardCostComponents {
+    // Parameter names
+    public static final String ELECTRICITY_PRICE = "electricity.pricePerKwh";
+    public static final String PRINTER_WATTS = "printer.watts";
+    public static final String MACHINE_COST = "machine.cost";
+    public static final String MACHINE_LIFETIME = "machine.lifetimeHours";
+    public static final String FAILURE_RATE = "failure.rate";
+    public static final String POSTPROCESSING_PER_PRINT = "postprocessing.perPrint";
+    public static final String MARKUP_RATE = "markup.rate";
+
+    /**
+     * Private constructor - this class only holds the component classes
+     */
+    private StandardCostComponents() {
+    }
+
+    /**
+     * Gets every standard component, for use when ServiceLoader finds none
+     * @return Standard components in pipeline order
+     */
+    public static CostComponent[] all() {
+        return new CostComponent[] {
+            new MaterialCost(), new PrintCost(), new Electricity(), new Depreciation(),
+            new FailureAllowance(), new DesignCost(), new PostProcessing(), new Markup()
+        };
+    }
+
+    /**
+     * Material used times the material's cost per gram
+     */
+    public static class MaterialCost implements CostComponent {
+        @Override
+        public String getName() {
+            return "Material";
+        }
+
+        @Override
+        public int getOrder() {
+            return 100;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            program.addRate(CostProgram.Quantity.GRAMS, material.getCostPerGramMicros());
+        }
+    }
+
+    /**
+     * Print time times the project's printer operation rate
+     */
+    public static class PrintCost implements CostComponent {
+        @Override
+        public String getName() {
+            return "Printer operation";
+        }
+
+        @Override
+        public int getOrder() {
+            return 200;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            program.addProjectRate(CostProgram.Quantity.PRINT_HOURS, CostProgram.ProjectRate.PRINT_RATE);
+        }
+    }
+
+    /**
+     * Electricity used while printing
+     */
+    public static class Electricity implements CostComponent {
+        @Override
+        public String getName() {
+            return "Electricity";
+        }
+
+        @Override
+        public int getOrder() {
+            return 300;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            double pricePerKwh = parameters.get(ELECTRICITY_PRICE, material.getName(), 0);
+            double watts = parameters.get(PRINTER_WATTS, material.getName(), 0);
+            if (pricePerKwh > 0 && watts > 0) {
+                program.addRate(CostProgram.Quantity.PRINT_HOURS, Money.of(watts / 1000 * pricePerKwh));
+            }
+        }
+    }
+
+    /**
+     * Printer wear: purchase cost spread over its expected print hours
+     */
+    public static class Depreciation implements CostComponent {
+        @Override
+        public String getName() {
+            return "Machine depreciation";
+        }
+
+        @Override
+        public int getOrder() {
+            return 400;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            double cost = parameters.get(MACHINE_COST, material.getName(), 0);
+            double lifetimeHours = parameters.get(MACHINE_LIFETIME, material.getName(), 0);
+            if (cost > 0 && lifetimeHours > 0) {
+                program.addRate(CostProgram.Quantity.PRINT_HOURS, Money.of(cost / lifetimeHours));
+            }
+        }
+    }
+
+    /**
+     * Expected cost of reprinting failed prints
+     * With failure rate f, a print needs 1 / (1 - f) attempts on average, so
+     * f / (1 - f) is added to the printing costs before it.
+     */
+    public static class FailureAllowance implements CostComponent {
+        @Override
+        public String getName() {
+            return "Failure allowance";
+        }
+
+        @Override
+        public int getOrder() {
+            return 500;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            double rate = parameters.get(FAILURE_RATE, material.getName(), 0);
+            if (rate >= 1) {
+                throw new IllegalArgumentException("Failure rate must be less than 1");
+            }
+            if (rate > 0) {
+                program.addPercent(rate / (1 - rate));
+            }
+        }
+    }
+
+    /**
+     * Design time times the project's hourly design rate
+     * Runs after the failure allowance, since a reprint does not repeat the design work.
+     */
+    public static class DesignCost implements CostComponent {
+        @Override
+        public String getName() {
+            return "Design";
+        }
+
+        @Override
+        public int getOrder() {
+            return 600;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            program.addProjectRate(CostProgram.Quantity.DESIGN_HOURS, CostProgram.ProjectRate.HOURLY_RATE);
+        }
+    }
+
+    /**
+     * Fixed finishing cost per print (support removal, sanding, packing)
+     */
+    public static class PostProcessing implements CostComponent {
+        @Override
+        public String getName() {
+            return "Post-processing";
+        }
+
+        @Override
+        public int getOrder() {
+            return 700;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            double perPrint = parameters.get(POSTPROCESSING_PER_PRINT, material.getName(), 0);
+            if (perPrint > 0) {
+                program.addFixed(Money.of(perPrint));
+            }
+        }
+    }
+
+    /**
+     * Markup on the full cost
+     */
+    public static class Markup implements CostComponent {
+        @Override
+        public String getName() {
+            return "Markup";
+        }
+
+        @Override
+        public int getOrder() {
+            return 900;
+        }
+
+        @Override
+        public void compile(CostParameters parameters, Material material, CostProgram.Builder program) {
+            double rate = parameters.get(MARKUP_RATE, material.getName(), 0);
+            if (rate > 0) {
+                program.addPercent(rate);
+            }
+        }
+    }
+}
\ No newline at end of file
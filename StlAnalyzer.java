@@ -0,0 +1,820 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * StlAnalyzer Class
+ * Reads an STL model to find its volume, surface area and bounding box, so the
+ * material used by a print can be estimated before the model is sliced.
+ *
+ * Both STL variants are read. A binary file is memory-mapped and its triangles
+ * are summed by fork-join tasks on the common pool, each task reading a range of
+ * fixed-size triangle records straight from the map. An ASCII file is mapped and
+ * split into chunks that end after an "endfacet", and the chunks are parsed in
+ * parallel. Every triangle adds the signed volume of the tetrahedron it makes
+ * with one reference point (the model's first vertex), so the chunk totals can
+ * simply be added up.
+ *
+ * The volume is only meaningful for a closed mesh. A mesh whose triangles are
+ * wound inside out gives a negative signed volume; its size is used as the volume.
+ */
+public class StlAnalyzer {
+    // Binary layout: 80 byte header, triangle count, then 50 byte triangle records
+    private static final int HEADER_BYTES = 84;
+    private static final int TRIANGLE_BYTES = 50;
+
+    // Triangles mapped at a time (a mapped buffer holds at most 2 GB)
+    private static final int SEGMENT_TRIANGLES = 1 << 24;
+
+    // Triangles summed by one fork-join leaf task
+    private static final int LEAF_TRIANGLES = 16 * 1024;
+
+    // ASCII chunk sizes
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    // Bytes copied out of the mapped file at a time for parsing
+    private static final int WINDOW_BYTES = 256 * 1024;
+
+    // Powers of ten for number parsing
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Attributes
+    private final double unitScale;    // Millimetres per STL unit
+
+    /**
+     * Constructor - Creates an analyzer for models drawn in millimetres
+     */
+    public StlAnalyzer() {
+        this(1);
+    }
+
+    /**
+     * Constructor - Creates an analyzer
+     * @param unitScale Millimetres per STL unit (25.4 for a model drawn in inches)
+     */
+    public StlAnalyzer(double unitScale) {
+        if (!(unitScale > 0) || Double.isInfinite(unitScale)) {
+            throw new IllegalArgumentException("Unit scale must be greater than 0");
+        }
+        this.unitScale = unitScale;
+    }
+
+    /**
+     * Gets the unit scale
+     * @return Millimetres per STL unit
+     */
+    public double getUnitScale() {
+        return unitScale;
+    }
+
+    /**
+     * Analyzes an STL file
+     * @param stlFile Path to the binary or ASCII STL file
+     * @return Volume, surface area and bounding box
+     * @throws IOException if the file cannot be read
+     */
+    public Result analyze(String stlFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(stlFile), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(head, 0);
+            long triangles = size >= HEADER_BYTES ? head.getInt(80) & 0xFFFFFFFFL : -1;
+            long binarySize = HEADER_BYTES + triangles * TRIANGLE_BYTES;
+
+            // Some binary files also start with "solid", so an exact binary size wins
+            Sums sums;
+            if (triangles >= 0 && binarySize == size) {
+                sums = analyzeBinary(channel, triangles);
+            } else if (startsWithSolid(head)) {
+                sums = analyzeAscii(channel, size);
+            } else if (triangles >= 0 && binarySize < size) {
+                sums = analyzeBinary(channel, triangles);
+            } else {
+                throw new IllegalArgumentException("Not an STL file: " + stlFile);
+            }
+            if (!Double.isFinite(sums.volume) || !Double.isFinite(sums.area)) {
+                throw new IllegalArgumentException("STL file has invalid coordinates: " + stlFile);
+            }
+            return new Result(sums, unitScale);
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the ASCII STL keyword
+     * @param head First bytes of the file
+     * @return True if the first word is "solid"
+     */
+    private static boolean startsWithSolid(ByteBuffer head) {
+        int i = 0;
+        while (i < head.limit() && isSpace(head.get(i))) {
+            i++;
+        }
+        return i + 5 <= head.limit() && head.get(i) == 's' && head.get(i + 1) == 'o'
+            && head.get(i + 2) == 'l' && head.get(i + 3) == 'i' && head.get(i + 4) == 'd';
+    }
+
+    /**
+     * Sums the triangles of a binary STL file
+     * @param channel Open STL file
+     * @param triangles Number of triangle records
+     * @return Totals over all triangles
+     * @throws IOException if the file cannot be mapped
+     */
+    private static Sums analyzeBinary(FileChannel channel, long triangles) throws IOException {
+        if (triangles == 0) {
+            return new Sums();
+        }
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (long first = 0; first < triangles; first += SEGMENT_TRIANGLES) {
+            long count = Math.min(SEGMENT_TRIANGLES, triangles - first);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * TRIANGLE_BYTES,
+                                     count * TRIANGLE_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        // Every segment measures volumes from the first vertex of the model
+        ByteBuffer first = segments.get(0);
+        double[] reference = { first.getFloat(12), first.getFloat(16), first.getFloat(20) };
+        List<BinaryTask> tasks = new ArrayList<>();
+        for (ByteBuffer segment : segments) {
+            tasks.add(new BinaryTask(segment, reference, 0, segment.capacity() / TRIANGLE_BYTES));
+        }
+        return sum(tasks);
+    }
+
+    /**
+     * Sums the triangles of an ASCII STL file
+     * @param channel Open STL file
+     * @param size Size of the file
+     * @return Totals over all triangles
+     * @throws IOException if the file cannot be read
+     */
+    private static Sums analyzeAscii(FileChannel channel, long size) throws IOException {
+        long chunks = Math.max(ForkJoinPool.getCommonPoolParallelism() * 4L, size / MAX_CHUNK_BYTES + 1);
+        chunks = Math.max(1, Math.min(chunks, size / MIN_CHUNK_BYTES));
+        long[] bounds = new long[(int) chunks + 1];
+        bounds[(int) chunks] = size;
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = nextFacetEnd(channel, Math.max(size * i / chunks, bounds[i - 1]), size);
+        }
+
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            if (bounds[i] < bounds[i + 1]) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]));
+            }
+        }
+
+        // Every chunk measures volumes from the first vertex of the model
+        double[] reference = segments.isEmpty() ? null : new AsciiParser(segments.get(0)).firstVertex();
+        if (reference == null) {
+            return new Sums();
+        }
+        List<AsciiTask> tasks = new ArrayList<>();
+        for (ByteBuffer segment : segments) {
+            tasks.add(new AsciiTask(segment, reference));
+        }
+        return sum(tasks);
+    }
+
+    /**
+     * Runs tasks in parallel and adds up their totals
+     * @param tasks Tasks to run
+     * @return Totals over all tasks
+     */
+    private static Sums sum(List<? extends RecursiveTask<Sums>> tasks) {
+        ForkJoinTask.invokeAll(tasks);
+        Sums total = new Sums();
+        for (RecursiveTask<Sums> task : tasks) {
+            total.add(task.join());
+        }
+        return total;
+    }
+
+    /**
+     * Finds the end of the first facet that ends after a position in the file
+     * @param channel Open STL file
+     * @param position Position to search from
+     * @param size Size of the file
+     * @return Position just after the next "endfacet", or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextFacetEnd(FileChannel channel, long position, long size) throws IOException {
+        byte[] keyword = "endfacet".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read < keyword.length) {
+                break;
+            }
+            for (int i = 0; i + keyword.length <= read; i++) {
+                int k = 0;
+                while (k < keyword.length && buffer.get(i + k) == keyword[k]) {
+                    k++;
+                }
+                if (k == keyword.length) {
+                    return offset + i + keyword.length;
+                }
+            }
+            // Read again from just before the end, in case the keyword was cut off
+            offset += read - keyword.length + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Checks whether a byte is ASCII white space
+     * @param c Byte to check
+     * @return True for space, tab, carriage return or newline
+     */
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * Sums - totals over a set of triangles
+     * Volumes are six times the signed tetrahedron volumes and areas are twice
+     * the triangle areas, in STL units; Result scales them.
+     */
+    private static class Sums {
+        long triangles;                 // Number of triangles
+        double volume;                  // Signed volume * 6
+        double area;                    // Surface area * 2
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Adds one triangle, with its corners given relative to the reference point
+         */
+        void add(double ax, double ay, double az, double bx, double by, double bz,
+                 double cx, double cy, double cz) {
+            triangles++;
+            volume += ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx);
+            double ux = bx - ax, uy = by - ay, uz = bz - az;
+            double vx = cx - ax, vy = cy - ay, vz = cz - az;
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            area += Math.sqrt(nx * nx + ny * ny + nz * nz);
+        }
+
+        /**
+         * Widens the bounding box to take in one point
+         */
+        void include(double x, double y, double z) {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        /**
+         * Adds the totals of another set of triangles
+         * @param other Totals to add
+         */
+        void add(Sums other) {
+            triangles += other.triangles;
+            volume += other.volume;
+            area += other.area;
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            minZ = Math.min(minZ, other.minZ);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+            maxZ = Math.max(maxZ, other.maxZ);
+        }
+    }
+
+    /**
+     * BinaryTask - sums a range of binary triangle records, splitting it in half until it is small
+     */
+    private static class BinaryTask extends RecursiveTask<Sums> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;    // Mapped triangle records (little-endian)
+        private final double[] reference;   // Point volumes are measured from
+        private final int start;            // First triangle in the range
+        private final int end;              // End of the range (exclusive)
+
+        /**
+         * Constructor - Creates a task for a range of triangles
+         * @param buffer Mapped triangle records
+         * @param reference Point volumes are measured from
+         * @param start First triangle in the range
+         * @param end End of the range (exclusive)
+         */
+        BinaryTask(ByteBuffer buffer, double[] reference, int start, int end) {
+            this.buffer = buffer;
+            this.reference = reference;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Sums compute() {
+            if (end - start > LEAF_TRIANGLES) {
+                int middle = (start + end) >>> 1;
+                BinaryTask right = new BinaryTask(buffer, reference, middle, end);
+                right.fork();
+                Sums sums = new BinaryTask(buffer, reference, start, middle).compute();
+                sums.add(right.join());
+                return sums;
+            }
+
+            // Totals are kept in locals; this loop is the whole cost of a binary file
+            double rx = reference[0], ry = reference[1], rz = reference[2];
+            double volume = 0, area = 0;
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                // Skip the 12 byte normal; the winding order gives the facing
+                int position = i * TRIANGLE_BYTES + 12;
+                float x1 = buffer.getFloat(position), y1 = buffer.getFloat(position + 4);
+                float z1 = buffer.getFloat(position + 8);
+                float x2 = buffer.getFloat(position + 12), y2 = buffer.getFloat(position + 16);
+                float z2 = buffer.getFloat(position + 20);
+                float x3 = buffer.getFloat(position + 24), y3 = buffer.getFloat(position + 28);
+                float z3 = buffer.getFloat(position + 32);
+
+                double ax = x1 - rx, ay = y1 - ry, az = z1 - rz;
+                double bx = x2 - rx, by = y2 - ry, bz = z2 - rz;
+                double cx = x3 - rx, cy = y3 - ry, cz = z3 - rz;
+                volume += ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx);
+                double ux = bx - ax, uy = by - ay, uz = bz - az;
+                double vx = cx - ax, vy = cy - ay, vz = cz - az;
+                double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+                area += Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+                minX = min(minX, x1, x2, x3);
+                minY = min(minY, y1, y2, y3);
+                minZ = min(minZ, z1, z2, z3);
+                maxX = max(maxX, x1, x2, x3);
+                maxY = max(maxY, y1, y2, y3);
+                maxZ = max(maxZ, z1, z2, z3);
+            }
+            Sums sums = new Sums();
+            sums.triangles = end - start;
+            sums.volume = volume;
+            sums.area = area;
+            sums.include(minX, minY, minZ);
+            sums.include(maxX, maxY, maxZ);
+            return sums;
+        }
+
+        /**
+         * Smallest of four coordinates (plain comparisons; a NaN shows up in the volume instead)
+         */
+        private static float min(float a, float b, float c, float d) {
+            float ab = a < b ? a : b;
+            float cd = c < d ? c : d;
+            return ab < cd ? ab : cd;
+        }
+
+        /**
+         * Largest of four coordinates
+         */
+        private static float max(float a, float b, float c, float d) {
+            float ab = a > b ? a : b;
+            float cd = c > d ? c : d;
+            return ab > cd ? ab : cd;
+        }
+    }
+
+    /**
+     * AsciiTask - parses one chunk of an ASCII STL file
+     */
+    private static class AsciiTask extends RecursiveTask<Sums> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;        // Mapped chunk
+        private final double[] reference;       // Point volumes are measured from
+
+        /**
+         * Constructor - Creates a task for a chunk
+         * @param buffer Mapped chunk, ending just after an "endfacet" or at the end of the file
+         * @param reference Point volumes are measured from
+         */
+        AsciiTask(ByteBuffer buffer, double[] reference) {
+            this.buffer = buffer;
+            this.reference = reference;
+        }
+
+        @Override
+        protected Sums compute() {
+            return new AsciiParser(buffer).parse(reference);
+        }
+    }
+
+    /**
+     * AsciiParser - reads the facets in one chunk of an ASCII STL file
+     * The chunk is copied into a window at a time; each window ends at white
+     * space, so no word is split between windows.
+     */
+    private static class AsciiParser {
+        // Attributes
+        private final ByteBuffer source;                        // Mapped chunk
+        private final byte[] data = new byte[WINDOW_BYTES];     // Current window
+        private int limit;                                      // Bytes in the window
+        private int cursor;                                     // Read position in the window
+        private int sourcePosition;                             // Chunk position after the window
+
+        /**
+         * Constructor - Creates a parser for a chunk
+         * @param source Mapped chunk
+         */
+        AsciiParser(ByteBuffer source) {
+            this.source = source;
+        }
+
+        /**
+         * Finds the first vertex in the chunk
+         * @return Vertex coordinates, or null if the chunk has none
+         */
+        double[] firstVertex() {
+            while (nextWord()) {
+                if (isWord("vertex")) {
+                    return new double[] { number(), number(), number() };
+                }
+                skipWord();
+            }
+            return null;
+        }
+
+        /**
+         * Sums the facets in the chunk
+         * @param reference Point volumes are measured from
+         * @return Totals over the chunk's triangles
+         */
+        Sums parse(double[] reference) {
+            Sums sums = new Sums();
+            double[] corners = new double[9];
+            int vertices = 0;
+            while (nextWord()) {
+                if (isWord("vertex")) {
+                    if (vertices == 3) {
+                        throw new IllegalArgumentException("STL facet has more than 3 vertices");
+                    }
+                    for (int axis = 0; axis < 3; axis++) {
+                        corners[vertices * 3 + axis] = number();
+                    }
+                    sums.include(corners[vertices * 3], corners[vertices * 3 + 1], corners[vertices * 3 + 2]);
+                    vertices++;
+                } else if (isWord("endfacet")) {
+                    if (vertices != 3) {
+                        throw new IllegalArgumentException("STL facet has " + vertices + " vertices");
+                    }
+                    sums.add(corners[0] - reference[0], corners[1] - reference[1], corners[2] - reference[2],
+                             corners[3] - reference[0], corners[4] - reference[1], corners[5] - reference[2],
+                             corners[6] - reference[0], corners[7] - reference[1], corners[8] - reference[2]);
+                    vertices = 0;
+                } else if (isWord("solid") || isWord("endsolid")) {
+                    skipLine();
+                } else {
+                    skipWord();
+                }
+            }
+            return sums;
+        }
+
+        /**
+         * Moves to the start of the next word, loading windows as needed
+         * @return False at the end of the chunk
+         */
+        private boolean nextWord() {
+            while (true) {
+                while (cursor < limit && isSpace(data[cursor])) {
+                    cursor++;
+                }
+                if (cursor < limit) {
+                    return true;
+                }
+                if (!fill()) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Checks whether the word at the cursor is a keyword, and moves past it if so
+         * @param keyword Keyword to check
+         * @return True if the word matches
+         */
+        private boolean isWord(String keyword) {
+            int length = keyword.length();
+            if (cursor + length > limit) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (data[cursor + i] != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            if (cursor + length < limit && !isSpace(data[cursor + length])) {
+                return false;
+            }
+            cursor += length;
+            return true;
+        }
+
+        /**
+         * Skips the word at the cursor ("facet", "normal" and the like)
+         */
+        private void skipWord() {
+            while (cursor < limit && !isSpace(data[cursor])) {
+                cursor++;
+            }
+        }
+
+        /**
+         * Skips the rest of the current line (a solid's name)
+         */
+        private void skipLine() {
+            while (true) {
+                while (cursor < limit) {
+                    if (data[cursor++] == '\n') {
+                        return;
+                    }
+                }
+                if (!fill()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Reads a number such as 12, -0.5 or 1.25e+02
+         * @return Number read
+         */
+        private double number() {
+            if (!nextWord()) {
+                throw new IllegalArgumentException("STL vertex is missing a coordinate");
+            }
+            int start = cursor;
+            boolean negative = false;
+            if (data[cursor] == '-' || data[cursor] == '+') {
+                negative = data[cursor] == '-';
+                cursor++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            boolean anyDigit = false;
+            int scale = 0;
+            boolean dot = false;
+            for (; cursor < limit; cursor++) {
+                byte c = data[cursor];
+                if (c >= '0' && c <= '9') {
+                    anyDigit = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits += mantissa > 0 ? 1 : 0;
+                        scale -= dot ? 1 : 0;
+                    } else {
+                        scale += dot ? 0 : 1;
+                    }
+                } else if (c == '.' && !dot) {
+                    dot = true;
+                } else {
+                    break;
+                }
+            }
+            if (cursor < limit && (data[cursor] == 'e' || data[cursor] == 'E')) {
+                cursor++;
+                boolean negativeExponent = false;
+                if (cursor < limit && (data[cursor] == '-' || data[cursor] == '+')) {
+                    negativeExponent = data[cursor] == '-';
+                    cursor++;
+                }
+                int exponent = 0;
+                int exponentStart = cursor;
+                while (cursor < limit && data[cursor] >= '0' && data[cursor] <= '9') {
+                    exponent = Math.min(exponent * 10 + (data[cursor++] - '0'), 1000);
+                }
+                if (cursor == exponentStart) {
+                    throw badNumber(start);
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+            if (!anyDigit || (cursor < limit && !isSpace(data[cursor]))) {
+                throw badNumber(start);
+            }
+
+            double value;
+            // Numbers with very large or small exponents are left to the library parser
+            if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+                value = mantissa * POWERS_OF_TEN[scale];
+            } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+                value = mantissa / POWERS_OF_TEN[-scale];
+            } else {
+                return Double.parseDouble(new String(data, start, cursor - start, StandardCharsets.US_ASCII));
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Creates the error for a word that is not a number
+         * @param start Start of the word in the window
+         * @return Exception to throw
+         */
+        private IllegalArgumentException badNumber(int start) {
+            int end = start;
+            while (end < limit && !isSpace(data[end]) && end - start < 40) {
+                end++;
+            }
+            return new IllegalArgumentException("Invalid STL number: "
+                + new String(data, start, end - start, StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * Loads the next window from the chunk, ending it at white space
+         * @return False if the chunk has been read
+         */
+        private boolean fill() {
+            int remaining = source.limit() - sourcePosition;
+            if (remaining <= 0) {
+                return false;
+            }
+            int length = Math.min(remaining, WINDOW_BYTES);
+            source.get(sourcePosition, data, 0, length);
+            if (length < remaining) {
+                int end = length;
+                while (end > 0 && !isSpace(data[end - 1])) {
+                    end--;
+                }
+                if (end == 0) {
+                    throw new IllegalArgumentException("STL file has a word longer than " + WINDOW_BYTES + " bytes");
+                }
+                length = end;
+            }
+            sourcePosition += length;
+            limit = length;
+            cursor = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Result - the size of an STL model
+     */
+    public static class Result {
+        // Attributes
+        private final Sums sums;            // Totals over all triangles, in STL units
+        private final double unitScale;     // Millimetres per STL unit
+
+        /**
+         * Constructor - Creates a result
+         * @param sums Totals over all triangles
+         * @param unitScale Millimetres per STL unit
+         */
+        private Result(Sums sums, double unitScale) {
+            this.sums = sums;
+            this.unitScale = unitScale;
+        }
+
+        /**
+         * Converts the result to a string that fromRecord can read back exactly
+         * Sizes are stored in STL units; the unit scale is given again when the result is read.
+         * @return String in format: triangles|volume|area|minX|minY|minZ|maxX|maxY|maxZ
+         */
+        public String toRecordString() {
+            return sums.triangles + "|" + sums.volume + "|" + sums.area + "|"
+                 + sums.minX + "|" + sums.minY + "|" + sums.minZ + "|"
+                 + sums.maxX + "|" + sums.maxY + "|" + sums.maxZ;
+        }
+
+        /**
+         * Creates a result from a record written by toRecordString
+         * @param record Codec positioned on the record
+         * @param unitScale Millimetres per STL unit
+         * @return Result object
+         */
+        public static Result fromRecord(RecordCodec record, double unitScale) {
+            if (record.fieldCount() != 9) {
+                throw new IllegalArgumentException("Invalid STL result record");
+            }
+            Sums sums = new Sums();
+            sums.triangles = record.getFixed(0, 0);
+            sums.volume = record.getDouble(1);
+            sums.area = record.getDouble(2);
+            sums.minX = record.getDouble(3);
+            sums.minY = record.getDouble(4);
+            sums.minZ = record.getDouble(5);
+            sums.maxX = record.getDouble(6);
+            sums.maxY = record.getDouble(7);
+            sums.maxZ = record.getDouble(8);
+            return new Result(sums, unitScale);
+        }
+
+        /**
+         * Gets the number of triangles
+         * @return Number of triangles
+         */
+        public long getTriangleCount() {
+            return sums.triangles;
+        }
+
+        /**
+         * Gets the signed volume, which is negative for a mesh wound inside out
+         * @return Signed volume in cm³
+         */
+        public double getSignedVolume() {
+            return sums.volume / 6 * unitScale * unitScale * unitScale / 1000;
+        }
+
+        /**
+         * Gets the volume enclosed by the mesh
+         * @return Volume in cm³
+         */
+        public double getVolume() {
+            return Math.abs(getSignedVolume());
+        }
+
+        /**
+         * Gets the surface area
+         * @return Surface area in cm²
+         */
+        public double getSurfaceArea() {
+            return sums.area / 2 * unitScale * unitScale / 100;
+        }
+
+        /**
+         * Gets the corner of the bounding box with the smallest coordinates
+         * @return X, Y and Z in mm
+         */
+        public double[] getMin() {
+            if (sums.triangles == 0) {
+                return new double[3];
+            }
+            return new double[] { sums.minX * unitScale, sums.minY * unitScale, sums.minZ * unitScale };
+        }
+
+        /**
+         * Gets the corner of the bounding box with the largest coordinates
+         * @return X, Y and Z in mm
+         */
+        public double[] getMax() {
+            if (sums.triangles == 0) {
+                return new double[3];
+            }
+            return new double[] { sums.maxX * unitScale, sums.maxY * unitScale, sums.maxZ * unitScale };
+        }
+
+        /**
+         * Gets the size of the bounding box
+         * @return Width, depth and height in mm
+         */
+        public double[] getSize() {
+            double[] min = getMin();
+            double[] max = getMax();
+            return new double[] { max[0] - min[0], max[1] - min[1], max[2] - min[2] };
+        }
+
+        /**
+         * Estimates the weight of printing the model
+         * The outer shell (surface area times the material's shell thickness, at
+         * most the whole volume) is printed solid and the rest of the volume at the
+         * material's infill density.
+         * @param material Material printed (must have a density)
+         * @return Estimated weight in grams
+         */
+        public double estimateGrams(Material material) {
+            if (material.getDensity() <= 0) {
+                throw new IllegalArgumentException("Material " + material.getName() + " has no density");
+            }
+            double volume = getVolume();
+            double shell = Math.min(volume, getSurfaceArea() * material.getShellThickness() / 10);
+            return (shell + (volume - shell) * material.getInfillDensity()) * material.getDensity();
+        }
+
+        /**
+         * String representation for display purposes
+         * @return Size summary
+         */
+        @Override
+        public String toString() {
+            double[] size = getSize();
+            return String.format("Triangles: %d%n"
+                                 + "Volume: %.2f cm³ | Surface area: %.2f cm²%n"
+                                 + "Size: %.2f x %.2f x %.2f mm%s",
+                                 sums.triangles, getVolume(), getSurfaceArea(), size[0], size[1], size[2],
+                                 sums.volume < 0 ? " (mesh is inside out)" : "");
+        }
+    }
+}
\ No newline at end of file
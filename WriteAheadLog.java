@@ -0,0 +1,237 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * WriteAheadLog Class
+ * Append-only log of database changes.
+ * Each record is a single line in the format: type|payload
+ * The log is UTF-8, like the database files.
+ */
+public class WriteAheadLog {
+    // Record types
+    public static final String ADD_MATERIAL = "M+";
+    public static final String UPDATE_MATERIAL = "M~";
+    public static final String DELETE_MATERIAL = "M-";
+    public static final String ADD_PROJECT = "P+";
+    public static final String UPDATE_PROJECT = "P~";
+    public static final String DELETE_PROJECT = "P-";
+
+    // Attributes
+    private String logFile;              // Path to the log file
+    private BufferedWriter writer;       // Open append stream, created on first write
+    private FileOutputStream stream;     // File under the append stream
+    private boolean forceWrites;         // Force every write to disk
+    private int recordCount;             // Records currently in the log
+    private long validLength;            // Bytes up to the end of the last good record, found by replay
+
+    /**
+     * Callback used while replaying the log
+     */
+    public interface RecordHandler {
+        /**
+         * Applies a single log record
+         * @param type Record type
+         * @param payload Record payload
+         */
+        void apply(String type, String payload);
+    }
+
+    /**
+     * Constructor - Creates a log backed by the given file
+     * @param logFile Path to the log file
+     */
+    public WriteAheadLog(String logFile) {
+        this.logFile = logFile;
+        this.recordCount = 0;
+    }
+
+    /**
+     * Appends a record to the end of the log
+     * @param type Record type
+     * @param payload Record payload
+     * @throws IOException if the record cannot be written
+     */
+    public void append(String type, String payload) throws IOException {
+        write(type, payload);
+        sync();
+    }
+    
+    /**
+     * Appends a group of records with a single flush
+     * @param types Record types
+     * @param payloads Record payloads, in the same order as the types
+     * @throws IOException if the records cannot be written
+     */
+    public void appendAll(List<String> types, List<String> payloads) throws IOException {
+        for (int i = 0; i < types.size(); i++) {
+            write(types.get(i), payloads.get(i));
+        }
+        sync();
+    }
+    
+    /**
+     * Flushes the append stream, and forces it to disk if forced writes are enabled
+     * @throws IOException if the records cannot be written
+     */
+    private void sync() throws IOException {
+        writer.flush();
+        if (forceWrites) {
+            stream.getChannel().force(false);
+        }
+    }
+    
+    /**
+     * Writes a record to the append stream without flushing it
+     * @param type Record type
+     * @param payload Record payload
+     * @throws IOException if the record cannot be written
+     */
+    private void write(String type, String payload) throws IOException {
+        if (writer == null) {
+            stream = new FileOutputStream(logFile, true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+        writer.write(type);
+        writer.write('|');
+        writer.write(payload);
+        writer.newLine();
+        recordCount++;
+    }
+
+    /**
+     * Replays every record in the log in the order it was written.
+     * A damaged record ends the replay. A last line without its line break was
+     * cut short while it was being written, so it is not applied. The file is
+     * not changed; see recover.
+     * @param handler Callback that applies each record
+     * @return Number of records replayed
+     */
+    public int replay(RecordHandler handler) {
+        File file = new File(logFile);
+        recordCount = 0;
+        validLength = 0;
+        if (!file.exists()) {
+            return 0;
+        }
+
+        // Records are read as bytes so the offset of each one is known
+        byte[] line = new byte[256];
+        int length = 0;
+        long offset = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) b;
+                    continue;
+                }
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                String record = new String(line, 0, length, StandardCharsets.UTF_8);
+                length = 0;
+                if (!record.trim().isEmpty()) {
+                    int separator = record.indexOf('|');
+                    if (separator < 0) {
+                        System.err.println("Warning: Damaged log record. Stopping replay.");
+                        return recordCount;
+                    }
+                    try {
+                        handler.apply(record.substring(0, separator), record.substring(separator + 1));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Warning: Damaged log record. Stopping replay.");
+                        return recordCount;
+                    }
+                    recordCount++;
+                }
+                validLength = offset;
+            }
+            if (length > 0) {
+                System.err.println("Warning: Incomplete last log record. Stopping replay.");
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying log: " + e.getMessage());
+        }
+        return recordCount;
+    }
+
+    /**
+     * Replays the log and then cuts off anything after the last good record,
+     * so the next record is not appended onto a damaged or half-written one.
+     * Only the owner of the log should call this; readers use replay.
+     * @param handler Callback that applies each record
+     * @return Number of records replayed
+     * @throws IOException if the damaged part cannot be removed
+     */
+    public int recover(RecordHandler handler) throws IOException {
+        int replayed = replay(handler);
+        File file = new File(logFile);
+        if (file.exists() && file.length() > validLength) {
+            close();
+            try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+                channel.truncate(validLength);
+                channel.force(false);
+            }
+            System.err.println("Warning: Removed damaged end of log " + logFile
+                               + " after " + replayed + " records.");
+        }
+        return replayed;
+    }
+
+    /**
+     * Empties the log after its records have been saved elsewhere
+     * @throws IOException if the log cannot be truncated
+     */
+    public void truncate() throws IOException {
+        close();
+        new FileWriter(logFile).close();
+        recordCount = 0;
+    }
+
+    /**
+     * Closes the append stream
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing log: " + e.getMessage());
+        }
+        writer = null;
+        stream = null;
+    }
+
+    /**
+     * Sets whether every write is forced to disk before it is reported as done
+     * @param forceWrites true to force every write to disk
+     */
+    public void setForceWrites(boolean forceWrites) {
+        this.forceWrites = forceWrites;
+    }
+    
+    /**
+     * Gets the number of records currently in the log
+     * @return Number of records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the path to the log file
+     * @return Log file path
+     */
+    public String getLogFile() {
+        return logFile;
+    }
+}
\ No newline at end of file